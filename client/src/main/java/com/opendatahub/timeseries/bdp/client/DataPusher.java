@@ -10,8 +10,11 @@ import jakarta.annotation.PostConstruct;
 import org.apache.commons.configuration2.Configuration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
 
+import com.opendatahub.timeseries.bdp.client.util.GzipRequestCompression;
 import com.opendatahub.timeseries.bdp.dto.dto.ProvenanceDto;
 
 import static net.logstash.logback.argument.StructuredArguments.v;
@@ -28,10 +31,28 @@ public abstract class DataPusher implements OpendatahubClient  {
 
 	public static final int STATION_CHUNK_SIZE = 25;
 
+	/** Binary JSON, smaller and faster to parse for the writer than JSON */
+	public static final MediaType APPLICATION_SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+
+	/** Request header of pushes, the writer writes a push sent again with the same key only once */
+	public static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+
 	protected Configuration config;
 	protected String stationType;
 	protected ProvenanceDto provenance;
 
+	/** Format of request bodies sent to the writer, JSON or {@link #APPLICATION_SMILE} */
+	@Value("${WRITER_CONTENT_TYPE:application/json}")
+	protected String contentType = MediaType.APPLICATION_JSON_VALUE;
+
+	/** Content-Encoding of request bodies sent to the writer, gzip or empty for none */
+	@Value("${WRITER_CONTENT_ENCODING:}")
+	protected String contentEncoding = "";
+
+	/** Number of times a push is sent again if the connection failed, see {@link #IDEMPOTENCY_KEY} */
+	@Value("${WRITER_PUSH_RETRIES:2}")
+	protected int pushRetries = 2;
+
 	public abstract void connectToDataCenterCollector();
 	public abstract String initStationType();
 	public abstract ProvenanceDto defineProvenance();
@@ -58,6 +79,28 @@ public abstract class DataPusher implements OpendatahubClient  {
 		this.stationType = stationType;
 	}
 
+	public MediaType getContentType() {
+		return MediaType.parseMediaType(contentType);
+	}
+	public void setContentType(MediaType contentType) {
+		this.contentType = contentType.toString();
+	}
+
+	/** @return true if request bodies get sent gzip compressed */
+	public boolean isGzip() {
+		return GzipRequestCompression.GZIP.equalsIgnoreCase(contentEncoding);
+	}
+	public void setContentEncoding(String contentEncoding) {
+		this.contentEncoding = contentEncoding;
+	}
+
+	public int getPushRetries() {
+		return pushRetries;
+	}
+	public void setPushRetries(int pushRetries) {
+		this.pushRetries = pushRetries;
+	}
+
 	protected void logInfo(String msg, Object parameters) {
 		LOG.info(
 			msg,
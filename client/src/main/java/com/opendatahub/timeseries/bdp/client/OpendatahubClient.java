@@ -7,6 +7,7 @@ package com.opendatahub.timeseries.bdp.client;
 
 import java.util.List;
 
+import com.opendatahub.timeseries.bdp.dto.dto.ColumnarRecordsDto;
 import com.opendatahub.timeseries.bdp.dto.dto.DataMapDto;
 import com.opendatahub.timeseries.bdp.dto.dto.DataTypeDto;
 import com.opendatahub.timeseries.bdp.dto.dto.RecordDtoImpl;
@@ -36,6 +37,16 @@ public interface OpendatahubClient {
 	 */
 	public abstract Object pushData(String stationType, DataMapDto<? extends RecordDtoImpl> data);
 
+	/**
+	 * Same as {@link #pushData(String, DataMapDto)}, but with records in a
+	 * columnar form, which is much smaller for many records
+	 *
+	 * @param stationType unique existing station typology
+	 * @param data series of records to send to writer
+	 * @return outcome of the api call
+	 */
+	public abstract Object pushColumns(String stationType, ColumnarRecordsDto data);
+
 	/**
 	 * @param stationType unique existing station typology
 	 * @param stations list of station dtos to sync with existing in database
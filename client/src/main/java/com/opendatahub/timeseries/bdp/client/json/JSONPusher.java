@@ -11,16 +11,21 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
+import java.util.UUID;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
 
 import com.opendatahub.timeseries.bdp.client.DataPusher;
+import com.opendatahub.timeseries.bdp.client.util.GzipRequestCompression;
+import com.opendatahub.timeseries.bdp.dto.dto.ColumnarRecordsDto;
 import com.opendatahub.timeseries.bdp.dto.dto.DataMapDto;
 import com.opendatahub.timeseries.bdp.dto.dto.DataTypeDto;
 import com.opendatahub.timeseries.bdp.dto.dto.ProvenanceDto;
@@ -29,6 +34,8 @@ import com.opendatahub.timeseries.bdp.dto.dto.StationDto;
 import com.opendatahub.timeseries.bdp.dto.dto.StationList;
 import com.opendatahub.timeseries.bdp.dto.utils.Utils;
 
+import jakarta.annotation.PostConstruct;
+
 /**
  * Send data as JSON-format to the writer. Implementation with spring REST
  * template.
@@ -44,12 +51,23 @@ public abstract class JSONPusher extends DataPusher {
 	private static final String SYNC_DATA_TYPES = "/syncDataTypes";
 	private static final String SYNC_STATIONS = "/syncStations";
 	private static final String PUSH_RECORDS = "/pushRecords";
+	private static final String PUSH_COLUMNS = "/pushColumns";
 	private static final String GET_DATE_OF_LAST_RECORD = "/getDateOfLastRecord";
 	private static final String STATIONS = "/stations";
 	private static final String PROVENANCE = "/provenance";
+	private static final long PUSH_RETRY_DELAY_MILLIS = 1000;
 
 	protected RestTemplate restTemplate = new RestTemplate();
 
+	@Override
+	@PostConstruct
+	public void init() {
+		super.init();
+		if (isGzip()) {
+			restTemplate.getInterceptors().add(GzipRequestCompression.interceptor());
+		}
+	}
+
 	@Override
 	public Object pushData(String stationType, DataMapDto<? extends RecordDtoImpl> dto) {
 		LOG.info(
@@ -63,11 +81,48 @@ public abstract class JSONPusher extends DataPusher {
 			return null;
 		}
 
+		// Retries carry the same key, so the writer does not repeat a push that got through
+		HttpEntity<?> request = body(dto, UUID.randomUUID().toString());
+		for (int retry = 0;; retry++) {
+			try {
+				return restTemplate
+						.exchange(
+								PUSH_RECORDS + "/{stationType}?prn={}&prv={}",
+								HttpMethod.POST,
+								request,
+								Object.class,
+								stationType,
+								provenance.getDataCollector(),
+								provenance.getDataCollectorVersion())
+						.getBody();
+			} catch (ResourceAccessException e) {
+				if (retry >= pushRetries) {
+					throw e;
+				}
+				LOG.warn("JSONPusher/pushData: Sending push again: {}", e.getMessage());
+				sleepBeforeRetry(retry);
+			}
+		}
+	}
+
+	@Override
+	public Object pushColumns(String stationType, ColumnarRecordsDto dto) {
+		LOG.info(
+				"JSONPusher/pushColumns",
+				v("provenance", provenance));
+		this.pushProvenance();
+		dto.setProvenance(this.provenance.getUuid());
+
+		if (dto.getSeries().isEmpty()) {
+			LOG.warn("JSONPusher/pushColumns : Dto is empty. Returning!");
+			return null;
+		}
+
 		return restTemplate
 				.exchange(
-						PUSH_RECORDS + "/{stationType}?prn={}&prv={}",
+						PUSH_COLUMNS + "/{stationType}?prn={}&prv={}",
 						HttpMethod.POST,
-						new HttpEntity<DataMapDto<? extends RecordDtoImpl>>(dto),
+						body(dto),
 						Object.class,
 						stationType,
 						provenance.getDataCollector(),
@@ -75,6 +130,35 @@ public abstract class JSONPusher extends DataPusher {
 				.getBody();
 	}
 
+	public Object pushColumns(ColumnarRecordsDto dto) {
+		return pushColumns(this.stationType, dto);
+	}
+
+	/** @return request entity sending {@code body} with the configured content type */
+	private <T> HttpEntity<T> body(T body) {
+		return body(body, null);
+	}
+
+	/** Same as {@link #body(Object)}, with an {@link #IDEMPOTENCY_KEY} unless null */
+	private <T> HttpEntity<T> body(T body, String idempotencyKey) {
+		HttpHeaders headers = new HttpHeaders();
+		headers.setContentType(getContentType());
+		if (idempotencyKey != null) {
+			headers.set(IDEMPOTENCY_KEY, idempotencyKey);
+		}
+		return new HttpEntity<>(body, headers);
+	}
+
+	/** Back off exponentially, like the retries of {@link NonBlockingJSONPusher} */
+	private static void sleepBeforeRetry(int retry) {
+		try {
+			Thread.sleep(PUSH_RETRY_DELAY_MILLIS << retry);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting to send a push again", e);
+		}
+	}
+
 	private void pushProvenance() {
 		// We know that the provenance exist, and which UUID it has.
 		// So we do not need to get that information again from the DB
@@ -124,7 +208,7 @@ public abstract class JSONPusher extends DataPusher {
 				.exchange(
 						SYNC_STATIONS + "{stationType}?prn={}&prv={}",
 						HttpMethod.POST,
-						new HttpEntity<StationList>(stations),
+						body(stations),
 						Object.class,
 						stationType,
 						provenance.getDataCollector(),
@@ -199,7 +283,7 @@ public abstract class JSONPusher extends DataPusher {
 				.exchange(
 						SYNC_DATA_TYPES + "?prn={}&prv={}",
 						HttpMethod.POST,
-						new HttpEntity<List<DataTypeDto>>(data),
+						body(data),
 						Object.class,
 						provenance.getDataCollector(),
 						provenance.getDataCollectorVersion())
@@ -5,10 +5,12 @@
 
 package com.opendatahub.timeseries.bdp.client.json;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
+import java.util.UUID;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -18,8 +20,11 @@ import org.springframework.stereotype.Component;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
 
 import com.opendatahub.timeseries.bdp.client.DataPusher;
+import com.opendatahub.timeseries.bdp.client.util.GzipRequestCompression;
+import com.opendatahub.timeseries.bdp.dto.dto.ColumnarRecordsDto;
 import com.opendatahub.timeseries.bdp.dto.dto.DataMapDto;
 import com.opendatahub.timeseries.bdp.dto.dto.DataTypeDto;
 import com.opendatahub.timeseries.bdp.dto.dto.ProvenanceDto;
@@ -30,6 +35,7 @@ import com.opendatahub.timeseries.bdp.dto.utils.Utils;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.Resource;
 import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
 
 import static net.logstash.logback.argument.StructuredArguments.v;
 
@@ -46,9 +52,11 @@ public abstract class NonBlockingJSONPusher extends DataPusher {
     private static final String SYNC_STATIONS = "/syncStations/";
 	private static final String SYNC_STATION_STATES = "syncStationStates";
     private static final String PUSH_RECORDS = "/pushRecords/";
+    private static final String PUSH_COLUMNS = "/pushColumns/";
     private static final String GET_DATE_OF_LAST_RECORD = "/getDateOfLastRecord/";
     private static final String STATIONS = "/stations/";
     private static final String PROVENANCE = "/provenance/";
+    private static final Duration PUSH_RETRY_DELAY = Duration.ofSeconds(1);
 
 	private static final Logger LOG = LoggerFactory.getLogger(NonBlockingJSONPusher.class);
 
@@ -60,6 +68,9 @@ public abstract class NonBlockingJSONPusher extends DataPusher {
     @PostConstruct
     public void init() {
         super.init();
+        if (isGzip()) {
+            client = client.mutate().filter(GzipRequestCompression.filter()).build();
+        }
     }
 
     @Override
@@ -70,6 +81,7 @@ public abstract class NonBlockingJSONPusher extends DataPusher {
 		);
         this.pushProvenance();
         dto.setProvenance(this.provenance.getUuid());
+		// Retries carry the same key, so the writer does not repeat a push that got through
         return client
 			.post()
 			.uri(uriBuilder -> uriBuilder
@@ -77,12 +89,45 @@ public abstract class NonBlockingJSONPusher extends DataPusher {
 				.queryParams(createParams())
 				.build()
 			)
+			.contentType(getContentType())
+			.header(IDEMPOTENCY_KEY, UUID.randomUUID().toString())
 			.body(Mono.just(dto), Object.class)
 			.retrieve()
             .bodyToMono(Object.class)
+			.retryWhen(Retry.backoff(pushRetries, PUSH_RETRY_DELAY)
+				.filter(WebClientRequestException.class::isInstance)
+				.doBeforeRetry(signal -> LOG.warn("NonBlockingJSONPusher/pushData: Sending push again: {}",
+					signal.failure().getMessage()))
+				.onRetryExhaustedThrow((spec, signal) -> signal.failure()))
 			.block();
     }
 
+    @Override
+    public Object pushColumns(String stationType, ColumnarRecordsDto dto) {
+		LOG.info(
+			"NonBlockingJSONPusher/pushColumns",
+			v("provenance", provenance)
+		);
+        this.pushProvenance();
+        dto.setProvenance(this.provenance.getUuid());
+        return client
+			.post()
+			.uri(uriBuilder -> uriBuilder
+				.path(PUSH_COLUMNS + stationType)
+				.queryParams(createParams())
+				.build()
+			)
+			.contentType(getContentType())
+			.body(Mono.just(dto), ColumnarRecordsDto.class)
+			.retrieve()
+            .bodyToMono(Object.class)
+			.block();
+    }
+
+    public Object pushColumns(ColumnarRecordsDto dto) {
+        return pushColumns(this.stationType, dto);
+    }
+
     private void pushProvenance() {
 		// We know that the provenance exist, and which UUID it has.
 		// So we do not need to get that information again from the DB
@@ -176,6 +221,7 @@ public abstract class NonBlockingJSONPusher extends DataPusher {
 				)
 				.build()
 			)
+			.contentType(getContentType())
 			.body(Mono.just(stations), Object.class)
 			.retrieve()
             .bodyToMono(Object.class)
@@ -320,6 +366,7 @@ public abstract class NonBlockingJSONPusher extends DataPusher {
 				.queryParams(createParams())
 				.build()
 			)
+			.contentType(getContentType())
 			.body(Mono.just(data), Object.class)
 			.retrieve()
             .bodyToMono(Object.class)
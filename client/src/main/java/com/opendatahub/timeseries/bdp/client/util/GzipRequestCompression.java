@@ -0,0 +1,84 @@
+// Copyright © 2025 NOI Techpark - Südtirol / Alto Adige (info@opendatahub.com)
+//
+// SPDX-License-Identifier: GPL-3.0-only
+
+package com.opendatahub.timeseries.bdp.client.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPOutputStream;
+
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.reactive.ClientHttpRequestDecorator;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Sends request bodies with {@code Content-Encoding: gzip}. Measurement
+ * pushes compress about 10:1, the writer decompresses them transparently.
+ */
+public final class GzipRequestCompression {
+
+	public static final String GZIP = "gzip";
+
+	private GzipRequestCompression() {
+	}
+
+	/** For {@link org.springframework.web.client.RestTemplate} */
+	public static ClientHttpRequestInterceptor interceptor() {
+		return (request, body, execution) -> {
+			if (body.length == 0) {
+				return execution.execute(request, body);
+			}
+			byte[] compressed = gzip(body);
+			request.getHeaders().set(HttpHeaders.CONTENT_ENCODING, GZIP);
+			request.getHeaders().setContentLength(compressed.length);
+			return execution.execute(request, compressed);
+		};
+	}
+
+	/** For {@link org.springframework.web.reactive.function.client.WebClient} */
+	public static ExchangeFilterFunction filter() {
+		return (request, next) -> {
+			if (request.method() == HttpMethod.GET || request.method() == HttpMethod.HEAD) {
+				return next.exchange(request);
+			}
+			ClientRequest compressed = ClientRequest.from(request)
+				.header(HttpHeaders.CONTENT_ENCODING, GZIP)
+				.body((message, context) -> request.body().insert(new ClientHttpRequestDecorator(message) {
+					@Override
+					public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+						return DataBufferUtils.join(body).flatMap(buffer -> {
+							byte[] bytes = new byte[buffer.readableByteCount()];
+							buffer.read(bytes);
+							DataBufferUtils.release(buffer);
+							byte[] gzipped = gzip(bytes);
+							// The encoder has set the uncompressed length already
+							getHeaders().setContentLength(gzipped.length);
+							return super.writeWith(Mono.just(bufferFactory().wrap(gzipped)));
+						});
+					}
+				}, context))
+				.build();
+			return next.exchange(compressed);
+		};
+	}
+
+	static byte[] gzip(byte[] data) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, data.length / 8));
+		try (GZIPOutputStream gzip = new GZIPOutputStream(out, 8192)) {
+			gzip.write(data);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return out.toByteArray();
+	}
+}
@@ -0,0 +1,410 @@
+// Copyright © 2025 NOI Techpark - Südtirol / Alto Adige (info@opendatahub.com)
+//
+// SPDX-License-Identifier: GPL-3.0-only
+
+package com.opendatahub.timeseries.bdp.dto.dto;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+/**
+ * <p>
+ * Compact alternative to {@link DataMapDto} for pushing many measurements.
+ * Records are grouped by station, type and period into a {@link Series},
+ * which holds timestamps and values in parallel arrays instead of one
+ * {@link SimpleRecordDto} per measurement.
+ * </p>
+ *
+ * <pre>
+ * {
+ *   "provenance": "...",
+ *   "series": [
+ *     {"station": "ST1", "type": "air-temperature", "period": 600,
+ *      "timestamps": [1700000000000, 1700000600000], "numbers": [12.3, 12.1]},
+ *     {"station": "ST1", "type": "weather", "period": 600,
+ *      "timestamps": [1700000000000], "strings": ["sunny"]}
+ *   ]
+ * }
+ * </pre>
+ *
+ * <p>
+ * A series holds values of a single kind, either numbers, strings or JSON
+ * objects. Timestamps of a series must be strictly ascending.
+ * </p>
+ */
+@JsonPropertyOrder({"provenance", "series"})
+public class ColumnarRecordsDto implements Serializable {
+
+	private static final long serialVersionUID = 3386203155546287130L;
+
+	/** Value kinds of a {@link Series}, with their field name in JSON */
+	public enum Kind {
+		NUMBER("numbers"),
+		STRING("strings"),
+		JSON("json");
+
+		private final String field;
+
+		Kind(String field) {
+			this.field = field;
+		}
+
+		public String getField() {
+			return field;
+		}
+	}
+
+	private String provenance;
+	private List<Series> series = new ArrayList<>();
+
+	/** Series by station, type, period and kind, built on first use of {@link #series} */
+	private transient Map<String, Series> index;
+
+	public String getProvenance() {
+		return provenance;
+	}
+
+	public void setProvenance(String provenance) {
+		this.provenance = provenance;
+	}
+
+	public List<Series> getSeries() {
+		return series;
+	}
+
+	public void setSeries(List<Series> series) {
+		this.series = series;
+		this.index = null;
+	}
+
+	/**
+	 * @return the series of a station, type and period with values of
+	 *         {@code kind}, a new empty one if not present yet
+	 */
+	public Series series(String station, String type, int period, Kind kind) {
+		if (index == null) {
+			index = new LinkedHashMap<>();
+			for (Series s : series) {
+				index.put(indexKey(s.station, s.type, s.period, s.kind), s);
+			}
+		}
+		return index.computeIfAbsent(indexKey(station, type, period, kind), k -> {
+			Series s = new Series(station, type, period, kind);
+			series.add(s);
+			return s;
+		});
+	}
+
+	private static String indexKey(String station, String type, int period, Kind kind) {
+		return station + '\0' + type + '\0' + period + '\0' + kind;
+	}
+
+	/** @return total number of records of all series */
+	@JsonIgnore
+	public int size() {
+		return series.stream().mapToInt(Series::size).sum();
+	}
+
+	/**
+	 * Records of one station, type and period. Arrays grow while adding
+	 * records and may be longer than {@link #size()}.
+	 */
+	@JsonSerialize(using = SeriesSerializer.class)
+	@JsonDeserialize(using = SeriesDeserializer.class)
+	public static class Series implements Serializable {
+
+		private static final long serialVersionUID = 2211850812431390233L;
+
+		private static final int INITIAL_CAPACITY = 16;
+
+		private String station;
+		private String type;
+		private int period;
+		private Kind kind;
+		private int size;
+		private long[] timestamps;
+		private double[] numbers;
+		/** Strings, or JSON objects serialized as text */
+		private String[] texts;
+
+		public Series(String station, String type, int period, Kind kind) {
+			this.station = station;
+			this.type = type;
+			this.period = period;
+			this.kind = kind;
+			this.timestamps = new long[INITIAL_CAPACITY];
+			if (kind == Kind.NUMBER) {
+				this.numbers = new double[INITIAL_CAPACITY];
+			} else {
+				this.texts = new String[INITIAL_CAPACITY];
+			}
+		}
+
+		/** Series of numbers, arrays are taken as they are */
+		public Series(String station, String type, int period, long[] timestamps, double[] numbers) {
+			this(station, type, period, Kind.NUMBER, timestamps, numbers, null);
+		}
+
+		/**
+		 * Series of strings or JSON objects, arrays are taken as they are
+		 *
+		 * @param texts strings, or JSON objects serialized as text
+		 */
+		public Series(String station, String type, int period, Kind kind, long[] timestamps, String[] texts) {
+			this(station, type, period, kind, timestamps, null, texts);
+			if (kind == Kind.NUMBER) {
+				throw new IllegalArgumentException("Numbers must be given as double[]");
+			}
+		}
+
+		private Series(String station, String type, int period, Kind kind, long[] timestamps, double[] numbers,
+				String[] texts) {
+			int values = numbers != null ? numbers.length : texts.length;
+			if (timestamps.length != values) {
+				throw new IllegalArgumentException(String.format(
+					"Series %s/%s/%d has %d timestamps, but %d values", station, type, period, timestamps.length, values));
+			}
+			this.station = station;
+			this.type = type;
+			this.period = period;
+			this.kind = kind;
+			this.timestamps = timestamps;
+			this.numbers = numbers;
+			this.texts = texts;
+			this.size = timestamps.length;
+		}
+
+		public Series add(long timestamp, double value) {
+			if (kind != Kind.NUMBER) {
+				throw new IllegalArgumentException("Series of " + kind + " values cannot hold numbers");
+			}
+			grow();
+			timestamps[size] = timestamp;
+			numbers[size++] = value;
+			return this;
+		}
+
+		/** @param value a string, or a JSON object serialized as text for {@link Kind#JSON} */
+		public Series add(long timestamp, String value) {
+			if (kind == Kind.NUMBER) {
+				throw new IllegalArgumentException("Series of numbers cannot hold strings");
+			}
+			grow();
+			timestamps[size] = timestamp;
+			texts[size++] = value;
+			return this;
+		}
+
+		private void grow() {
+			if (size == timestamps.length) {
+				int capacity = Math.max(INITIAL_CAPACITY, size * 2);
+				timestamps = Arrays.copyOf(timestamps, capacity);
+				if (numbers != null) {
+					numbers = Arrays.copyOf(numbers, capacity);
+				} else {
+					texts = Arrays.copyOf(texts, capacity);
+				}
+			}
+		}
+
+		public String getStation() {
+			return station;
+		}
+
+		public String getType() {
+			return type;
+		}
+
+		public int getPeriod() {
+			return period;
+		}
+
+		public Kind getKind() {
+			return kind;
+		}
+
+		public int size() {
+			return size;
+		}
+
+		/** @return timestamps, only the first {@link #size()} are used */
+		public long[] getTimestamps() {
+			return timestamps;
+		}
+
+		/** @return values of a {@link Kind#NUMBER} series, only the first {@link #size()} are used */
+		public double[] getNumbers() {
+			return numbers;
+		}
+
+		/**
+		 * @return values of a {@link Kind#STRING} or {@link Kind#JSON} series, only
+		 *         the first {@link #size()} are used
+		 */
+		public String[] getTexts() {
+			return texts;
+		}
+
+		/** @return true if timestamps are strictly ascending */
+		public boolean isAscending() {
+			for (int i = 1; i < size; i++) {
+				if (timestamps[i] <= timestamps[i - 1]) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		@Override
+		public String toString() {
+			return "Series [station=" + station + ", type=" + type + ", period=" + period + ", kind=" + kind
+				+ ", size=" + size + "]";
+		}
+	}
+
+	/**
+	 * Writes the used part of the arrays only. JSON values are written as
+	 * they are into JSON documents, and get converted for binary formats.
+	 */
+	public static class SeriesSerializer extends StdSerializer<Series> {
+
+		private static final long serialVersionUID = 1L;
+
+		public SeriesSerializer() {
+			super(Series.class);
+		}
+
+		@Override
+		public void serialize(Series s, JsonGenerator gen, SerializerProvider provider) throws IOException {
+			gen.writeStartObject();
+			gen.writeStringField("station", s.station);
+			gen.writeStringField("type", s.type);
+			gen.writeNumberField("period", s.period);
+			gen.writeFieldName("timestamps");
+			gen.writeArray(s.timestamps, 0, s.size);
+			gen.writeFieldName(s.kind.getField());
+			switch (s.kind) {
+				case NUMBER:
+					gen.writeArray(s.numbers, 0, s.size);
+					break;
+				case STRING:
+					gen.writeArray(s.texts, 0, s.size);
+					break;
+				case JSON:
+					gen.writeStartArray();
+					for (int i = 0; i < s.size; i++) {
+						RawJsonValue.write(gen, s.texts[i]);
+					}
+					gen.writeEndArray();
+					break;
+			}
+			gen.writeEndObject();
+		}
+	}
+
+	/**
+	 * Reads arrays directly into primitive arrays. JSON values are kept as
+	 * text, they are never turned into maps.
+	 */
+	public static class SeriesDeserializer extends StdDeserializer<Series> {
+
+		private static final long serialVersionUID = 1L;
+
+		public SeriesDeserializer() {
+			super(Series.class);
+		}
+
+		@Override
+		public Series deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+			if (!p.isExpectedStartObjectToken()) {
+				return (Series) ctxt.handleUnexpectedToken(Series.class, p);
+			}
+			String station = null;
+			String type = null;
+			Integer period = null;
+			long[] timestamps = null;
+			double[] numbers = null;
+			String[] texts = null;
+			Kind kind = null;
+			while (p.nextToken() == JsonToken.FIELD_NAME) {
+				String field = p.currentName();
+				p.nextToken();
+				switch (field) {
+					case "station":
+						station = p.getValueAsString();
+						break;
+					case "type":
+						type = p.getValueAsString();
+						break;
+					case "period":
+						period = p.getIntValue();
+						break;
+					case "timestamps":
+						timestamps = p.readValueAs(long[].class);
+						break;
+					case "numbers":
+						numbers = p.readValueAs(double[].class);
+						kind = checkKind(ctxt, kind, Kind.NUMBER);
+						break;
+					case "strings":
+						texts = p.readValueAs(String[].class);
+						kind = checkKind(ctxt, kind, Kind.STRING);
+						break;
+					case "json":
+						texts = readJson(p, ctxt);
+						kind = checkKind(ctxt, kind, Kind.JSON);
+						break;
+					default:
+						p.skipChildren();
+				}
+			}
+			if (station == null || type == null || period == null || timestamps == null || kind == null) {
+				return (Series) ctxt.reportInputMismatch(Series.class,
+					"Series needs station, type, period, timestamps and one of numbers, strings or json");
+			}
+			try {
+				return new Series(station, type, period, kind, timestamps, numbers, texts);
+			} catch (IllegalArgumentException e) {
+				return (Series) ctxt.reportInputMismatch(Series.class, e.getMessage());
+			}
+		}
+
+		private static Kind checkKind(DeserializationContext ctxt, Kind current, Kind kind) throws IOException {
+			if (current != null) {
+				ctxt.reportInputMismatch(Series.class, "Series must hold only one of numbers, strings or json");
+			}
+			return kind;
+		}
+
+		private static String[] readJson(JsonParser p, DeserializationContext ctxt) throws IOException {
+			if (!p.isExpectedStartArrayToken()) {
+				ctxt.reportInputMismatch(Series.class, "Array of JSON objects expected for json");
+			}
+			List<String> values = new ArrayList<>();
+			while (p.nextToken() != JsonToken.END_ARRAY) {
+				if (p.currentToken() != JsonToken.START_OBJECT) {
+					ctxt.reportInputMismatch(Series.class, "JSON values must be objects");
+				}
+				values.add(RawJsonValue.read(p).getJson());
+			}
+			return values.toArray(new String[0]);
+		}
+	}
+}
@@ -11,6 +11,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
 
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 
 /**
  * <p>
@@ -22,10 +23,16 @@ import java.util.TreeMap;
  * <code>Station --> DataType --> Measurements</code>
  * </p>
  *
+ * <p>
+ * The provenance is serialized first, so that the writer can stream the
+ * branches without buffering them.
+ * </p>
+ *
  * @author Patrick Bertolla
  * @author Peter Moser
  *
  */
+@JsonPropertyOrder({"provenance", "name", "data", "branch"})
 public class DataMapDto <X extends RecordDtoImpl> implements Serializable{
 
 	private static final long serialVersionUID = -6053193762265167013L;
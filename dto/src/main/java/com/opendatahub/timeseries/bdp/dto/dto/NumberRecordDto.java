@@ -0,0 +1,48 @@
+// Copyright © 2025 NOI Techpark - Südtirol / Alto Adige (info@opendatahub.com)
+//
+// SPDX-License-Identifier: GPL-3.0-only
+
+package com.opendatahub.timeseries.bdp.dto.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * Record with a number value, as read by {@link RecordDtoDeserializer}. The
+ * value is kept as a primitive double, it gets boxed only if someone asks for
+ * it with {@link #getValue()}.
+ */
+public class NumberRecordDto extends SimpleRecordDto {
+
+	private static final long serialVersionUID = 1L;
+
+	private double number;
+
+	public NumberRecordDto(double number) {
+		super();
+		this.number = number;
+	}
+
+	@JsonIgnore
+	public double getNumber() {
+		return number;
+	}
+
+	@Override
+	public Object getValue() {
+		return number;
+	}
+
+	/** @throws IllegalArgumentException if {@code value} is not a number */
+	@Override
+	public void setValue(Object value) {
+		if (!(value instanceof Number n)) {
+			throw new IllegalArgumentException("Number records take numbers only, use SimpleRecordDto instead");
+		}
+		this.number = n.doubleValue();
+	}
+
+	@Override
+	public ValueKind getValueKind() {
+		return ValueKind.NUMBER;
+	}
+}
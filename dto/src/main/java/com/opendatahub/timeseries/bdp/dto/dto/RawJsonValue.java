@@ -0,0 +1,98 @@
+// Copyright © 2025 NOI Techpark - Südtirol / Alto Adige (info@opendatahub.com)
+//
+// SPDX-License-Identifier: GPL-3.0-only
+
+package com.opendatahub.timeseries.bdp.dto.dto;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.io.StringWriter;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.json.JsonGeneratorImpl;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+/**
+ * A JSON object value kept as JSON text, instead of being turned into a
+ * {@link java.util.Map}. The writer stores it as it is, see
+ * {@link RecordDtoDeserializer#RAW_JSON_ATTRIBUTE}.
+ */
+@JsonSerialize(using = RawJsonValue.Serializer.class)
+public final class RawJsonValue implements Serializable {
+
+	private static final long serialVersionUID = -6381985519020004218L;
+
+	/** Reads and writes JSON text, whatever the format of the surrounding document */
+	private static final JsonFactory JSON_TEXT = new JsonFactory();
+
+	private final String json;
+
+	/** @param json JSON text, taken as it is without validation */
+	public RawJsonValue(String json) {
+		this.json = json;
+	}
+
+	/**
+	 * Copy the value the parser is at into JSON text. Works with any input
+	 * format, Smile included.
+	 */
+	public static RawJsonValue read(JsonParser p) throws IOException {
+		StringWriter text = new StringWriter();
+		try (JsonGenerator gen = JSON_TEXT.createGenerator(text)) {
+			gen.copyCurrentStructure(p);
+		}
+		return new RawJsonValue(text.toString());
+	}
+
+	/**
+	 * Write JSON text as value. JSON output gets the text as it is, other
+	 * formats get it converted.
+	 */
+	public static void write(JsonGenerator gen, String json) throws IOException {
+		if (gen instanceof JsonGeneratorImpl) {
+			gen.writeRawValue(json);
+		} else {
+			try (JsonParser text = JSON_TEXT.createParser(json)) {
+				text.nextToken();
+				gen.copyCurrentStructure(text);
+			}
+		}
+	}
+
+	public String getJson() {
+		return json;
+	}
+
+	@Override
+	public int hashCode() {
+		return json.hashCode();
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		return obj instanceof RawJsonValue other && json.equals(other.json);
+	}
+
+	@Override
+	public String toString() {
+		return json;
+	}
+
+	public static class Serializer extends StdSerializer<RawJsonValue> {
+
+		private static final long serialVersionUID = 1L;
+
+		public Serializer() {
+			super(RawJsonValue.class);
+		}
+
+		@Override
+		public void serialize(RawJsonValue value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+			write(gen, value.json);
+		}
+	}
+}
@@ -0,0 +1,175 @@
+// Copyright © 2025 NOI Techpark - Südtirol / Alto Adige (info@opendatahub.com)
+//
+// SPDX-License-Identifier: GPL-3.0-only
+
+package com.opendatahub.timeseries.bdp.dto.dto;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.deser.ResolvableDeserializer;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.jsontype.TypeDeserializer;
+import com.opendatahub.timeseries.bdp.dto.dto.SimpleRecordDto.ValueKind;
+
+/**
+ * <p>
+ * Reads records into {@link NumberRecordDto}s and {@link StringRecordDto}s,
+ * other values into {@link SimpleRecordDto}s.
+ * </p>
+ *
+ * <p>
+ * The generic path deduces the subtype of each record first, which buffers
+ * all its tokens, and then binds it through bean properties. This one reads
+ * the fields straight from the parser and picks the record type by the
+ * {@link ValueKind} of its value while parsing, so that writers need not
+ * inspect the value again. Numbers are read as primitive doubles and never
+ * boxed on the way, which also means that integers come back as doubles.
+ * </p>
+ *
+ * <p>
+ * JSON object values become maps, or {@link RawJsonValue}s if the attribute
+ * {@link #RAW_JSON_ATTRIBUTE} is set to true, for example with
+ * {@code mapper.setDefaultAttributes(ContextAttributes.getEmpty().withSharedAttribute(RAW_JSON_ATTRIBUTE, true))}.
+ * </p>
+ */
+public class RecordDtoDeserializer extends StdDeserializer<RecordDtoImpl> implements ResolvableDeserializer {
+
+	private static final long serialVersionUID = 1L;
+
+	/** Deserialization attribute, read JSON object values as {@link RawJsonValue} if true */
+	public static final String RAW_JSON_ATTRIBUTE = RecordDtoDeserializer.class.getName() + ".rawJson";
+
+	/** Reads JSON object values, looked up once instead of for every record */
+	private transient JsonDeserializer<Object> objectDeserializer;
+
+	public RecordDtoDeserializer() {
+		super(RecordDtoImpl.class);
+	}
+
+	@Override
+	public void resolve(DeserializationContext ctxt) throws JsonMappingException {
+		objectDeserializer = ctxt.findRootValueDeserializer(ctxt.constructType(Object.class));
+	}
+
+	@Override
+	public RecordDtoImpl deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+		JsonToken t = p.currentToken();
+		if (t == JsonToken.START_OBJECT) {
+			t = p.nextToken();
+		} else if (t != JsonToken.FIELD_NAME && t != JsonToken.END_OBJECT) {
+			return (RecordDtoImpl) ctxt.handleUnexpectedToken(SimpleRecordDto.class, p);
+		}
+		// The value may come after the other fields, the record is created at the end
+		Long timestamp = null;
+		Integer period = null;
+		Long createdOn = null;
+		ValueKind kind = null;
+		double number = 0;
+		Object value = null;
+		for (; t == JsonToken.FIELD_NAME; t = p.nextToken()) {
+			String field = p.currentName();
+			t = p.nextToken();
+			switch (field) {
+				case "timestamp":
+					timestamp = t == JsonToken.VALUE_NUMBER_INT ? p.getLongValue() : ctxt.readValue(p, Long.class);
+					break;
+				case "value":
+					switch (t) {
+						case VALUE_NUMBER_INT:
+						case VALUE_NUMBER_FLOAT:
+							kind = ValueKind.NUMBER;
+							number = p.getDoubleValue();
+							value = null;
+							break;
+						case VALUE_STRING:
+							kind = ValueKind.STRING;
+							value = p.getText();
+							break;
+						case VALUE_NULL:
+							kind = null;
+							value = null;
+							break;
+						case START_OBJECT:
+							kind = ValueKind.JSON;
+							value = readObject(p, ctxt, objectDeserializer);
+							break;
+						default:
+							// Arrays and booleans, which no measurement table takes
+							kind = null;
+							value = ctxt.readValue(p, Object.class);
+					}
+					break;
+				case "period":
+					period = t == JsonToken.VALUE_NUMBER_INT ? p.getIntValue() : ctxt.readValue(p, Integer.class);
+					break;
+				case "created_on":
+					createdOn = t == JsonToken.VALUE_NUMBER_INT ? p.getLongValue() : ctxt.readValue(p, Long.class);
+					break;
+				case "_t":
+					// used to be the type information as a class name, see RecordDto
+					p.skipChildren();
+					break;
+				default:
+					handleUnknownProperty(p, ctxt, SimpleRecordDto.class, field);
+			}
+		}
+		SimpleRecordDto record;
+		if (kind == ValueKind.NUMBER) {
+			record = new NumberRecordDto(number);
+		} else if (kind == ValueKind.STRING) {
+			record = new StringRecordDto((String) value);
+		} else {
+			record = new SimpleRecordDto();
+			record.setValue(value, kind);
+		}
+		record.setTimestamp(timestamp);
+		record.setPeriod(period);
+		record.setCreated_on(createdOn);
+		return record;
+	}
+
+	private static Object readObject(JsonParser p, DeserializationContext ctxt, JsonDeserializer<Object> deserializer)
+			throws IOException {
+		if (Boolean.TRUE.equals(ctxt.getAttribute(RAW_JSON_ATTRIBUTE))) {
+			return RawJsonValue.read(p);
+		}
+		return deserializer != null ? deserializer.deserialize(p, ctxt) : ctxt.readValue(p, Object.class);
+	}
+
+	/** Records have a single subtype, no need to deduce it */
+	@Override
+	public Object deserializeWithType(JsonParser p, DeserializationContext ctxt, TypeDeserializer typeDeserializer)
+			throws IOException {
+		return deserialize(p, ctxt);
+	}
+
+	/** Reads a record value on its own, the same way as records do */
+	public static class ValueDeserializer extends StdDeserializer<Object> {
+
+		private static final long serialVersionUID = 1L;
+
+		public ValueDeserializer() {
+			super(Object.class);
+		}
+
+		@Override
+		public Object deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+			switch (p.currentToken()) {
+				case VALUE_NUMBER_INT:
+				case VALUE_NUMBER_FLOAT:
+					return p.getDoubleValue();
+				case VALUE_STRING:
+					return p.getText();
+				case START_OBJECT:
+					return readObject(p, ctxt, null);
+				default:
+					return ctxt.readValue(p, Object.class);
+			}
+		}
+	}
+}
@@ -7,6 +7,7 @@ package com.opendatahub.timeseries.bdp.dto.dto;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonPropertyDescription;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 
 /**
  * Minimal measurement data transfer object to be interesting at all.
@@ -14,6 +15,7 @@ import com.fasterxml.jackson.annotation.JsonPropertyDescription;
  * @author Patrick Bertolla
  *
  */
+@JsonDeserialize(using = RecordDtoDeserializer.class)
 public abstract class RecordDtoImpl implements RecordDto,Comparable<RecordDtoImpl>{
 
 	private static final long serialVersionUID = -1124149647267291299L;
@@ -5,6 +5,8 @@
 
 package com.opendatahub.timeseries.bdp.dto.dto;
 
+import java.util.Map;
+
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonInclude.Include;
@@ -13,7 +15,8 @@ import com.fasterxml.jackson.annotation.JsonPropertyDescription;
 
 /**
  * Most simple implementation of {@link RecordDtoImpl} which additionally to the
- * timestamp has a value which can be anything.
+ * timestamp has a value which can be anything. Numbers and strings read from
+ * JSON become {@link NumberRecordDto} and {@link StringRecordDto}.
  *
  * @author Patrick Bertolla
  *
@@ -23,6 +26,13 @@ public class SimpleRecordDto extends RecordDtoImpl {
 
 	private static final long serialVersionUID = 5703758724961079739L;
 
+	/** Kinds of values, each is stored in its own measurement table */
+	public enum ValueKind {
+		NUMBER,
+		STRING,
+		JSON
+	}
+
 	@JsonProperty(required = true)
 	@JsonPropertyDescription("The measurement value, either string or number")
 	private Object value;
@@ -32,6 +42,9 @@ public class SimpleRecordDto extends RecordDtoImpl {
 
 	private Long created_on;
 
+	/** Set while parsing, or derived from the value on first use */
+	private transient ValueKind valueKind;
+
 	public SimpleRecordDto() {
 		super();
 	}
@@ -68,6 +81,30 @@ public class SimpleRecordDto extends RecordDtoImpl {
 	}
 	public void setValue(Object value) {
 		this.value = value;
+		this.valueKind = null;
+	}
+	/** For deserializers, which know the kind of value already */
+	void setValue(Object value, ValueKind valueKind) {
+		this.value = value;
+		this.valueKind = valueKind;
+	}
+	/** @return kind of the value, null if it is none of numbers, strings or JSON objects */
+	@JsonIgnore
+	public ValueKind getValueKind() {
+		if (valueKind == null) {
+			valueKind = kindOf(value);
+		}
+		return valueKind;
+	}
+	public static ValueKind kindOf(Object value) {
+		if (value instanceof Number) {
+			return ValueKind.NUMBER;
+		} else if (value instanceof String) {
+			return ValueKind.STRING;
+		} else if (value instanceof Map || value instanceof RawJsonValue) {
+			return ValueKind.JSON;
+		}
+		return null;
 	}
 	public Integer getPeriod() {
 		return period;
@@ -77,12 +114,12 @@ public class SimpleRecordDto extends RecordDtoImpl {
 	}
 	@JsonIgnore
 	public boolean isValid() {
-		return value != null && timestamp != null && period != null;
+		return getValue() != null && timestamp != null && period != null;
 	}
 
 	@Override
 	public String toString() {
-		return "SimpleRecordDto [timestamp=" + timestamp + ", value=" + value + ", period=" + period + "]";
+		return "SimpleRecordDto [timestamp=" + timestamp + ", value=" + getValue() + ", period=" + period + "]";
 	}
 
 }
@@ -0,0 +1,46 @@
+// Copyright © 2025 NOI Techpark - Südtirol / Alto Adige (info@opendatahub.com)
+//
+// SPDX-License-Identifier: GPL-3.0-only
+
+package com.opendatahub.timeseries.bdp.dto.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * Record with a string value, as read by {@link RecordDtoDeserializer}
+ */
+public class StringRecordDto extends SimpleRecordDto {
+
+	private static final long serialVersionUID = 1L;
+
+	private String text;
+
+	public StringRecordDto(String text) {
+		super();
+		this.text = text;
+	}
+
+	@JsonIgnore
+	public String getText() {
+		return text;
+	}
+
+	@Override
+	public Object getValue() {
+		return text;
+	}
+
+	/** @throws IllegalArgumentException if {@code value} is not a string */
+	@Override
+	public void setValue(Object value) {
+		if (!(value instanceof String s)) {
+			throw new IllegalArgumentException("String records take strings only, use SimpleRecordDto instead");
+		}
+		this.text = s;
+	}
+
+	@Override
+	public ValueKind getValueKind() {
+		return ValueKind.STRING;
+	}
+}
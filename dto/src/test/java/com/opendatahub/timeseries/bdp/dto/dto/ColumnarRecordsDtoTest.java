@@ -0,0 +1,80 @@
+// Copyright © 2025 NOI Techpark - Südtirol / Alto Adige (info@opendatahub.com)
+//
+// SPDX-License-Identifier: GPL-3.0-only
+
+package com.opendatahub.timeseries.bdp.dto.dto;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.opendatahub.timeseries.bdp.dto.dto.ColumnarRecordsDto.Kind;
+import com.opendatahub.timeseries.bdp.dto.dto.ColumnarRecordsDto.Series;
+
+public class ColumnarRecordsDtoTest {
+
+	private final ObjectMapper mapper = new ObjectMapper();
+
+	@Test
+	public void testRoundTrip() throws Exception {
+		ColumnarRecordsDto dto = new ColumnarRecordsDto();
+		dto.setProvenance("prov-uuid");
+		Series numbers = dto.series("s1", "temperature", 600, Kind.NUMBER);
+		for (int i = 0; i < 100; i++) {
+			numbers.add(1000L * i, i / 2.0);
+		}
+		assertSame(numbers, dto.series("s1", "temperature", 600, Kind.NUMBER));
+		dto.series("s1", "weather", 600, Kind.STRING).add(1000, "sunny").add(2000, "cloudy");
+		dto.series("s2", "forecast", 3600, Kind.JSON).add(1000, "{\"min\":1,\"max\":[2,3]}");
+		assertEquals(103, dto.size());
+
+		String json = mapper.writeValueAsString(dto);
+		assertTrue(json.startsWith("{\"provenance\":\"prov-uuid\""), json);
+		assertTrue(json.contains("\"json\":[{\"min\":1,\"max\":[2,3]}]"), json);
+
+		ColumnarRecordsDto read = mapper.readValue(json, ColumnarRecordsDto.class);
+		assertEquals("prov-uuid", read.getProvenance());
+		assertEquals(3, read.getSeries().size());
+
+		Series n = read.getSeries().get(0);
+		assertEquals(Kind.NUMBER, n.getKind());
+		assertEquals(100, n.size());
+		assertArrayEquals(Arrays.copyOf(numbers.getTimestamps(), 100), n.getTimestamps());
+		assertArrayEquals(Arrays.copyOf(numbers.getNumbers(), 100), n.getNumbers());
+		assertTrue(n.isAscending());
+
+		Series s = read.getSeries().get(1);
+		assertEquals(Kind.STRING, s.getKind());
+		assertArrayEquals(new String[] {"sunny", "cloudy"}, s.getTexts());
+
+		Series j = read.getSeries().get(2);
+		assertEquals(Kind.JSON, j.getKind());
+		assertEquals(3600, j.getPeriod());
+		assertEquals("{\"min\":1,\"max\":[2,3]}", j.getTexts()[0]);
+	}
+
+	@Test
+	public void testInvalid() {
+		assertThrows(IllegalArgumentException.class,
+			() -> new ColumnarRecordsDto().series("s1", "t1", 600, Kind.STRING).add(1, 1.0));
+		assertThrows(IllegalArgumentException.class,
+			() -> new Series("s1", "t1", 600, new long[] {1, 2}, new double[] {1}));
+		assertFalse(new Series("s1", "t1", 600, new long[] {2, 2}, new double[] {1, 2}).isAscending());
+
+		String tooFewValues = "{\"series\":[{\"station\":\"s1\",\"type\":\"t1\",\"period\":600,\"timestamps\":[1,2],\"numbers\":[1]}]}";
+		assertThrows(JsonMappingException.class, () -> mapper.readValue(tooFewValues, ColumnarRecordsDto.class));
+		String twoKinds = "{\"series\":[{\"station\":\"s1\",\"type\":\"t1\",\"period\":600,\"timestamps\":[1],\"numbers\":[1],\"strings\":[\"a\"]}]}";
+		assertThrows(JsonMappingException.class, () -> mapper.readValue(twoKinds, ColumnarRecordsDto.class));
+		String noObject = "{\"series\":[{\"station\":\"s1\",\"type\":\"t1\",\"period\":600,\"timestamps\":[1],\"json\":[1]}]}";
+		assertThrows(JsonMappingException.class, () -> mapper.readValue(noObject, ColumnarRecordsDto.class));
+	}
+}
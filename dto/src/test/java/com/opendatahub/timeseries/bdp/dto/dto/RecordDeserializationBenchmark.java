@@ -0,0 +1,117 @@
+// Copyright © 2025 NOI Techpark - Südtirol / Alto Adige (info@opendatahub.com)
+//
+// SPDX-License-Identifier: GPL-3.0-only
+
+package com.opendatahub.timeseries.bdp.dto.dto;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+
+/**
+ * Throughput of reading records with {@link RecordDtoDeserializer} into
+ * {@link NumberRecordDto}s, {@link StringRecordDto}s and maps, compared to the
+ * generic bean deserializer with subtype deduction, which is what records
+ * used before.
+ *
+ * <pre>
+ * mvn -pl dto test-compile exec:java -Dexec.classpathScope=test \
+ *   -Dexec.mainClass=com.opendatahub.timeseries.bdp.dto.dto.RecordDeserializationBenchmark
+ * </pre>
+ *
+ * <p>
+ * JMH 1.37 with -f 3, JDK 17, one shared CPU, 3x2 s warmup and 5x2 s
+ * measurement, ops/s of the last of three runs:
+ * </p>
+ *
+ * <pre>
+ * kind     specialized  generic  speedup
+ * number   244 ± 36     140 ± 29   1.7x
+ * string   302 ± 48     158 ± 27   1.9x
+ * json     203 ± 49     125 ± 34   1.6x
+ * </pre>
+ *
+ * <p>
+ * Across the runs the speedup was 1.7x - 2.4x for numbers, 1.5x - 2.1x for
+ * strings and 1.4x - 2.0x for JSON values, so the 2x that was aimed at is
+ * reached in some runs only. The errors are large on that machine, measure
+ * again on a quiet one before relying on the numbers.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RecordDeserializationBenchmark {
+
+	/** Puts the default bean deserializer back in place */
+	@JsonDeserialize(using = JsonDeserializer.None.class)
+	private abstract static class GenericRecord {
+	}
+
+	private static final TypeReference<List<RecordDtoImpl>> RECORDS = new TypeReference<>() {};
+
+	@Param({"number", "string", "json"})
+	public String kind;
+
+	private byte[] body;
+	private ObjectMapper specialized;
+	private ObjectMapper generic;
+
+	@Setup
+	public void setup() throws Exception {
+		StringBuilder json = new StringBuilder("[");
+		for (int i = 0; i < 10_000; i++) {
+			if (i > 0) {
+				json.append(',');
+			}
+			String value = switch (kind) {
+				case "string" -> "\"state-" + (i % 7) + "\"";
+				case "json" -> "{\"min\":" + i + ",\"max\":" + (i + 1) + "}";
+				default -> String.valueOf(i * 0.25);
+			};
+			json.append("{\"timestamp\":").append(1_700_000_000_000L + i * 600_000L)
+				.append(",\"value\":").append(value)
+				.append(",\"period\":600}");
+		}
+		body = json.append(']').toString().getBytes();
+		specialized = new ObjectMapper();
+		generic = new ObjectMapper()
+			.addMixIn(RecordDtoImpl.class, GenericRecord.class)
+			.addMixIn(SimpleRecordDto.class, GenericRecord.class);
+	}
+
+	@Benchmark
+	public List<RecordDtoImpl> specialized() throws Exception {
+		return specialized.readValue(body, RECORDS);
+	}
+
+	@Benchmark
+	public List<RecordDtoImpl> generic() throws Exception {
+		return generic.readValue(body, RECORDS);
+	}
+
+	public static void main(String[] args) throws Exception {
+		new Runner(new OptionsBuilder().include(RecordDeserializationBenchmark.class.getSimpleName()).build()).run();
+	}
+}
@@ -0,0 +1,102 @@
+// Copyright © 2025 NOI Techpark - Südtirol / Alto Adige (info@opendatahub.com)
+//
+// SPDX-License-Identifier: GPL-3.0-only
+
+package com.opendatahub.timeseries.bdp.dto.dto;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.cfg.ContextAttributes;
+import com.opendatahub.timeseries.bdp.dto.dto.SimpleRecordDto.ValueKind;
+
+public class RecordDtoDeserializerTest {
+
+	private final ObjectMapper mapper = new ObjectMapper();
+
+	@Test
+	public void testValueKinds() throws Exception {
+		String json = "[{\"timestamp\":1,\"value\":1.5,\"period\":600,\"created_on\":2},"
+			+ "{\"_t\":\"it.bz.idm.bdp.dto.SimpleRecordDto\",\"timestamp\":2,\"value\":3,\"period\":600},"
+			+ "{\"value\":\"text\",\"timestamp\":3,\"period\":600},"
+			+ "{\"timestamp\":4,\"value\":{\"a\":[1,2]},\"period\":600},"
+			+ "{\"timestamp\":5,\"value\":[1],\"period\":600}]";
+		List<RecordDtoImpl> records = mapper.readValue(json, new TypeReference<List<RecordDtoImpl>>() {});
+		assertEquals(5, records.size());
+
+		NumberRecordDto number = (NumberRecordDto) records.get(0);
+		assertEquals(1L, number.getTimestamp());
+		assertEquals(1.5, number.getNumber(), 0);
+		assertEquals(1.5, number.getValue());
+		assertEquals(600, number.getPeriod());
+		assertEquals(2L, number.getCreated_on());
+		assertEquals(ValueKind.NUMBER, number.getValueKind());
+
+		// Integers are read as doubles as well
+		assertEquals(3.0, ((SimpleRecordDto) records.get(1)).getValue());
+		assertEquals("text", ((StringRecordDto) records.get(2)).getText());
+		assertEquals(ValueKind.STRING, ((SimpleRecordDto) records.get(2)).getValueKind());
+		SimpleRecordDto json4 = (SimpleRecordDto) records.get(3);
+		assertEquals(ValueKind.JSON, json4.getValueKind());
+		assertEquals(List.of(1, 2), ((Map<?, ?>) json4.getValue()).get("a"));
+		assertNull(((SimpleRecordDto) records.get(4)).getValueKind());
+
+		// Specialized records keep their kind
+		number.setValue(2);
+		assertEquals(2.0, number.getValue());
+		assertThrows(IllegalArgumentException.class, () -> number.setValue("now a string"));
+
+		// Setting a value later on changes the kind of other records
+		SimpleRecordDto generic = (SimpleRecordDto) records.get(3);
+		generic.setValue("now a string");
+		assertEquals(ValueKind.STRING, generic.getValueKind());
+	}
+
+	@Test
+	public void testDataMap() throws Exception {
+		DataMapDto<RecordDtoImpl> map = new DataMapDto<>();
+		map.setProvenance("prov-uuid");
+		map.addRecord("s1", "t1", new SimpleRecordDto(1L, 2.5, 600));
+		DataMapDto<RecordDtoImpl> read = mapper.readValue(mapper.writeValueAsString(map),
+			new TypeReference<DataMapDto<RecordDtoImpl>>() {});
+		SimpleRecordDto record = (SimpleRecordDto) read.getBranch().get("s1").getBranch().get("t1").getData().get(0);
+		assertEquals(2.5, record.getValue());
+		assertTrue(record.isValid());
+		// Written back the same way as the record it was read from
+		assertEquals(mapper.writeValueAsString(map), mapper.writeValueAsString(read));
+	}
+
+	@Test
+	public void testRawJson() throws Exception {
+		ObjectMapper raw = new ObjectMapper();
+		raw.setDefaultAttributes(
+			ContextAttributes.getEmpty().withSharedAttribute(RecordDtoDeserializer.RAW_JSON_ATTRIBUTE, true));
+		String json = "{\"timestamp\":1,\"value\":{\"a\": [1, {\"b\":null}]},\"period\":600}";
+		SimpleRecordDto record = (SimpleRecordDto) raw.readValue(json, RecordDtoImpl.class);
+		assertEquals(ValueKind.JSON, record.getValueKind());
+		assertEquals(new RawJsonValue("{\"a\":[1,{\"b\":null}]}"), record.getValue());
+		// Written back as JSON, not as a string
+		assertEquals("{\"timestamp\":1,\"value\":{\"a\":[1,{\"b\":null}]},\"period\":600}", raw.writeValueAsString(record));
+	}
+
+	@Test
+	public void testUnknownProperty() throws Exception {
+		String json = "{\"timestamp\":1,\"value\":1,\"period\":600,\"unknown\":{\"x\":1}}";
+		assertThrows(JsonMappingException.class, () -> mapper.readValue(json, RecordDtoImpl.class));
+		SimpleRecordDto lenient = mapper.readerFor(SimpleRecordDto.class)
+			.without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+			.readValue(json);
+		assertEquals(1.0, lenient.getValue());
+	}
+}
@@ -0,0 +1,94 @@
+// Copyright © 2025 NOI Techpark - Südtirol / Alto Adige (info@opendatahub.com)
+//
+// SPDX-License-Identifier: GPL-3.0-only
+
+package com.opendatahub.timeseries.bdp.writer.dal;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.geotools.api.referencing.FactoryException;
+import org.geotools.api.referencing.crs.CoordinateReferenceSystem;
+import org.geotools.api.referencing.operation.MathTransform;
+import org.geotools.api.referencing.operation.TransformException;
+import org.geotools.referencing.CRS;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Math transforms from coordinate reference systems of data collectors into
+ * {@link Station#GEOM_CRS}, by CRS code like "EPSG:25832".
+ *
+ * <p>
+ * Decoding a CRS and finding a transform are lookups in the EPSG database of
+ * GeoTools, which take far longer than transforming coordinates. Each code is
+ * looked up once, with longitude (easting) first, and its transform is kept
+ * for good. Codes that fail are not kept, so the registry holds at most the
+ * codes that the EPSG database knows.
+ * </p>
+ */
+public class CrsTransforms {
+
+	private static final Logger LOG = LoggerFactory.getLogger(CrsTransforms.class);
+
+	private final ConcurrentHashMap<String, MathTransform> transforms = new ConcurrentHashMap<>();
+
+	private volatile CoordinateReferenceSystem target;
+
+	/**
+	 * Look up the transforms of {@code codes} now, rather than on the first
+	 * station sync that needs them. Codes that fail get logged and skipped.
+	 */
+	public void warmUp(Collection<String> codes) {
+		for (String code : codes) {
+			try {
+				get(code);
+			} catch (FactoryException e) {
+				LOG.warn("Unable to find a transform from {} to {}: {}", code, Station.GEOM_CRS, e.getMessage());
+			}
+		}
+		LOG.info("Coordinate reference systems ready: {}", transforms.keySet());
+	}
+
+	/**
+	 * @param code CRS code, for example "EPSG:25832"
+	 * @return transform from {@code code} into {@link Station#GEOM_CRS}
+	 * @throws FactoryException if the code is unknown or has no transform
+	 */
+	public MathTransform get(String code) throws FactoryException {
+		MathTransform transform = transforms.get(code);
+		if (transform == null) {
+			// Concurrent lookups of the same code may both decode it, the first one is kept
+			transform = CRS.findMathTransform(CRS.decode(code, true), target());
+			MathTransform other = transforms.putIfAbsent(code, transform);
+			if (other != null) {
+				transform = other;
+			}
+		}
+		return transform;
+	}
+
+	/**
+	 * Transform {@code count} points from {@code code} into
+	 * {@link Station#GEOM_CRS} in place.
+	 *
+	 * @param coordinates x and y of each point one after the other, that is
+	 *                    longitude (easting) first
+	 */
+	public void transform(String code, double[] coordinates, int count) throws FactoryException, TransformException {
+		get(code).transform(coordinates, 0, coordinates, 0, count);
+	}
+
+	public int size() {
+		return transforms.size();
+	}
+
+	private CoordinateReferenceSystem target() throws FactoryException {
+		CoordinateReferenceSystem crs = target;
+		if (crs == null) {
+			crs = CRS.decode(Station.GEOM_CRS, true);
+			target = crs;
+		}
+		return crs;
+	}
+}
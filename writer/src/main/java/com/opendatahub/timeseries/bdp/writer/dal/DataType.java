@@ -11,12 +11,15 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 
 import org.hibernate.annotations.ColumnDefault;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.opendatahub.timeseries.bdp.dto.dto.DataTypeDto;
 import com.opendatahub.timeseries.bdp.dto.dto.TypeDto;
 import com.opendatahub.timeseries.bdp.writer.dal.util.JPAException;
@@ -291,34 +294,102 @@ public class DataType {
 		return result;
 	}
 
+	/**
+	 * What {@link #sync} did with the data types it got
+	 *
+	 * @param rehashed unchanged types, whose meta data got the missing hash
+	 */
+	public record SyncResult(int inserted, int updated, int unchanged, @JsonIgnore int rehashed) {
+
+		/** @return true if the stored types differ from a catalog loaded before */
+		public boolean changedCatalog() {
+			return inserted + updated + rehashed > 0;
+		}
+	}
+
 	/**
 	 * <p>
 	 * Inserts or updates a list of data types, but does not override type description if<br/>
 	 * already provided in DB.
 	 * </p>
+	 * <p>
+	 * Types are compared with a snapshot of all types loaded with a single query, only new and
+	 * changed ones are written, in JDBC batches on commit. Meta data gets a new version only if
+	 * it changed, see {@link MetaData#hash}. If a name appears more than once, the last one wins.
+	 * </p>
 	 * @param em   entity manager
 	 * @param data list of data types provided by a data collector
+	 * @return number of inserted, updated and unchanged data types
 	 */
-	public static void sync(EntityManager em, List<DataTypeDto> data) {
+	public static SyncResult sync(EntityManager em, List<DataTypeDto> data) {
+		return sync(em, data, DataTypeCatalog.load(em));
+	}
+
+	/**
+	 * Same as {@link #sync(EntityManager, List)}, with the types as they are now
+	 *
+	 * @param current all types as seen by the transaction of {@code em}
+	 */
+	public static SyncResult sync(EntityManager em, List<DataTypeDto> data, DataTypeCatalog.Snapshot current) {
 		try {
+			Map<String, DataTypeDto> dtos = new LinkedHashMap<>();
 			for (DataTypeDto dto : data) {
 				if (! dto.isValid()) {
 					throw new JPAException("Invalid JSON for " + DataTypeDto.class.getSimpleName(), DataTypeDto.class);
 				}
-				DataType type = DataType.findByCname(em,dto.getName());
-				DataTypeMetaData metaData = new DataTypeMetaData(type,dto.getMetaData());
-				if (type != null){
-					type.setDescription(dto.getDescription());
-					type.setRtype(dto.getRtype());
-					type.setCunit(dto.getUnit());
-					if (type.getMetaData() == null||!type.getMetaData().equals(metaData))
-						type.setMetaData(metaData);
-					em.merge(type);
-				}else{
-					type = new DataType(dto.getName(), dto.getUnit(), dto.getDescription(), dto.getRtype(), metaData);
+				dtos.put(dto.getName(), dto);
+			}
+			int inserted = 0;
+			Map<String, String> hashes = new HashMap<>();
+			for (DataTypeDto dto : dtos.values()) {
+				DataTypeCatalog.Entry entry = current.get(dto.getName());
+				String hash = MetaData.hash(dto.getMetaData());
+				if (entry == null) {
+					DataType type = new DataType(dto.getName(), dto.getUnit(), dto.getDescription(), dto.getRtype(), new DataTypeMetaData(null, dto.getMetaData()));
 					em.persist(type);
+					inserted++;
+				} else if (!Objects.equals(entry.description(), dto.getDescription())
+						|| !Objects.equals(entry.rtype(), dto.getRtype())
+						|| !Objects.equals(entry.unit(), dto.getUnit())
+						|| !hash.equals(entry.metaDataHash())) {
+					hashes.put(dto.getName(), hash);
+				}
+			}
+			// Only types that differ from the snapshot get loaded
+			int updated = 0;
+			int rehashed = 0;
+			if (!hashes.isEmpty()) {
+				for (DataType type : findByCnames(em, hashes.keySet())) {
+					DataTypeDto dto = dtos.get(type.getCname());
+					boolean changed = false;
+					if (!Objects.equals(type.getDescription(), dto.getDescription())
+							|| !Objects.equals(type.getRtype(), dto.getRtype())
+							|| !Objects.equals(type.getCunit(), dto.getUnit())) {
+						type.setDescription(dto.getDescription());
+						type.setRtype(dto.getRtype());
+						type.setCunit(dto.getUnit());
+						changed = true;
+					}
+					String hash = hashes.get(type.getCname());
+					// The current meta data needs to be loaded only if the hashes differ
+					if (type.getMetaData() == null || !hash.equals(type.getMetaData().getJsonHash())) {
+						DataTypeMetaData metaData = new DataTypeMetaData(type,dto.getMetaData());
+						if (type.getMetaData() == null||!type.getMetaData().equals(metaData)) {
+							em.persist(metaData);
+							type.setMetaData(metaData);
+							changed = true;
+						} else {
+							type.getMetaData().setJsonHash(hash);
+							rehashed++;
+						}
+					}
+					// Managed entities, changes get written on flush without merge
+					if (changed) {
+						updated++;
+					}
 				}
 			}
+			return new SyncResult(inserted, updated, dtos.size() - inserted - updated, rehashed);
 		} catch (Exception e) {
 			throw JPAException.unnest(e);
 		}
@@ -0,0 +1,187 @@
+// Copyright © 2025 NOI Techpark - Südtirol / Alto Adige (info@opendatahub.com)
+//
+// SPDX-License-Identifier: GPL-3.0-only
+
+package com.opendatahub.timeseries.bdp.writer.dal;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * In-memory copy of all {@link DataType}s.
+ *
+ * <p>
+ * Types change only with {@link DataType#sync}, so pushes resolve their type
+ * names here instead of asking the database. The catalog is an immutable
+ * snapshot, which gets replaced atomically with a newer version after each
+ * successful sync. Lookups never lock, only a reload does.
+ * </p>
+ *
+ * <p>
+ * Other writer instances sync types as well. If a push names a type that is
+ * not in the snapshot, the catalog gets reloaded, but at most once every
+ * {@code missReloadMillis}, so that pushes of unknown types do not end up
+ * reloading it all the time. Lists of all types would only see them after
+ * such a miss, so a snapshot older than {@code maxAgeMillis} gets reloaded
+ * on its next use as well.
+ * </p>
+ */
+public class DataTypeCatalog {
+
+	private static final Logger LOG = LoggerFactory.getLogger(DataTypeCatalog.class);
+
+	/** A data type, with the hash of its current meta data, see {@link MetaData#hash} */
+	public record Entry(long id, String cname, String unit, String rtype, String description, String metaDataHash) {
+
+		/**
+		 * @return a detached entity of this type, enough to refer to it in
+		 *         queries and new rows, without loading it
+		 */
+		public DataType toReference() {
+			DataType type = new DataType(cname, unit, description, rtype);
+			type.setId(id);
+			return type;
+		}
+	}
+
+	/** All data types at some point in time, never changes */
+	public static final class Snapshot {
+
+		private final long version;
+		private final Map<String, Entry> types;
+		private final long loadedAt;
+
+		Snapshot(long version, Map<String, Entry> types, long loadedAt) {
+			this.version = version;
+			this.types = types;
+			this.loadedAt = loadedAt;
+		}
+
+		/** @return the type named {@code cname}, or null if unknown */
+		public Entry get(String cname) {
+			return types.get(cname);
+		}
+
+		/** @return names of all types, in no particular order */
+		public List<String> names() {
+			return List.copyOf(types.keySet());
+		}
+
+		public long getVersion() {
+			return version;
+		}
+
+		public int size() {
+			return types.size();
+		}
+	}
+
+	private final long missReloadMillis;
+	private final long maxAgeMillis;
+	private volatile Snapshot snapshot;
+
+	/**
+	 * @param missReloadMillis min. time between reloads caused by unknown type
+	 *                         names, 0 to never reload because of them
+	 * @param maxAgeMillis     max. age of a snapshot before it gets reloaded,
+	 *                         0 to keep it until a sync or a miss
+	 */
+	public DataTypeCatalog(long missReloadMillis, long maxAgeMillis) {
+		this.missReloadMillis = missReloadMillis;
+		this.maxAgeMillis = maxAgeMillis;
+	}
+
+	/** @return the current snapshot, loaded first if there is none yet or it is too old */
+	public Snapshot current(EntityManager em) {
+		Snapshot current = snapshot;
+		if (current == null) {
+			return reload(em);
+		}
+		if (maxAgeMillis > 0 && System.currentTimeMillis() - current.loadedAt >= maxAgeMillis) {
+			return reloadUnlessNewer(em, current);
+		}
+		return current;
+	}
+
+	/**
+	 * Resolve type names for a push. Unknown names are not part of the result.
+	 *
+	 * @return detached entities, see {@link Entry#toReference()}, by name
+	 */
+	public Map<String, DataType> resolve(EntityManager em, Collection<String> cnames) {
+		Snapshot current = current(em);
+		Map<String, DataType> types = new HashMap<>();
+		boolean missing = false;
+		for (String cname : cnames) {
+			Entry entry = current.get(cname);
+			if (entry != null) {
+				types.put(cname, entry.toReference());
+			} else {
+				missing = true;
+			}
+		}
+		if (missing && missReloadMillis > 0 && System.currentTimeMillis() - current.loadedAt >= missReloadMillis) {
+			Snapshot reloaded = reloadUnlessNewer(em, current);
+			for (String cname : cnames) {
+				Entry entry = reloaded.get(cname);
+				if (entry != null) {
+					types.putIfAbsent(cname, entry.toReference());
+				}
+			}
+		}
+		return types;
+	}
+
+	/**
+	 * Load all types and make them the current snapshot. Call it after types
+	 * changed, that is, after the transaction of {@link DataType#sync} has
+	 * been committed.
+	 *
+	 * @return the new snapshot
+	 */
+	public synchronized Snapshot reload(EntityManager em) {
+		Snapshot previous = snapshot;
+		Snapshot current = load(em, previous == null ? 1 : previous.version + 1);
+		snapshot = current;
+		LOG.debug("Loaded {} data types, catalog version {}", current.size(), current.version);
+		return current;
+	}
+
+	/** Reload, unless another push did so since {@code seen} */
+	private synchronized Snapshot reloadUnlessNewer(EntityManager em, Snapshot seen) {
+		Snapshot latest = snapshot;
+		return latest != null && latest != seen ? latest : reload(em);
+	}
+
+	/** Forget the snapshot, the next lookup loads a new one */
+	public void invalidate() {
+		snapshot = null;
+	}
+
+	/**
+	 * Load all types as they are seen by the transaction of {@code em},
+	 * without changing the current snapshot.
+	 */
+	public static Snapshot load(EntityManager em) {
+		return load(em, 0);
+	}
+
+	private static Snapshot load(EntityManager em, long version) {
+		Map<String, Entry> types = new HashMap<>();
+		em.createQuery(
+				"SELECT type.id, type.cname, type.cunit, type.rtype, type.description, meta.json_hash"
+					+ " FROM DataType type LEFT JOIN type.metaData meta",
+				Object[].class)
+			.getResultStream()
+			.forEach(row -> types.put((String) row[1], new Entry(
+				(Long) row[0], (String) row[1], (String) row[2], (String) row[3], (String) row[4], (String) row[5])));
+		return new Snapshot(version, Map.copyOf(types), System.currentTimeMillis());
+	}
+}
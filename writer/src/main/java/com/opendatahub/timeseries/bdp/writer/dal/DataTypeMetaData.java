@@ -48,6 +48,9 @@ public class DataTypeMetaData {
 
 	private Date created_on;
 
+	/** See {@link MetaData#hash}, null for rows written before it existed */
+	private String json_hash;
+
 	public DataTypeMetaData() {
 		created_on = new Date();
 	}
@@ -64,6 +67,16 @@ public class DataTypeMetaData {
 
 	public void setJson(Map<String, Object> metaData) {
 		this.json = metaData;
+		this.json_hash = MetaData.hash(metaData);
+	}
+
+	public String getJsonHash() {
+		return json_hash;
+	}
+
+	/** Fill in the hash of a row that has been written without */
+	public void setJsonHash(String jsonHash) {
+		this.json_hash = jsonHash;
 	}
 
 	public DataType getType() {
@@ -0,0 +1,93 @@
+// Copyright © 2025 NOI Techpark - Südtirol / Alto Adige (info@opendatahub.com)
+//
+// SPDX-License-Identifier: GPL-3.0-only
+
+package com.opendatahub.timeseries.bdp.writer.dal;
+
+import com.opendatahub.timeseries.bdp.writer.dal.util.LongLongMap;
+
+/**
+ * In-memory copy of the latest measurement timestamp of each timeseries
+ * (timeseries id to epoch millis).
+ *
+ * <p>
+ * {@link TimeSeries#pushRecords} only needs the latest timestamp to decide if
+ * a record is new, so it asks here first and falls back to the database on a
+ * miss. The cache is written through after each successful commit. The
+ * latest tables themselves never go backwards, because the latest upsert
+ * only accepts newer values, so a stale entry can only be too old. In that
+ * case records already in the history are written again.
+ * </p>
+ *
+ * <p>
+ * Only the default partition has a unique index on (timeseries_id,
+ * timestamp), where such a push fails and evicts the entries it touched.
+ * The other partitions would silently take the duplicates, so timeseries
+ * outside the default partition are never cached, see {@link #covers}.
+ * </p>
+ *
+ * <p>
+ * Entries only go stale if another writer instance writes the same
+ * timeseries, so the cache is disabled by default and meant for
+ * deployments with a single writer.
+ * </p>
+ *
+ * <p>
+ * Bounded by {@code maxSize}, it gets cleared when full.
+ * </p>
+ */
+public class LatestTimestampCache {
+
+	public static final long MISSING = Long.MIN_VALUE;
+
+	/** Partition whose history tables reject duplicate records */
+	private static final long DEFAULT_PARTITION_ID = 1;
+
+	private final LongLongMap timestamps;
+	private final int maxSize;
+
+	public LatestTimestampCache(int maxSize) {
+		this.maxSize = maxSize;
+		this.timestamps = new LongLongMap(Math.min(Math.max(maxSize, 0), 1 << 16));
+	}
+
+	/**
+	 * @return true if timeseries of the partition may be cached, that is if a
+	 *         stale entry cannot duplicate history records
+	 */
+	public static boolean covers(long partitionId) {
+		return partitionId == DEFAULT_PARTITION_ID;
+	}
+
+	/** @return latest epoch millis of the timeseries, or {@link #MISSING} */
+	public synchronized long get(long timeseriesId) {
+		return timestamps.get(timeseriesId, MISSING);
+	}
+
+	/** Store {@code timestamp}, unless we already know a newer one */
+	public synchronized void putIfNewer(long timeseriesId, long timestamp) {
+		if (maxSize <= 0) {
+			return;
+		}
+		long current = timestamps.get(timeseriesId, MISSING);
+		if (current != MISSING && current >= timestamp) {
+			return;
+		}
+		if (current == MISSING && timestamps.size() >= maxSize) {
+			timestamps.clear();
+		}
+		timestamps.put(timeseriesId, timestamp);
+	}
+
+	public synchronized void invalidate(long timeseriesId) {
+		timestamps.remove(timeseriesId);
+	}
+
+	public synchronized void clear() {
+		timestamps.clear();
+	}
+
+	public synchronized int size() {
+		return timestamps.size();
+	}
+}
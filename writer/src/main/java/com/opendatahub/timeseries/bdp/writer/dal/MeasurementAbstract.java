@@ -6,10 +6,20 @@
 package com.opendatahub.timeseries.bdp.writer.dal;
 
 import java.io.Serializable;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.sql.Types;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+
+import org.hibernate.Session;
+
+import com.opendatahub.timeseries.bdp.writer.dal.TimeSeries.ValueTable;
 
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
@@ -127,4 +137,92 @@ public abstract class MeasurementAbstract implements Serializable {
 		query.setHint("jakarta.persistence.fetchgraph", graph);
 		return query.getResultList();
 	}
+
+	/**
+	 * Projection of the latest timestamps only, without loading any entity
+	 *
+	 * @param table value table of all given timeseries
+	 * @param timeseriesIds timeseries to look up
+	 * @return epoch millis of the latest record per timeseries id, missing ones are not contained
+	 */
+	public static Map<Long, Long> findLatestTimestamps(EntityManager em, ValueTable table, Collection<Long> timeseriesIds) {
+		Map<Long, Long> result = new HashMap<>();
+		if (timeseriesIds.isEmpty()) {
+			return result;
+		}
+		var query = em.createQuery(
+				"SELECT record.timeseries.id, record.timestamp FROM " + table.latestClass.getSimpleName() + " record" +
+				" WHERE record.timeseries.id in (:ids)"
+		, Object[].class);
+		query.setParameter("ids", timeseriesIds);
+		for (Object[] row : query.getResultList()) {
+			result.put((Long) row[0], ((Date) row[1]).getTime());
+		}
+		return result;
+	}
+
+	/** New latest value of a single timeseries, see {@link #upsertLatest} */
+	public record LatestValue(Long timeseriesId, long timestamp, Object value) {}
+
+	/**
+	 * Insert or update the latest measurements of {@code table} with a single
+	 * statement.
+	 *
+	 * The database decides which value wins: an existing latest record gets
+	 * only overwritten, if the new timestamp is strictly newer. All referenced
+	 * timeseries must already be flushed. Rows are written in timeseries id
+	 * order, so that concurrent upserts of overlapping timeseries do not
+	 * deadlock.
+	 *
+	 * @param em         entity manager with an active transaction
+	 * @param table      value table, all values must belong to it
+	 * @param provenance provenance of the new values
+	 * @param values     at most one value per timeseries
+	 * @return number of inserted or updated rows
+	 */
+	public static int upsertLatest(EntityManager em, ValueTable table, Provenance provenance, List<LatestValue> values) {
+		if (values.isEmpty()) {
+			return 0;
+		}
+		String sql = String.format(
+			"INSERT INTO %1$s AS m (timeseries_id, created_on, \"timestamp\", %2$s, provenance_id)"
+			+ " SELECT u.timeseries_id, ?, u.ts, u.val%3$s, ?"
+			+ " FROM unnest(?::int4[], ?::timestamp[], ?::%4$s[]) AS u(timeseries_id, ts, val)"
+			+ " ON CONFLICT (timeseries_id) DO UPDATE"
+			+ " SET \"timestamp\" = excluded.\"timestamp\", %2$s = excluded.%2$s, provenance_id = excluded.provenance_id"
+			+ " WHERE excluded.\"timestamp\" > m.\"timestamp\"",
+			table.table,
+			table.column,
+			table.sqlCast(),
+			table.sqlArrayType()
+		);
+
+		List<LatestValue> sorted = values.stream()
+			.sorted(Comparator.comparing(LatestValue::timeseriesId))
+			.toList();
+		Integer[] ids = new Integer[sorted.size()];
+		Timestamp[] timestamps = new Timestamp[sorted.size()];
+		Object[] vals = table.newSqlArray(sorted.size());
+		for (int i = 0; i < sorted.size(); i++) {
+			LatestValue v = sorted.get(i);
+			ids[i] = v.timeseriesId().intValue();
+			timestamps[i] = new Timestamp(v.timestamp());
+			vals[i] = table.toSqlValue(v.value());
+		}
+
+		return em.unwrap(Session.class).doReturningWork(conn -> {
+			try (PreparedStatement ps = conn.prepareStatement(sql)) {
+				ps.setTimestamp(1, new Timestamp(System.currentTimeMillis()));
+				if (provenance == null) {
+					ps.setNull(2, Types.BIGINT);
+				} else {
+					ps.setLong(2, provenance.getId());
+				}
+				ps.setArray(3, conn.createArrayOf("int4", ids));
+				ps.setArray(4, conn.createArrayOf("timestamp", timestamps));
+				ps.setArray(5, conn.createArrayOf(table.sqlArrayType(), vals));
+				return ps.executeUpdate();
+			}
+		});
+	}
 }
@@ -6,11 +6,26 @@
 package com.opendatahub.timeseries.bdp.writer.dal;
 
 import java.io.Serializable;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.TimeZone;
+import java.util.stream.Collectors;
+
+import org.hibernate.Session;
+import org.hibernate.proxy.HibernateProxy;
+import org.postgresql.PGConnection;
+
+import com.opendatahub.timeseries.bdp.writer.dal.TimeSeries.ValueTable;
 
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
+import jakarta.persistence.EntityManager;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.Id;
 import jakarta.persistence.IdClass;
@@ -101,6 +116,22 @@ public abstract class MeasurementAbstractHistory implements Serializable {
         return partition;
     }
 
+    /** Id of the timeseries, without initializing it, if it is only a lazy reference */
+    public Long getTimeseriesId() {
+        if (timeseries instanceof HibernateProxy proxy) {
+            return (Long) proxy.getHibernateLazyInitializer().getIdentifier();
+        }
+        return timeseries.getId();
+    }
+
+    /** Id of the partition, without initializing it, if it is only a lazy reference */
+    public Long getPartitionId() {
+        if (partition instanceof HibernateProxy proxy) {
+            return (Long) proxy.getHibernateLazyInitializer().getIdentifier();
+        }
+        return partition.getId();
+    }
+
     public void setPartition(Partition partition) {
         this.partition = partition;
     }
@@ -109,6 +140,273 @@ public abstract class MeasurementAbstractHistory implements Serializable {
 
     public abstract Object getValue();
 
+    /** Rows per statement, to keep the parameter arrays of huge pushes at a sane size */
+    private static final int INSERT_CHUNK_SIZE = 50_000;
+
+    /** Only the default partition has a unique index on (timeseries_id, timestamp), see V05 */
+    private static final long DEFAULT_PARTITION_ID = 1;
+
+    /** First key of the advisory locks of {@link Target#LOCKED} inserts, the second one is the timeseries id */
+    private static final int HISTORY_LOCK_CLASS = 0x6869_7374; // "hist"
+
+    /** Take advisory locks of the timeseries ids in the array, in ascending order, until the end of the transaction */
+    private static final String LOCK_TIMESERIES = "SELECT count(pg_advisory_xact_lock(" + HISTORY_LOCK_CLASS + ", l.ts))"
+        + " FROM (SELECT DISTINCT u.ts FROM unnest(?::int4[]) AS u(ts) ORDER BY u.ts) AS l";
+
+    /** Where history records get inserted, and how existing ones get skipped */
+    private enum Target {
+        /** Partitioned parent table, all records get inserted */
+        PARENT,
+        /** Default partition, existing records are skipped with its unique index */
+        DEFAULT_PARTITION,
+        /**
+         * Partitioned parent table, existing records are skipped with NOT EXISTS,
+         * while holding an advisory lock of each timeseries
+         */
+        LOCKED;
+
+        String table(ValueTable table) {
+            return this == DEFAULT_PARTITION ? table.table + "history_" + DEFAULT_PARTITION_ID : table.table + "history";
+        }
+
+        /** Records of {@code u} that appear more than once would not see each other with NOT EXISTS */
+        String distinct() {
+            return this == LOCKED ? " DISTINCT ON (u.ts, u.p, u.t)" : "";
+        }
+
+        String skipExisting(ValueTable table) {
+            return switch (this) {
+                case PARENT -> "";
+                case DEFAULT_PARTITION -> " ON CONFLICT (timeseries_id, \"timestamp\") DO NOTHING";
+                case LOCKED -> " WHERE NOT EXISTS (SELECT 1 FROM " + table.table + "history h"
+                    + " WHERE h.timeseries_id = u.ts AND h.\"timestamp\" = u.t AND h.partition_id = u.p)";
+            };
+        }
+    }
+
+    /**
+     * Insert history records of {@code table}, silently skipping those that
+     * already exist for the same timeseries, timestamp and partition.
+     *
+     * Used to backfill gaps, where records are expected to overlap with data
+     * that has already been written. All referenced timeseries must already be
+     * flushed.
+     *
+     * Records of the default partition go straight into it with
+     * {@code ON CONFLICT (timeseries_id, timestamp) DO NOTHING}. The other
+     * partitions have no unique index, so their records are filtered with
+     * {@code NOT EXISTS}, after taking a transaction scoped advisory lock of
+     * each of their timeseries. That keeps concurrent backfills of the same
+     * timeseries apart, in this and in any other writer instance.
+     *
+     * @param em       entity manager with an active transaction
+     * @param table    value table, all measures must belong to it
+     * @param measures history records to write
+     * @return number of actually inserted rows
+     */
+    public static int insertIgnoreExisting(EntityManager em, ValueTable table, List<MeasurementAbstractHistory> measures) {
+        return insert(em, table, measures, true);
+    }
+
+    /**
+     * Insert history records of {@code table} with plain SQL, values are
+     * converted with {@link ValueTable#toSqlValue}. JSON values pushed as
+     * {@link com.opendatahub.timeseries.bdp.dto.dto.RawJsonValue} only exist
+     * in that form, so JSON records are always written this way.
+     *
+     * @param em             entity manager with an active transaction
+     * @param table          value table, all measures must belong to it
+     * @param measures       history records to write
+     * @param ignoreExisting skip records that already exist, see {@link #insertIgnoreExisting}
+     * @return number of actually inserted rows
+     */
+    public static int insert(EntityManager em, ValueTable table, List<MeasurementAbstractHistory> measures,
+            boolean ignoreExisting) {
+        if (!ignoreExisting) {
+            return insert(em, table, measures, Target.PARENT);
+        }
+        Map<Boolean, List<MeasurementAbstractHistory>> byPartition = measures.stream()
+            .collect(Collectors.partitioningBy(m -> m.getPartitionId() == DEFAULT_PARTITION_ID));
+        return insert(em, table, byPartition.get(true), Target.DEFAULT_PARTITION)
+            + insert(em, table, byPartition.get(false), Target.LOCKED);
+    }
+
+    private static int insert(EntityManager em, ValueTable table, List<MeasurementAbstractHistory> measures,
+            Target target) {
+        if (measures.isEmpty()) {
+            return 0;
+        }
+        String sql = String.format(
+            "INSERT INTO %1$s (timeseries_id, partition_id, \"timestamp\", created_on, provenance_id, %2$s)"
+            + " SELECT%5$s u.ts, u.p, u.t, u.c, u.pr, u.v%3$s"
+            + " FROM unnest(?::int4[], ?::int2[], ?::timestamp[], ?::timestamp[], ?::int8[], ?::%4$s[]) AS u(ts, p, t, c, pr, v)"
+            + "%6$s",
+            target.table(table),
+            table.column,
+            table.sqlCast(),
+            table.sqlArrayType(),
+            target.distinct(),
+            target.skipExisting(table)
+        );
+        if (target == Target.LOCKED) {
+            lockTimeseries(em, measures.stream().mapToInt(m -> m.getTimeseriesId().intValue()).distinct().toArray());
+        }
+
+        int inserted = 0;
+        for (int from = 0; from < measures.size(); from += INSERT_CHUNK_SIZE) {
+            List<MeasurementAbstractHistory> chunk = measures.subList(from, Math.min(from + INSERT_CHUNK_SIZE, measures.size()));
+            int n = chunk.size();
+            Integer[] timeseriesIds = new Integer[n];
+            Short[] partitionIds = new Short[n];
+            Timestamp[] timestamps = new Timestamp[n];
+            Timestamp[] createdOn = new Timestamp[n];
+            Long[] provenanceIds = new Long[n];
+            Object[] values = table.newSqlArray(n);
+            for (int i = 0; i < n; i++) {
+                MeasurementAbstractHistory m = chunk.get(i);
+                timeseriesIds[i] = m.getTimeseriesId().intValue();
+                partitionIds[i] = m.getPartitionId().shortValue();
+                timestamps[i] = new Timestamp(m.getTimestamp().getTime());
+                createdOn[i] = new Timestamp(m.getCreated_on().getTime());
+                provenanceIds[i] = m.getProvenance() == null ? null : m.getProvenance().getId();
+                values[i] = table.toSqlValue(m.getValue());
+            }
+            inserted += em.unwrap(Session.class).doReturningWork(conn -> {
+                try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                    ps.setArray(1, conn.createArrayOf("int4", timeseriesIds));
+                    ps.setArray(2, conn.createArrayOf("int2", partitionIds));
+                    ps.setArray(3, conn.createArrayOf("timestamp", timestamps));
+                    ps.setArray(4, conn.createArrayOf("timestamp", createdOn));
+                    ps.setArray(5, conn.createArrayOf("int8", provenanceIds));
+                    ps.setArray(6, conn.createArrayOf(table.sqlArrayType(), values));
+                    return ps.executeUpdate();
+                }
+            });
+        }
+        return inserted;
+    }
+
+    /**
+     * Lock {@code timeseriesIds} for {@link Target#LOCKED} inserts until the
+     * end of the transaction. Locks of a single call are taken in ascending
+     * order, deadlocks between calls get detected and aborted by PostgreSQL.
+     */
+    private static void lockTimeseries(EntityManager em, int[] timeseriesIds) {
+        em.unwrap(Session.class).doWork(conn -> {
+            try (PreparedStatement ps = conn.prepareStatement(LOCK_TIMESERIES)) {
+                ps.setArray(1, conn.unwrap(PGConnection.class).createArrayOf("int4", timeseriesIds));
+                ps.executeQuery().close();
+            }
+        });
+    }
+
+    /**
+     * Records of a single timeseries in columnar form, see {@link #insertColumns}
+     *
+     * @param timestamps epoch millis
+     * @param values     {@code double[]} for {@link ValueTable#NUMBER}, {@code String[]}
+     *                   with plain or JSON text otherwise
+     * @param from       index of the first record to write
+     * @param to         index after the last record to write
+     */
+    public record Columns(long timeseriesId, long partitionId, long[] timestamps, Object values, int from, int to) {}
+
+    /**
+     * Insert history records of {@code table} straight from arrays, without
+     * creating an object per record. The arrays are passed as SQL array
+     * parameters, several timeseries per statement.
+     *
+     * @param em             entity manager with an active transaction
+     * @param table          value table, all columns must belong to it
+     * @param provenance     provenance of all records
+     * @param series         records to write
+     * @param ignoreExisting skip records that already exist, see {@link #insertIgnoreExisting}
+     * @return number of actually inserted rows
+     */
+    public static int insertColumns(EntityManager em, ValueTable table, Provenance provenance, List<Columns> series,
+            boolean ignoreExisting) {
+        if (!ignoreExisting) {
+            return insertColumns(em, table, provenance, series, Target.PARENT);
+        }
+        Map<Boolean, List<Columns>> byPartition = series.stream()
+            .collect(Collectors.partitioningBy(c -> c.partitionId() == DEFAULT_PARTITION_ID));
+        return insertColumns(em, table, provenance, byPartition.get(true), Target.DEFAULT_PARTITION)
+            + insertColumns(em, table, provenance, byPartition.get(false), Target.LOCKED);
+    }
+
+    private static int insertColumns(EntityManager em, ValueTable table, Provenance provenance, List<Columns> series,
+            Target target) {
+        if (series.isEmpty()) {
+            return 0;
+        }
+        String sql = String.format(
+            "INSERT INTO %1$s (timeseries_id, partition_id, \"timestamp\", created_on, provenance_id, %2$s)"
+            + " SELECT%5$s u.ts, u.p, u.t, ?::timestamp, ?::int8, u.v%3$s"
+            + " FROM (SELECT ts, p, timestamp 'epoch' + t * interval '1 millisecond' AS t, v"
+            + " FROM unnest(?::int4[], ?::int2[], ?::int8[], ?::%4$s[]) AS u(ts, p, t, v)) AS u"
+            + "%6$s",
+            target.table(table),
+            table.column,
+            table.sqlCast(),
+            table.sqlArrayType(),
+            target.distinct(),
+            target.skipExisting(table)
+        );
+        if (target == Target.LOCKED) {
+            lockTimeseries(em, series.stream().mapToInt(c -> (int) c.timeseriesId()).distinct().toArray());
+        }
+        Timestamp createdOn = new Timestamp(System.currentTimeMillis());
+        TimeZone zone = TimeZone.getDefault();
+
+        int total = series.stream().mapToInt(c -> c.to() - c.from()).sum();
+        int inserted = 0;
+        int current = 0;
+        int offset = series.isEmpty() ? 0 : series.get(0).from();
+        while (total > 0) {
+            int n = Math.min(total, INSERT_CHUNK_SIZE);
+            int[] timeseriesIds = new int[n];
+            short[] partitionIds = new short[n];
+            long[] timestamps = new long[n];
+            double[] numbers = table == ValueTable.NUMBER ? new double[n] : null;
+            String[] texts = table == ValueTable.NUMBER ? null : new String[n];
+            for (int i = 0; i < n; ) {
+                Columns c = series.get(current);
+                int count = Math.min(n - i, c.to() - offset);
+                Arrays.fill(timeseriesIds, i, i + count, (int) c.timeseriesId());
+                Arrays.fill(partitionIds, i, i + count, (short) c.partitionId());
+                for (int j = 0; j < count; j++) {
+                    // Wall-clock time of the JVM time zone, as Hibernate binds java.util.Date
+                    long millis = c.timestamps()[offset + j];
+                    timestamps[i + j] = millis + zone.getOffset(millis);
+                }
+                System.arraycopy(c.values(), offset, numbers != null ? numbers : texts, i, count);
+                i += count;
+                offset += count;
+                if (offset == c.to() && ++current < series.size()) {
+                    offset = series.get(current).from();
+                }
+            }
+            total -= n;
+            inserted += em.unwrap(Session.class).doReturningWork(conn -> {
+                PGConnection pg = conn.unwrap(PGConnection.class);
+                try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                    ps.setTimestamp(1, createdOn);
+                    if (provenance == null) {
+                        ps.setNull(2, Types.BIGINT);
+                    } else {
+                        ps.setLong(2, provenance.getId());
+                    }
+                    ps.setArray(3, pg.createArrayOf("int4", timeseriesIds));
+                    ps.setArray(4, pg.createArrayOf("int2", partitionIds));
+                    ps.setArray(5, pg.createArrayOf("int8", timestamps));
+                    ps.setArray(6, pg.createArrayOf(table.sqlArrayType(), numbers != null ? numbers : texts));
+                    return ps.executeUpdate();
+                }
+            });
+        }
+        return inserted;
+    }
+
     /** History records don't have an ID, but they are unique for each timeseries_id and timestamp, so we use that as composite for JPA */
     public static class MeasurementHistoryId implements Serializable {
         private static final long serialVersionUID = 1L;
@@ -0,0 +1,178 @@
+// Copyright © 2025 NOI Techpark - Südtirol / Alto Adige (info@opendatahub.com)
+//
+// SPDX-License-Identifier: GPL-3.0-only
+
+package com.opendatahub.timeseries.bdp.writer.dal;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+
+import org.hibernate.Session;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.opendatahub.timeseries.bdp.dto.dto.RawJsonValue;
+import com.opendatahub.timeseries.bdp.writer.dal.TimeSeries.ValueTable;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * Writes history records with PostgreSQL's binary {@code COPY ... FROM STDIN}.
+ *
+ * <p>
+ * This bypasses the Hibernate flush machinery for large pushes. The COPY runs
+ * on the JDBC connection of the given {@link EntityManager}, hence within its
+ * current transaction. All referenced timeseries must already be flushed.
+ * </p>
+ *
+ * See https://www.postgresql.org/docs/current/sql-copy.html#id-1.9.3.55.9.4
+ * for the binary file format.
+ */
+public class MeasurementCopyWriter {
+
+	private static final Logger LOG = LoggerFactory.getLogger(MeasurementCopyWriter.class);
+
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+
+	private static final byte[] SIGNATURE = "PGCOPY\n\377\r\n\0".getBytes(StandardCharsets.ISO_8859_1);
+
+	/** 2000-01-01T00:00:00 in epoch millis, the zero point of PostgreSQL timestamps */
+	private static final long PG_EPOCH_MILLIS = 946_684_800_000L;
+
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private static final short FIELD_COUNT = 6;
+
+	private static final byte JSONB_VERSION = 1;
+
+	private MeasurementCopyWriter() {
+	}
+
+	/**
+	 * Copy all {@code measures} into the history table of {@code table}
+	 *
+	 * @param em       entity manager with an active transaction
+	 * @param table    value table, all measures must belong to it
+	 * @param measures history records to write
+	 * @return number of rows written
+	 */
+	public static long copy(EntityManager em, ValueTable table, List<MeasurementAbstractHistory> measures) {
+		if (measures.isEmpty()) {
+			return 0;
+		}
+		String sql = String.format(
+			"COPY %shistory (timeseries_id, partition_id, \"timestamp\", created_on, provenance_id, %s) FROM STDIN (FORMAT BINARY)",
+			table.table,
+			table.column
+		);
+		long rows = em.unwrap(Session.class).doReturningWork(conn -> {
+			PGCopyOutputStream copy = new PGCopyOutputStream(conn.unwrap(PGConnection.class), sql, BUFFER_SIZE);
+			try {
+				DataOutputStream out = new DataOutputStream(copy);
+				out.write(SIGNATURE);
+				out.writeInt(0); // flags
+				out.writeInt(0); // header extension length
+				for (MeasurementAbstractHistory m : measures) {
+					out.writeShort(FIELD_COUNT);
+					writeInt4(out, m.getTimeseriesId());
+					writeInt2(out, m.getPartitionId());
+					writeTimestamp(out, m.getTimestamp());
+					writeTimestamp(out, m.getCreated_on());
+					writeInt8(out, m.getProvenance() == null ? null : m.getProvenance().getId());
+					writeValue(out, table, m.getValue());
+				}
+				out.writeShort(-1); // trailer
+				out.flush();
+				return copy.endCopy();
+			} catch (IOException e) {
+				throw new SQLException("Unable to stream history records to " + table.table + "history", e);
+			} finally {
+				if (copy.isActive()) {
+					copy.cancelCopy();
+				}
+			}
+		});
+		LOG.debug("Copied {} records into {}history", rows, table.table);
+		return rows;
+	}
+
+	private static void writeValue(DataOutputStream out, ValueTable table, Object value) throws IOException {
+		if (value == null) {
+			out.writeInt(-1);
+			return;
+		}
+		switch (table) {
+			case NUMBER:
+				out.writeInt(8);
+				out.writeDouble(((Number) value).doubleValue());
+				break;
+			case STRING:
+				writeBytes(out, value.toString().getBytes(StandardCharsets.UTF_8));
+				break;
+			case JSON:
+				byte[] json = value instanceof RawJsonValue raw
+					? raw.getJson().getBytes(StandardCharsets.UTF_8)
+					: MAPPER.writeValueAsBytes(value);
+				out.writeInt(json.length + 1);
+				out.writeByte(JSONB_VERSION);
+				out.write(json);
+				break;
+		}
+	}
+
+	private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static void writeInt2(DataOutputStream out, Long value) throws IOException {
+		if (value == null) {
+			out.writeInt(-1);
+		} else {
+			out.writeInt(2);
+			out.writeShort(value.shortValue());
+		}
+	}
+
+	private static void writeInt4(DataOutputStream out, Long value) throws IOException {
+		if (value == null) {
+			out.writeInt(-1);
+		} else {
+			out.writeInt(4);
+			out.writeInt(value.intValue());
+		}
+	}
+
+	private static void writeInt8(DataOutputStream out, Long value) throws IOException {
+		if (value == null) {
+			out.writeInt(-1);
+		} else {
+			out.writeInt(8);
+			out.writeLong(value);
+		}
+	}
+
+	/**
+	 * The history columns are {@code timestamp without time zone}. Hibernate
+	 * binds {@link Date} as wall-clock time of the JVM time zone, so we do the
+	 * same here to stay consistent with rows written through JPA.
+	 */
+	private static void writeTimestamp(DataOutputStream out, Date date) throws IOException {
+		if (date == null) {
+			out.writeInt(-1);
+			return;
+		}
+		long millis = date.getTime();
+		long localMillis = millis + TimeZone.getDefault().getOffset(millis);
+		out.writeInt(8);
+		out.writeLong((localMillis - PG_EPOCH_MILLIS) * 1000L);
+	}
+}
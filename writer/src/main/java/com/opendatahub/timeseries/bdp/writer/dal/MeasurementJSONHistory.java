@@ -10,6 +10,8 @@ import java.util.Map;
 import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.type.SqlTypes;
 
+import com.opendatahub.timeseries.bdp.dto.dto.RawJsonValue;
+
 import jakarta.persistence.Entity;
 import jakarta.persistence.Index;
 import jakarta.persistence.Table;
@@ -38,6 +40,10 @@ public class MeasurementJSONHistory extends MeasurementAbstractHistory {
 	@JdbcTypeCode(SqlTypes.JSON)
 	private Map<String, Object> jsonValue;
 
+	/** Value as pushed, written as it is instead of serializing jsonValue */
+	@Transient
+	private RawJsonValue rawValue;
+
 	public Map<String, Object> getJsonValue() {
 		return jsonValue;
 	}
@@ -53,13 +59,17 @@ public class MeasurementJSONHistory extends MeasurementAbstractHistory {
 	@Override
 	@SuppressWarnings("unchecked")
 	public void setValue(Object value) {
-		if (value instanceof Map) {
+		if (value instanceof RawJsonValue raw) {
+			this.rawValue = raw;
+			this.jsonValue = null;
+		} else if (value instanceof Map) {
 			this.setJsonValue(((Map<String, Object>) value));
+			this.rawValue = null;
 		}
 	}
 	
 	@Override
 	public Object getValue() {
-		return jsonValue;
+		return rawValue != null ? rawValue : jsonValue;
 	}
 }
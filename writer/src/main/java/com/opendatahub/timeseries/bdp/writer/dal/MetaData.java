@@ -5,14 +5,21 @@
 
 package com.opendatahub.timeseries.bdp.writer.dal;
 
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Date;
+import java.util.HexFormat;
 import java.util.Map;
 
 import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.type.SqlTypes;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.opendatahub.timeseries.bdp.dto.dto.StationDto;
+import com.opendatahub.timeseries.bdp.writer.dal.util.JPAException;
 
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
@@ -40,6 +47,10 @@ import jakarta.persistence.Table;
 )
 public class MetaData {
 
+	/** Map keys in order, so that equal maps give the same JSON text */
+	private static final ObjectMapper CANONICAL = new ObjectMapper()
+		.configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
+
 	@Id
 	@GeneratedValue(generator = "metadata_gen", strategy = GenerationType.SEQUENCE)
 	@SequenceGenerator(name = "metadata_gen", sequenceName = "metadata_seq", allocationSize = 1)
@@ -54,6 +65,9 @@ public class MetaData {
 
 	private Date created_on;
 
+	/** See {@link #hash}, null for rows written before it existed */
+	private String json_hash;
+
 	public MetaData() {
 		created_on = new Date();
 	}
@@ -71,6 +85,30 @@ public class MetaData {
 	 */
 	public void setJson(Map<String, Object> metaData) {
 		this.json = metaData;
+		this.json_hash = hash(metaData);
+	}
+
+	public String getJsonHash() {
+		return json_hash;
+	}
+
+	/**
+	 * Content hash of meta data, the md5 of its JSON text with map keys in
+	 * order. Equal hashes mean equal meta data, so that syncs need not load
+	 * and compare the JSON itself. Unequal ones may still be equal maps, if
+	 * the hash has been written by an earlier version.
+	 *
+	 * @param json meta data, may be null
+	 * @return md5 as 32 hex digits
+	 */
+	public static String hash(Map<String, Object> json) {
+		try {
+			return HexFormat.of().formatHex(MessageDigest.getInstance("MD5").digest(CANONICAL.writeValueAsBytes(json)));
+		} catch (JsonProcessingException e) {
+			throw new JPAException("Unable to serialize meta data", e);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
 	}
 
 	public Station getStation() {
@@ -0,0 +1,171 @@
+// Copyright © 2025 NOI Techpark - Südtirol / Alto Adige (info@opendatahub.com)
+//
+// SPDX-License-Identifier: GPL-3.0-only
+
+package com.opendatahub.timeseries.bdp.writer.dal;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * In-memory copy of all {@link PartitionDef} rules.
+ *
+ * <p>
+ * Resolves partitions like {@link PartitionDef#findPartition}: a rule matches,
+ * if each of origin, station type, data type and period is either null or
+ * equal to the given one. The rule with most non-null fields wins, ties go to
+ * the highest partition id.
+ * </p>
+ *
+ * <p>
+ * Rules are grouped by which of their fields are null. Each group is a hash
+ * index on the remaining fields, so a lookup is at most 16 hash lookups,
+ * independent of the number of rules. The whole structure is immutable and
+ * gets replaced atomically, when it is older than {@code ttlMillis}. Lookups
+ * never lock, only a reload does. Rules changed in the database are picked up
+ * after the TTL at the latest, or immediately with {@link #invalidate()}.
+ * Until then, new timeseries still go to the partitions of the old rules.
+ * </p>
+ */
+public class PartitionRules {
+
+	private static final Logger LOG = LoggerFactory.getLogger(PartitionRules.class);
+
+	private static final int ORIGIN = 8;
+	private static final int STATIONTYPE = 4;
+	private static final int TYPE = 2;
+	private static final int PERIOD = 1;
+
+	/** Field masks ordered by descending score, i.e., number of non-null fields */
+	private static final int[] MASKS = { 15, 14, 13, 11, 7, 12, 10, 9, 6, 5, 3, 8, 4, 2, 1, 0 };
+
+	/** A single rule, null fields match everything */
+	public record Rule(Long partitionId, String origin, String stationtype, Long typeId, Integer period) {
+		int mask() {
+			return (origin != null ? ORIGIN : 0)
+				| (stationtype != null ? STATIONTYPE : 0)
+				| (typeId != null ? TYPE : 0)
+				| (period != null ? PERIOD : 0);
+		}
+	}
+
+	private record RuleKey(String origin, String stationtype, Long typeId, Integer period) {
+		static RuleKey of(int mask, String origin, String stationtype, Long typeId, Integer period) {
+			return new RuleKey(
+				(mask & ORIGIN) != 0 ? origin : null,
+				(mask & STATIONTYPE) != 0 ? stationtype : null,
+				(mask & TYPE) != 0 ? typeId : null,
+				(mask & PERIOD) != 0 ? period : null);
+		}
+	}
+
+	/** Immutable set of rules, indexed by mask */
+	static class Snapshot {
+		private final List<Map<RuleKey, Long>> byMask = new ArrayList<>();
+		private final Long defaultPartitionId;
+		private final long loadedAt;
+
+		Snapshot(List<Rule> rules, Long defaultPartitionId, long loadedAt) {
+			for (int i = 0; i < 16; i++) {
+				byMask.add(new HashMap<>());
+			}
+			for (Rule rule : rules) {
+				int mask = rule.mask();
+				// uc_partition_def treats NULLs as equal, so keys are unique, unless rules come from elsewhere
+				byMask.get(mask).merge(
+					RuleKey.of(mask, rule.origin(), rule.stationtype(), rule.typeId(), rule.period()),
+					rule.partitionId(),
+					Math::max);
+			}
+			this.defaultPartitionId = defaultPartitionId;
+			this.loadedAt = loadedAt;
+		}
+
+		/** @return id of the partition of the most specific matching rule, or null if none matches */
+		Long find(String origin, String stationtype, Long typeId, Integer period) {
+			Long result = null;
+			int resultScore = -1;
+			for (int mask : MASKS) {
+				int score = Integer.bitCount(mask);
+				if (score < resultScore) {
+					break;
+				}
+				Map<RuleKey, Long> index = byMask.get(mask);
+				if (index.isEmpty()) {
+					continue;
+				}
+				Long partitionId = index.get(RuleKey.of(mask, origin, stationtype, typeId, period));
+				if (partitionId != null && (result == null || partitionId > result)) {
+					result = partitionId;
+					resultScore = score;
+				}
+			}
+			return result;
+		}
+	}
+
+	private final long ttlMillis;
+	private volatile Snapshot snapshot;
+
+	public PartitionRules(long ttlMillis) {
+		this.ttlMillis = ttlMillis;
+	}
+
+	/**
+	 * @return the partition for a new timeseries, falling back to the default partition
+	 */
+	public Partition findPartition(EntityManager em, String origin, String stationtype, DataType type, Integer period) {
+		Snapshot current = current(em);
+		Long partitionId = current.find(origin, stationtype, type.getId(), period);
+		if (partitionId == null) {
+			partitionId = current.defaultPartitionId;
+		}
+		if (partitionId == null) {
+			// No default partition yet, let it be created. Next reload will know it.
+			return Partition.getDefault(em);
+		}
+		return em.getReference(Partition.class, partitionId);
+	}
+
+	/** Reload the rules with the next lookup */
+	public void invalidate() {
+		snapshot = null;
+	}
+
+	private Snapshot current(EntityManager em) {
+		Snapshot current = snapshot;
+		if (current != null && System.currentTimeMillis() - current.loadedAt < ttlMillis) {
+			return current;
+		}
+		synchronized (this) {
+			current = snapshot;
+			if (current == null || System.currentTimeMillis() - current.loadedAt >= ttlMillis) {
+				current = load(em);
+				snapshot = current;
+			}
+			return current;
+		}
+	}
+
+	private static Snapshot load(EntityManager em) {
+		List<Rule> rules = em.createQuery(
+				"SELECT pd.partition.id, pd.origin, pd.stationtype, pd.type.id, pd.period FROM PartitionDef pd",
+				Object[].class)
+			.getResultStream()
+			.map(row -> new Rule((Long) row[0], (String) row[1], (String) row[2], (Long) row[3], (Integer) row[4]))
+			.toList();
+		Long defaultPartitionId = em.createQuery("SELECT p.id FROM Partition p WHERE p.id = 1", Long.class)
+			.getResultStream()
+			.findFirst()
+			.orElse(null);
+		LOG.debug("Loaded {} partition rules", rules.size());
+		return new Snapshot(rules, defaultPartitionId, System.currentTimeMillis());
+	}
+}
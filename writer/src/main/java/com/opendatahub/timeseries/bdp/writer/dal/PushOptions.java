@@ -0,0 +1,131 @@
+// Copyright © 2025 NOI Techpark - Südtirol / Alto Adige (info@opendatahub.com)
+//
+// SPDX-License-Identifier: GPL-3.0-only
+
+package com.opendatahub.timeseries.bdp.writer.dal;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Tuning knobs for {@link TimeSeries#pushRecords}.
+ *
+ * Instances are built by the writer API from the application configuration,
+ * the defaults reproduce the plain JPA behavior.
+ */
+public class PushOptions {
+
+	/** Write history records with a binary COPY instead of one persist per record */
+	private boolean copyHistory = false;
+
+	/**
+	 * Also write records older than the latest one to the history, ignoring
+	 * those that already exist. The latest value is still only replaced by newer ones.
+	 */
+	private boolean backfill = false;
+
+	/** Shared lookup of known timeseries, null to always ask the database */
+	private TimeSeriesRegistry timeSeriesRegistry;
+
+	/** Shared latest timestamps of known timeseries, null to always ask the database */
+	private LatestTimestampCache latestCache;
+
+	/** Shared partition rules of new timeseries, null to ask the database for each of them */
+	private PartitionRules partitionRules;
+
+	/** Shared locks, so that concurrent pushes of the same timeseries wait for each other, null to not lock */
+	private TimeSeriesLocks timeSeriesLocks;
+
+	/** Shared catalog to resolve type names, null to ask the database */
+	private DataTypeCatalog typeCatalog;
+
+	/** Shared pool, on which large pushes walk their data tree in parallel, null to walk on the calling thread */
+	private ForkJoinPool walkPool;
+
+	/** Min. number of records of a push, before it walks its data tree in parallel, 0 to never do so */
+	private int parallelWalkThreshold = 0;
+
+	public static PushOptions defaults() {
+		return new PushOptions();
+	}
+
+	public boolean isCopyHistory() {
+		return copyHistory;
+	}
+
+	public PushOptions setCopyHistory(boolean copyHistory) {
+		this.copyHistory = copyHistory;
+		return this;
+	}
+
+	public boolean isBackfill() {
+		return backfill;
+	}
+
+	public PushOptions setBackfill(boolean backfill) {
+		this.backfill = backfill;
+		return this;
+	}
+
+	public TimeSeriesRegistry getTimeSeriesRegistry() {
+		return timeSeriesRegistry;
+	}
+
+	public PushOptions setTimeSeriesRegistry(TimeSeriesRegistry timeSeriesRegistry) {
+		this.timeSeriesRegistry = timeSeriesRegistry;
+		return this;
+	}
+
+	public LatestTimestampCache getLatestCache() {
+		return latestCache;
+	}
+
+	public PushOptions setLatestCache(LatestTimestampCache latestCache) {
+		this.latestCache = latestCache;
+		return this;
+	}
+
+	public PartitionRules getPartitionRules() {
+		return partitionRules;
+	}
+
+	public PushOptions setPartitionRules(PartitionRules partitionRules) {
+		this.partitionRules = partitionRules;
+		return this;
+	}
+
+	public TimeSeriesLocks getTimeSeriesLocks() {
+		return timeSeriesLocks;
+	}
+
+	public PushOptions setTimeSeriesLocks(TimeSeriesLocks timeSeriesLocks) {
+		this.timeSeriesLocks = timeSeriesLocks;
+		return this;
+	}
+
+	public DataTypeCatalog getTypeCatalog() {
+		return typeCatalog;
+	}
+
+	public PushOptions setTypeCatalog(DataTypeCatalog typeCatalog) {
+		this.typeCatalog = typeCatalog;
+		return this;
+	}
+
+	public ForkJoinPool getWalkPool() {
+		return walkPool;
+	}
+
+	public PushOptions setWalkPool(ForkJoinPool walkPool) {
+		this.walkPool = walkPool;
+		return this;
+	}
+
+	public int getParallelWalkThreshold() {
+		return parallelWalkThreshold;
+	}
+
+	public PushOptions setParallelWalkThreshold(int parallelWalkThreshold) {
+		this.parallelWalkThreshold = parallelWalkThreshold;
+		return this;
+	}
+}
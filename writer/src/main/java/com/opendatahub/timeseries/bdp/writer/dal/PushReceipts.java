@@ -0,0 +1,211 @@
+// Copyright © 2025 NOI Techpark - Südtirol / Alto Adige (info@opendatahub.com)
+//
+// SPDX-License-Identifier: GPL-3.0-only
+
+package com.opendatahub.timeseries.bdp.writer.dal;
+
+import java.sql.Timestamp;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+
+import com.opendatahub.timeseries.bdp.writer.dal.util.JPAException;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * Results of completed pushes by idempotency key.
+ *
+ * <p>
+ * A push sent again with the same key, for example after a client side
+ * timeout, gets the original result, status and response body, without
+ * being written again. Receipts
+ * live in memory, where the least recently used ones get evicted beyond
+ * {@code maxSize}, and in the table push_receipt, so that they survive
+ * restarts and are shared between writer instances. Receipts older than
+ * {@code retentionMillis} are ignored and deleted from time to time. Since
+ * pushes skip records they already wrote, a receipt that got lost only costs
+ * the time to write the push again.
+ * </p>
+ *
+ * <p>
+ * Only successful pushes get a receipt, a failed one can be sent again with
+ * the same key. A push arriving while another one with the same key is still
+ * being written waits for it, up to {@code waitMillis}.
+ * </p>
+ */
+public class PushReceipts {
+
+	private static final Logger LOG = LoggerFactory.getLogger(PushReceipts.class);
+
+	private static final long PURGE_INTERVAL_MILLIS = 3_600_000;
+
+	/** @param body JSON response body of the push, null if it had none */
+	public record Receipt(String key, int status, String body, long createdOn) {}
+
+	private final int maxSize;
+	private final long retentionMillis;
+	private final long waitMillis;
+
+	/** Latest receipts in access order */
+	private final Map<String, Receipt> receipts = new LinkedHashMap<>(16, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Receipt> eldest) {
+			return size() > maxSize;
+		}
+	};
+
+	/** Pushes being written, completed with their receipt or null if they failed */
+	private final ConcurrentHashMap<String, CompletableFuture<Receipt>> pending = new ConcurrentHashMap<>();
+
+	private volatile long lastPurge = System.currentTimeMillis();
+
+	/**
+	 * @param maxSize         number of receipts kept in memory
+	 * @param retentionMillis how long receipts are valid, 0 disables idempotent pushes
+	 * @param waitMillis      max. time to wait for a push with the same key
+	 */
+	public PushReceipts(int maxSize, long retentionMillis, long waitMillis) {
+		this.maxSize = maxSize;
+		this.retentionMillis = retentionMillis;
+		this.waitMillis = waitMillis;
+	}
+
+	public boolean isEnabled() {
+		return retentionMillis > 0;
+	}
+
+	/**
+	 * Claim {@code key} for a new push. If null is returned, the caller must
+	 * finish with either {@link #complete} or {@link #abort}.
+	 *
+	 * @return null if the push must be written, otherwise the receipt of the
+	 *         push that has been written with that key before
+	 * @throws JPAException 409 if a push with that key is still being written
+	 */
+	public Receipt claim(EntityManager em, String key) {
+		Receipt receipt = find(em, key);
+		if (receipt != null) {
+			return receipt;
+		}
+		long deadline = System.currentTimeMillis() + waitMillis;
+		while (true) {
+			CompletableFuture<Receipt> other = pending.putIfAbsent(key, new CompletableFuture<>());
+			if (other == null) {
+				return null;
+			}
+			try {
+				receipt = other.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw inProgress(key);
+			} catch (TimeoutException e) {
+				throw inProgress(key);
+			} catch (ExecutionException e) {
+				receipt = null;
+			}
+			if (receipt != null) {
+				return receipt;
+			}
+			// The other push failed, try to write it ourselves
+		}
+	}
+
+	/**
+	 * Store the receipt of a push claimed with {@link #claim}
+	 *
+	 * @param body JSON response body of the push, null if it has none
+	 */
+	public void complete(EntityManager em, String key, int status, String body) {
+		Receipt receipt = new Receipt(key, status, body, System.currentTimeMillis());
+		synchronized (receipts) {
+			receipts.put(key, receipt);
+		}
+		try {
+			em.getTransaction().begin();
+			em.createNativeQuery(
+					"INSERT INTO push_receipt (idempotency_key, status, body, created_on) VALUES (?1, ?2, ?3, ?4)"
+					+ " ON CONFLICT (idempotency_key) DO UPDATE"
+					+ " SET status = excluded.status, body = excluded.body, created_on = excluded.created_on")
+				.setParameter(1, key)
+				.setParameter(2, status)
+				.setParameter(3, body)
+				.setParameter(4, new Timestamp(receipt.createdOn()))
+				.executeUpdate();
+			if (receipt.createdOn() - lastPurge > PURGE_INTERVAL_MILLIS) {
+				lastPurge = receipt.createdOn();
+				int purged = em.createNativeQuery("DELETE FROM push_receipt WHERE created_on < ?1")
+					.setParameter(1, new Timestamp(receipt.createdOn() - retentionMillis))
+					.executeUpdate();
+				LOG.debug("Deleted {} expired push receipts", purged);
+			}
+			em.getTransaction().commit();
+		} catch (Exception e) {
+			if (em.getTransaction().isActive()) {
+				em.getTransaction().rollback();
+			}
+			LOG.warn("Unable to store the receipt of push {}, only this instance remembers it: {}", key, e.getMessage());
+		} finally {
+			release(key, receipt);
+		}
+	}
+
+	/** Release a push claimed with {@link #claim} that failed */
+	public void abort(String key) {
+		release(key, null);
+	}
+
+	private void release(String key, Receipt receipt) {
+		CompletableFuture<Receipt> claimed = pending.remove(key);
+		if (claimed != null) {
+			claimed.complete(receipt);
+		}
+	}
+
+	private Receipt find(EntityManager em, String key) {
+		long validFrom = System.currentTimeMillis() - retentionMillis;
+		synchronized (receipts) {
+			Receipt receipt = receipts.get(key);
+			if (receipt != null) {
+				return receipt.createdOn() >= validFrom ? receipt : null;
+			}
+		}
+		List<Object[]> rows = em.createNativeQuery(
+				"SELECT status, body FROM push_receipt WHERE idempotency_key = ?1 AND created_on >= ?2", Object[].class)
+			.setParameter(1, key)
+			.setParameter(2, new Timestamp(validFrom))
+			.getResultList();
+		if (rows.isEmpty()) {
+			return null;
+		}
+		// Kept in memory for another retention period at most, a replay is harmless anyway
+		Object[] row = rows.get(0);
+		Receipt receipt = new Receipt(key, ((Number) row[0]).intValue(), (String) row[1], System.currentTimeMillis());
+		synchronized (receipts) {
+			receipts.put(key, receipt);
+		}
+		return receipt;
+	}
+
+	private static JPAException inProgress(String key) {
+		return new JPAException(
+			String.format("A push with idempotency key %s is still being written, send it again later", key),
+			HttpStatus.CONFLICT.value()
+		);
+	}
+
+	public int size() {
+		synchronized (receipts) {
+			return receipts.size();
+		}
+	}
+}
@@ -9,6 +9,9 @@ import static net.logstash.logback.argument.StructuredArguments.v;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -17,13 +20,9 @@ import java.util.stream.Collectors;
 
 import org.geotools.api.geometry.MismatchedDimensionException;
 import org.geotools.api.referencing.FactoryException;
-import org.geotools.api.referencing.crs.CoordinateReferenceSystem;
 import org.geotools.api.referencing.operation.TransformException;
-import org.geotools.geometry.jts.JTS;
-import org.geotools.referencing.CRS;
 import org.hibernate.annotations.ColumnDefault;
 import org.locationtech.jts.geom.Coordinate;
-import org.locationtech.jts.geom.Geometry;
 import org.locationtech.jts.geom.GeometryFactory;
 import org.locationtech.jts.geom.Point;
 import org.locationtech.jts.geom.PrecisionModel;
@@ -327,11 +326,13 @@ public class Station {
 	 * @param em entity manager
 	 * @param stationType typology of a {@link Station}
 	 * @param data list of station DTOs provided by a data collector
+	 * @param crsTransforms transforms of coordinates that are not in {@link #GEOM_CRS}
 	 */
 	public static void syncStations(
 		EntityManager em,
 		String stationType,
 		List<StationDto> data,
+		CrsTransforms crsTransforms,
 		String provenanceName,
 		String provenanceVersion,
 		boolean syncState,
@@ -343,18 +344,19 @@ public class Station {
 		List<String> stationCodes = new ArrayList<>();
 		try {
 			em.getTransaction().begin();
-			var allStations = findStationsByCodes(em, stationType, data.stream().map(StationDto::getId).collect(Collectors.toSet()))
-				.stream()
-				.collect(Collectors.toMap(Station::getStationcode, Function.identity()));
-			
-			Map<String, Map<String, Station>> allParents = getAllParents(em, data);
-
 			for (StationDto dto : data) {
 				if (dto.getStationType() == null) {
 					dto.setStationType(stationType);
 				}
+			}
+			Map<String, Map<String, Station>> allParents = getAllParents(em, data);
+			Map<StationDto, Point> points = toPoints(crsTransforms, data);
+
+			Set<String> seen = new HashSet<>();
+			List<StationSync.Row> rows = new ArrayList<>();
+			for (StationDto dto : data) {
 				if (dto.isValid()) {
-					if (stationCodes.contains(dto.getId())) {
+					if (!seen.add(dto.getId())) {
 						LOG.warn(
 								"[{}/{}] Station with ID {} already in syncStation list... skipping!",
 								provenanceName,
@@ -362,7 +364,7 @@ public class Station {
 								dto.getId(),
 								v("StationDto", dto));
 					} else {
-						sync(em, allStations, allParents, dto);
+						rows.add(new StationSync.Row(dto, points.get(dto), findParentId(allParents, dto)));
 						stationCodes.add(dto.getId());
 					}
 				} else {
@@ -373,6 +375,15 @@ public class Station {
 							v("StationDto", dto));
 				}
 			}
+			StationSync.Result result = StationSync.sync(em, rows);
+			LOG.debug(
+					"[{}/{}] Stations synchronized: {} inserted, {} updated, {} unchanged, {} new meta data",
+					provenanceName,
+					provenanceVersion,
+					result.inserted(),
+					result.updated(),
+					result.unchanged(),
+					result.metaData());
 			em.getTransaction().commit();
 		} catch (Exception e) {
 			LOG.error("Station sync failed", e);
@@ -439,111 +450,70 @@ public class Station {
 
 
 	/**
-	 * @param em entity manager
-	 * @param dto station DTO
+	 * Positions of all valid stations with coordinates in {@link #GEOM_CRS}.
+	 * Coordinates in other systems get transformed together, one array per
+	 * system, instead of one point at a time.
 	 *
 	 * @throws JPAException is thrown if geographical transformation from one projection to another fails
 	 */
-	private static void sync(EntityManager em, Map<String, Station> stations, Map<String, Map<String,Station>> parents, StationDto dto) throws Exception{
-		Station existingStation = stations.get(dto.getId());
-		if (existingStation == null) {
-			existingStation = new Station();
-			existingStation.setStationcode(dto.getId());
-			existingStation.setStationtype(dto.getStationType());
-			existingStation.setName(dto.getName());
-			existingStation.setActive(true);
-			em.persist(existingStation);
-		}
-		if (dto.getLatitude() != null && dto.getLongitude() != null) {
-			Point point = geometryFactory.createPoint(new Coordinate(dto.getLongitude(), dto.getLatitude()));
-			if (dto.getCoordinateReferenceSystem() != null && !GEOM_CRS.equals(dto.getCoordinateReferenceSystem())) {
-				CoordinateReferenceSystem thirdPartyCRS;
-				try {
-					thirdPartyCRS = CRS.decode(dto.getCoordinateReferenceSystem(), true);
-					CoordinateReferenceSystem crs = CRS.decode(GEOM_CRS, true);
-					Geometry geometry = JTS.transform(point, CRS.findMathTransform(thirdPartyCRS, crs));
-					point = geometry.getCentroid();
-				} catch (FactoryException | MismatchedDimensionException | TransformException e) {
-					throw new JPAException("Unable to create a valid coordinate reference system for station " + existingStation.getName(), e);
-					// FIXME Should an invalid CRS terminate any insertion or continue without?
-					// Should we return an message that some station had problems with their CRS, but were nevertheless inserted
-				}
+	private static Map<StationDto, Point> toPoints(CrsTransforms crsTransforms, List<StationDto> data) {
+		Map<StationDto, Point> points = new IdentityHashMap<>();
+		Map<String, List<StationDto>> byCrs = new HashMap<>();
+		for (StationDto dto : data) {
+			if (!dto.isValid() || dto.getLatitude() == null || dto.getLongitude() == null) {
+				continue;
+			}
+			String crs = dto.getCoordinateReferenceSystem();
+			if (crs == null || GEOM_CRS.equals(crs)) {
+				points.put(dto, geometryFactory.createPoint(new Coordinate(dto.getLongitude(), dto.getLatitude())));
+			} else {
+				byCrs.computeIfAbsent(crs, k -> new ArrayList<>()).add(dto);
 			}
-			point.setSRID(4326);
-			existingStation.setPointprojection(point);
 		}
-		existingStation.setOrigin(dto.getOrigin());
-		if (dto.getParentStation() != null) {
-			Station parent = null; 
-			
-			// The parents are a cache, where we look up all parents in a single batch beforehand
-			// set up in a type / code / station tree
-			// Note that the type is not necessarily the type of the station in the database, but the type that was specified when looking it up,
-			// mirroring this get() logic here
-			var parentsOfType = parents.get(dto.getParentStationType() == null ? "" : dto.getParentStationType());
-			if (parentsOfType != null) {
-				parent = parentsOfType.get(dto.getParentStation());
+		for (Map.Entry<String, List<StationDto>> group : byCrs.entrySet()) {
+			List<StationDto> dtos = group.getValue();
+			double[] coordinates = new double[dtos.size() * 2];
+			for (int i = 0; i < dtos.size(); i++) {
+				coordinates[2 * i] = dtos.get(i).getLongitude();
+				coordinates[2 * i + 1] = dtos.get(i).getLatitude();
 			}
-
-			if (parent != null) {
-				existingStation.setParent(parent);
-			} else {
-				throw new Exception("Could not find parent station " + dto.getParentStation() + " of type " + dto.getParentStationType());
+			try {
+				crsTransforms.transform(group.getKey(), coordinates, dtos.size());
+			} catch (FactoryException | MismatchedDimensionException | TransformException e) {
+				throw new JPAException("Unable to create a valid coordinate reference system for station " + dtos.get(0).getName(), e);
+				// FIXME Should an invalid CRS terminate any insertion or continue without?
+				// Should we return an message that some station had problems with their CRS, but were nevertheless inserted
+			}
+			for (int i = 0; i < dtos.size(); i++) {
+				points.put(dtos.get(i), geometryFactory.createPoint(new Coordinate(coordinates[2 * i], coordinates[2 * i + 1])));
 			}
 		}
-		
-		/* We do not need to check for NULL, nor empty strings, because the writer will take care of that */
-		existingStation.setName(dto.getName());
-		existingStation.setActive(true);
-
-		syncMetaData(em, dto.getMetaData(), existingStation);
-
-		em.merge(existingStation);
+		return points;
 	}
 
 	/**
-	 * Create a new meta data entry, if it does not yet exist or if it is different from
-	 * the previously inserted one.
-	 *
-	 * @param em entity manager
-	 * @param metaData new meta data map provided by the data collector
-	 * @param station current entity retrieved from database
+	 * @return id of the parent station of {@code dto}, or null if it has none
+	 * @throws Exception if the parent station does not exist
 	 */
-	protected static void syncMetaData(EntityManager em, Map<String, Object> metaData, Station station) {
-		if (metaData == null)
-			return;
-
-		//Map<String, Object> stationMeta = new HashMap<>();
-		//stationMeta.put("code", station.getStationcode());
-		//stationMeta.put("name", station.getName());
-		//stationMeta.put("origin", station.getOrigin());
-		//stationMeta.put("type", station.getOrigin());
-		//stationMeta.put("active", station.getOrigin());
-		//stationMeta.put("available", station.getOrigin());
-		//stationMeta.put("coordinate", Map.of(
-		//	"x", station.pointprojection.getX(),
-		//	"y", station.pointprojection.getY(),
-		//	"srid", station.pointprojection.getSRID()));
-		//metaData.put("station", stationMeta);
-
-		boolean metaDataExists = (station.getMetaData() != null && station.getMetaData().getJson() != null);
-		if (!metaDataExists || !metaData.equals(station.getMetaData().getJson())) {
-			station.setMetaData(metaData);
-			em.persist(station.getMetaData());
+	private static Long findParentId(Map<String, Map<String, Station>> parents, StationDto dto) throws Exception {
+		if (dto.getParentStation() == null) {
+			return null;
+		}
+		Station parent = null;
+
+		// The parents are a cache, where we look up all parents in a single batch beforehand
+		// set up in a type / code / station tree
+		// Note that the type is not necessarily the type of the station in the database, but the type that was specified when looking it up,
+		// mirroring this get() logic here
+		var parentsOfType = parents.get(dto.getParentStationType() == null ? "" : dto.getParentStationType());
+		if (parentsOfType != null) {
+			parent = parentsOfType.get(dto.getParentStation());
 		}
-	}
 
-	/**
-	 * Always create a new MetaData, since we want to persist a new record
-	 * and not update an existing one, to keep the history of all meta data
-	 * changes.
-	 *
-	 * @param metaData new meta data map
-	 */
-	private void setMetaData(Map<String, Object> metaData) {
-		this.metaData = new MetaData();
-		this.metaData.setStation(this);
-		this.metaData.setJson(metaData);
+		if (parent == null) {
+			throw new Exception("Could not find parent station " + dto.getParentStation() + " of type " + dto.getParentStationType());
+		}
+		return parent.getId();
 	}
 
 	/**
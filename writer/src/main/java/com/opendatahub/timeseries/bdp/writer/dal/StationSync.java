@@ -0,0 +1,331 @@
+// Copyright © 2025 NOI Techpark - Südtirol / Alto Adige (info@opendatahub.com)
+//
+// SPDX-License-Identifier: GPL-3.0-only
+
+package com.opendatahub.timeseries.bdp.writer.dal;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.hibernate.Session;
+import org.locationtech.jts.geom.Point;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.opendatahub.timeseries.bdp.dto.dto.StationDto;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * Writes the stations of a syncStations call as a set, see
+ * {@link Station#syncStations}.
+ *
+ * <p>
+ * The current rows of all stations get loaded in one query and compared with
+ * the DTOs in memory. Only new and changed stations are sent to the database,
+ * with a single multi-row upsert, which again skips rows that did not change
+ * in the meantime. Meta data gets a new version only if its hash differs from
+ * the one of the current version, all new versions are inserted with a single
+ * statement as well.
+ * </p>
+ *
+ * <p>
+ * Like the entity based sync before, a station without coordinates or parent
+ * keeps its current ones, and every synchronized station becomes active.
+ * </p>
+ */
+final class StationSync {
+
+	private static final Logger LOG = LoggerFactory.getLogger(StationSync.class);
+
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+	private static final TypeReference<Map<String, Object>> JSON_MAP = new TypeReference<>() {};
+
+	/** A station to synchronize, with its position in {@link Station#GEOM_CRS} and parent id, if any */
+	record Row(StationDto dto, Point point, Long parentId) {
+		Key key() {
+			return new Key(dto.getStationType(), dto.getId());
+		}
+	}
+
+	record Key(String stationType, String stationCode) {}
+
+	/** Current columns of a station in the database */
+	record Current(long id, String name, String origin, Long parentId, Boolean active, Double x, Double y, Long metaDataId) {}
+
+	/** What a sync did, for logging */
+	record Result(int inserted, int updated, int unchanged, int metaData) {}
+
+	private StationSync() {
+	}
+
+	/**
+	 * @param em   entity manager with an active transaction
+	 * @param rows stations to synchronize, with unique type and code
+	 */
+	static Result sync(EntityManager em, List<Row> rows) {
+		if (rows.isEmpty()) {
+			return new Result(0, 0, 0, 0);
+		}
+		// Same write order for everybody, so that concurrent syncs do not deadlock on the unique index
+		List<Row> sorted = rows.stream()
+			.sorted(Comparator.comparing((Row r) -> r.dto().getStationType()).thenComparing(r -> r.dto().getId()))
+			.toList();
+		em.flush();
+		return em.unwrap(Session.class).doReturningWork(conn -> {
+			Map<Key, Current> current = load(conn, sorted);
+			List<Row> changed = new ArrayList<>();
+			int inserted = 0;
+			for (Row row : sorted) {
+				Current c = current.get(row.key());
+				if (c == null) {
+					inserted++;
+					changed.add(row);
+				} else if (isChanged(c, row)) {
+					changed.add(row);
+				}
+			}
+			Map<Key, Long> ids = new HashMap<>();
+			current.forEach((key, c) -> ids.put(key, c.id()));
+			ids.putAll(upsert(conn, changed));
+			int metaData = syncMetaData(conn, sorted, current, ids);
+			return new Result(inserted, changed.size() - inserted, sorted.size() - changed.size(), metaData);
+		});
+	}
+
+	private static Map<Key, Current> load(Connection conn, List<Row> rows) throws SQLException {
+		String sql = "SELECT s.stationtype, s.stationcode, s.id, s.name, s.origin, s.parent_id, s.active,"
+			+ " ST_X(s.pointprojection), ST_Y(s.pointprojection), s.meta_data_id"
+			+ " FROM station s"
+			+ " JOIN unnest(?::varchar[], ?::varchar[]) AS k(stationtype, stationcode) USING (stationtype, stationcode)";
+		Map<Key, Current> result = new HashMap<>();
+		try (PreparedStatement ps = conn.prepareStatement(sql)) {
+			ps.setArray(1, conn.createArrayOf("varchar", rows.stream().map(r -> r.dto().getStationType()).toArray()));
+			ps.setArray(2, conn.createArrayOf("varchar", rows.stream().map(r -> r.dto().getId()).toArray()));
+			try (ResultSet rs = ps.executeQuery()) {
+				while (rs.next()) {
+					result.put(new Key(rs.getString(1), rs.getString(2)), new Current(
+						rs.getLong(3),
+						rs.getString(4),
+						rs.getString(5),
+						rs.getObject(6, Long.class),
+						rs.getObject(7, Boolean.class),
+						rs.getObject(8, Double.class),
+						rs.getObject(9, Double.class),
+						rs.getObject(10, Long.class)));
+				}
+			}
+		}
+		return result;
+	}
+
+	static boolean isChanged(Current current, Row row) {
+		StationDto dto = row.dto();
+		if (!Objects.equals(current.name(), dto.getName())
+				|| !Objects.equals(current.origin(), dto.getOrigin())
+				|| !Boolean.TRUE.equals(current.active())) {
+			return true;
+		}
+		if (row.parentId() != null && !row.parentId().equals(current.parentId())) {
+			return true;
+		}
+		return row.point() != null
+			&& !(Objects.equals(current.x(), row.point().getX()) && Objects.equals(current.y(), row.point().getY()));
+	}
+
+	/**
+	 * Insert new stations and update changed ones.
+	 *
+	 * @return ids of the rows that have been written
+	 */
+	private static Map<Key, Long> upsert(Connection conn, List<Row> rows) throws SQLException {
+		Map<Key, Long> ids = new HashMap<>();
+		if (rows.isEmpty()) {
+			return ids;
+		}
+		String sql = "INSERT INTO station (stationtype, stationcode, name, origin, parent_id, pointprojection, active, available)"
+			+ " SELECT u.stationtype, u.stationcode, u.name, u.origin, u.parent_id,"
+			+ " CASE WHEN u.x IS NULL THEN NULL ELSE ST_SetSRID(ST_MakePoint(u.x, u.y), 4326) END, true, true"
+			+ " FROM unnest(?::varchar[], ?::varchar[], ?::varchar[], ?::varchar[], ?::int8[], ?::float8[], ?::float8[])"
+			+ " AS u(stationtype, stationcode, name, origin, parent_id, x, y)"
+			+ " ON CONFLICT (stationcode, stationtype) DO UPDATE SET"
+			+ " name = excluded.name,"
+			+ " origin = excluded.origin,"
+			+ " parent_id = COALESCE(excluded.parent_id, station.parent_id),"
+			+ " pointprojection = COALESCE(excluded.pointprojection, station.pointprojection),"
+			+ " active = true"
+			+ " WHERE (station.name, station.origin, station.parent_id, station.pointprojection, station.active)"
+			+ " IS DISTINCT FROM (excluded.name, excluded.origin, COALESCE(excluded.parent_id, station.parent_id),"
+			+ " COALESCE(excluded.pointprojection, station.pointprojection), true)"
+			+ " RETURNING stationtype, stationcode, id";
+		try (PreparedStatement ps = conn.prepareStatement(sql)) {
+			ps.setArray(1, conn.createArrayOf("varchar", rows.stream().map(r -> r.dto().getStationType()).toArray()));
+			ps.setArray(2, conn.createArrayOf("varchar", rows.stream().map(r -> r.dto().getId()).toArray()));
+			ps.setArray(3, conn.createArrayOf("varchar", rows.stream().map(r -> r.dto().getName()).toArray()));
+			ps.setArray(4, conn.createArrayOf("varchar", rows.stream().map(r -> r.dto().getOrigin()).toArray()));
+			ps.setArray(5, conn.createArrayOf("int8", rows.stream().map(Row::parentId).toArray()));
+			ps.setArray(6, conn.createArrayOf("float8", rows.stream().map(r -> r.point() == null ? null : r.point().getX()).toArray()));
+			ps.setArray(7, conn.createArrayOf("float8", rows.stream().map(r -> r.point() == null ? null : r.point().getY()).toArray()));
+			try (ResultSet rs = ps.executeQuery()) {
+				while (rs.next()) {
+					ids.put(new Key(rs.getString(1), rs.getString(2)), rs.getLong(3));
+				}
+			}
+		}
+		return ids;
+	}
+
+	/**
+	 * Add a new meta data version to each station whose meta data changed, and
+	 * make it the current one. Meta data gets compared by {@link MetaData#hash},
+	 * the JSON of the current version is loaded only if the hashes differ.
+	 *
+	 * @return number of new meta data versions
+	 */
+	private static int syncMetaData(Connection conn, List<Row> rows, Map<Key, Current> current, Map<Key, Long> ids)
+			throws SQLException {
+		Map<Long, String> currentHashes = loadHashes(conn, current.values().stream()
+			.map(Current::metaDataId)
+			.filter(Objects::nonNull)
+			.toList());
+		Map<Row, String> hashes = new IdentityHashMap<>();
+		List<Long> toCompare = new ArrayList<>();
+		for (Row row : rows) {
+			Map<String, Object> metaData = row.dto().getMetaData();
+			if (metaData == null) {
+				continue;
+			}
+			String hash = MetaData.hash(metaData);
+			Current c = current.get(row.key());
+			Long metaDataId = c == null ? null : c.metaDataId();
+			if (metaDataId != null && hash.equals(currentHashes.get(metaDataId))) {
+				continue;
+			}
+			hashes.put(row, hash);
+			if (metaDataId != null) {
+				toCompare.add(metaDataId);
+			}
+		}
+		// Hashes differ, or are missing for rows of earlier versions
+		Map<Long, Map<String, Object>> currentJson = loadMetaData(conn, toCompare);
+
+		List<Long> stationIds = new ArrayList<>();
+		List<String> json = new ArrayList<>();
+		List<String> jsonHashes = new ArrayList<>();
+		List<Long> backfillIds = new ArrayList<>();
+		List<String> backfillHashes = new ArrayList<>();
+		for (Row row : rows) {
+			String hash = hashes.get(row);
+			if (hash == null) {
+				continue;
+			}
+			Current c = current.get(row.key());
+			Long metaDataId = c == null ? null : c.metaDataId();
+			if (metaDataId != null && row.dto().getMetaData().equals(currentJson.get(metaDataId))) {
+				backfillIds.add(metaDataId);
+				backfillHashes.add(hash);
+				continue;
+			}
+			Long stationId = ids.get(row.key());
+			if (stationId == null) {
+				// Only possible if a concurrent sync deleted it
+				LOG.warn("Station {}/{} vanished during sync, skipping its meta data", row.dto().getStationType(), row.dto().getId());
+				continue;
+			}
+			stationIds.add(stationId);
+			json.add(toJson(row.dto().getMetaData()));
+			jsonHashes.add(hash);
+		}
+		if (!backfillIds.isEmpty()) {
+			String sql = "UPDATE metadata SET json_hash = u.json_hash"
+				+ " FROM unnest(?::int8[], ?::varchar[]) AS u(id, json_hash) WHERE metadata.id = u.id";
+			try (PreparedStatement ps = conn.prepareStatement(sql)) {
+				ps.setArray(1, conn.createArrayOf("int8", backfillIds.toArray()));
+				ps.setArray(2, conn.createArrayOf("varchar", backfillHashes.toArray()));
+				ps.executeUpdate();
+			}
+		}
+		if (stationIds.isEmpty()) {
+			return 0;
+		}
+		String sql = "WITH m AS ("
+			+ " INSERT INTO metadata (station_id, json, json_hash, created_on)"
+			+ " SELECT u.station_id, u.json::jsonb, u.json_hash, ?"
+			+ " FROM unnest(?::int8[], ?::text[], ?::varchar[]) AS u(station_id, json, json_hash)"
+			+ " RETURNING id, station_id)"
+			+ " UPDATE station SET meta_data_id = m.id FROM m WHERE station.id = m.station_id";
+		try (PreparedStatement ps = conn.prepareStatement(sql)) {
+			ps.setTimestamp(1, new Timestamp(System.currentTimeMillis()));
+			ps.setArray(2, conn.createArrayOf("int8", stationIds.toArray()));
+			ps.setArray(3, conn.createArrayOf("text", json.toArray()));
+			ps.setArray(4, conn.createArrayOf("varchar", jsonHashes.toArray()));
+			ps.executeUpdate();
+		}
+		return stationIds.size();
+	}
+
+	private static Map<Long, String> loadHashes(Connection conn, Collection<Long> ids) throws SQLException {
+		Map<Long, String> result = new HashMap<>();
+		if (ids.isEmpty()) {
+			return result;
+		}
+		try (PreparedStatement ps = conn.prepareStatement("SELECT id, json_hash FROM metadata WHERE id = ANY(?::int8[])")) {
+			ps.setArray(1, conn.createArrayOf("int8", ids.toArray()));
+			try (ResultSet rs = ps.executeQuery()) {
+				while (rs.next()) {
+					result.put(rs.getLong(1), rs.getString(2));
+				}
+			}
+		}
+		return result;
+	}
+
+	private static Map<Long, Map<String, Object>> loadMetaData(Connection conn, Collection<Long> ids) throws SQLException {
+		Map<Long, Map<String, Object>> result = new HashMap<>();
+		if (ids.isEmpty()) {
+			return result;
+		}
+		try (PreparedStatement ps = conn.prepareStatement("SELECT id, json::text FROM metadata WHERE id = ANY(?::int8[])")) {
+			ps.setArray(1, conn.createArrayOf("int8", ids.toArray()));
+			try (ResultSet rs = ps.executeQuery()) {
+				while (rs.next()) {
+					String json = rs.getString(2);
+					if (json != null) {
+						result.put(rs.getLong(1), fromJson(json));
+					}
+				}
+			}
+		}
+		return result;
+	}
+
+	private static String toJson(Map<String, Object> metaData) throws SQLException {
+		try {
+			return MAPPER.writeValueAsString(metaData);
+		} catch (JsonProcessingException e) {
+			throw new SQLException("Unable to serialize meta data", e);
+		}
+	}
+
+	private static Map<String, Object> fromJson(String json) throws SQLException {
+		try {
+			return MAPPER.readValue(json, JSON_MAP);
+		} catch (JsonProcessingException e) {
+			throw new SQLException("Unable to read meta data", e);
+		}
+	}
+}
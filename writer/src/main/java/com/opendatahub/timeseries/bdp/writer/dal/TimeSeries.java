@@ -4,19 +4,32 @@
 
 package com.opendatahub.timeseries.bdp.writer.dal;
 
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.Date;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.hibernate.Session;
 import org.postgresql.util.PGobject;
@@ -25,9 +38,13 @@ import org.slf4j.LoggerFactory;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.opendatahub.timeseries.bdp.dto.dto.ColumnarRecordsDto;
 import com.opendatahub.timeseries.bdp.dto.dto.DataMapDto;
+import com.opendatahub.timeseries.bdp.dto.dto.RawJsonValue;
 import com.opendatahub.timeseries.bdp.dto.dto.RecordDtoImpl;
 import com.opendatahub.timeseries.bdp.dto.dto.SimpleRecordDto;
+import com.opendatahub.timeseries.bdp.dto.dto.SimpleRecordDto.ValueKind;
+import com.opendatahub.timeseries.bdp.writer.dal.MeasurementAbstract.LatestValue;
 import com.opendatahub.timeseries.bdp.writer.dal.util.JPAException;
 import com.opendatahub.timeseries.bdp.writer.dal.util.Log;
 import com.opendatahub.timeseries.bdp.writer.dal.util.QueryBuilder;
@@ -82,6 +99,8 @@ public class TimeSeries {
 	@ManyToOne(cascade = CascadeType.ALL, optional = false)
 	private Partition partition;
 
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+
 	public static enum ValueTable {
 		NUMBER("measurement", "double_value", Measurement.class, MeasurementHistory.class),
 		STRING("measurementstring", "string_value", MeasurementString.class, MeasurementStringHistory.class),
@@ -100,6 +119,42 @@ public class TimeSeries {
 			this.historyClass = historyClass;
 		}
 
+		/** @return element type of the SQL array used to pass values of this table as a parameter */
+		public String sqlArrayType() {
+			return this == NUMBER ? "float8" : "text";
+		}
+
+		/** @return cast from {@link #sqlArrayType()} to the value column type */
+		public String sqlCast() {
+			return this == JSON ? "::jsonb" : "";
+		}
+
+		public Object[] newSqlArray(int size) {
+			return this == NUMBER ? new Double[size] : new String[size];
+		}
+
+		/** @return record value converted to an element of {@link #newSqlArray(int)} */
+		public Object toSqlValue(Object value) {
+			if (value == null) {
+				return null;
+			}
+			switch (this) {
+				case NUMBER:
+					return ((Number) value).doubleValue();
+				case JSON:
+					if (value instanceof RawJsonValue raw) {
+						return raw.getJson();
+					}
+					try {
+						return MAPPER.writeValueAsString(value);
+					} catch (JsonProcessingException e) {
+						throw new JPAException("Unable to serialize JSON value", e);
+					}
+				default:
+					return value.toString();
+			}
+		}
+
 		public static ValueTable getByTable(String s) {
 			for (ValueTable v : values()) {
 				if (v.table.equals(s)) {
@@ -211,6 +266,85 @@ public class TimeSeries {
 				.buildResultList(TimeSeries.class);
 	}
 
+	/**
+	 * Create all given timeseries with a single statement. Those that exist
+	 * already, maybe because a concurrent push has just created them, are left
+	 * alone and are not part of the result, see {@link #findIds}.
+	 *
+	 * The sequence is only called for rows that get inserted, if the input
+	 * does not contain existing timeseries, so look them up first.
+	 *
+	 * @param em         entity manager with an active transaction
+	 * @param partitions partition id of each timeseries to create
+	 * @return ids of the timeseries that have been inserted
+	 */
+	public static Map<Key, TimeSeriesRegistry.Entry> insertMissing(EntityManager em, Map<Key, Long> partitions) {
+		if (partitions.isEmpty()) {
+			return new HashMap<>();
+		}
+		// Same insert order for everybody, so that concurrent pushes do not deadlock on the unique index
+		List<Key> keys = partitions.keySet().stream()
+			.sorted(Comparator.comparing(Key::stationId)
+				.thenComparing(Key::typeId)
+				.thenComparing(Key::period)
+				.thenComparing(Key::table))
+			.toList();
+		Short[] partitionIds = keys.stream()
+			.map(k -> partitions.get(k).shortValue())
+			.toArray(Short[]::new);
+		String sql = "INSERT INTO timeseries (station_id, type_id, period, value_table, partition_id)"
+			+ " SELECT * FROM unnest(?::int8[], ?::int8[], ?::int4[], ?::varchar[], ?::int2[])"
+			+ " ON CONFLICT (station_id, type_id, period, value_table) DO NOTHING"
+			+ " RETURNING id, station_id, type_id, period, value_table, partition_id";
+		// Pending entities, like a newly created default partition, must be there before
+		em.flush();
+		return em.unwrap(Session.class).doReturningWork(conn -> {
+			try (PreparedStatement ps = conn.prepareStatement(sql)) {
+				setKeys(conn, ps, keys);
+				ps.setArray(5, conn.createArrayOf("int2", partitionIds));
+				return readIds(ps);
+			}
+		});
+	}
+
+	/**
+	 * @return ids of the existing timeseries among {@code keys}
+	 */
+	public static Map<Key, TimeSeriesRegistry.Entry> findIds(EntityManager em, Collection<Key> keys) {
+		if (keys.isEmpty()) {
+			return new HashMap<>();
+		}
+		List<Key> list = List.copyOf(keys);
+		String sql = "SELECT t.id, t.station_id, t.type_id, t.period, t.value_table, t.partition_id"
+			+ " FROM timeseries t"
+			+ " JOIN unnest(?::int8[], ?::int8[], ?::int4[], ?::varchar[]) AS k(station_id, type_id, period, value_table)"
+			+ " USING (station_id, type_id, period, value_table)";
+		return em.unwrap(Session.class).doReturningWork(conn -> {
+			try (PreparedStatement ps = conn.prepareStatement(sql)) {
+				setKeys(conn, ps, list);
+				return readIds(ps);
+			}
+		});
+	}
+
+	private static void setKeys(Connection conn, PreparedStatement ps, List<Key> keys) throws SQLException {
+		ps.setArray(1, conn.createArrayOf("int8", keys.stream().map(Key::stationId).toArray()));
+		ps.setArray(2, conn.createArrayOf("int8", keys.stream().map(Key::typeId).toArray()));
+		ps.setArray(3, conn.createArrayOf("int4", keys.stream().map(Key::period).toArray()));
+		ps.setArray(4, conn.createArrayOf("varchar", keys.stream().map(k -> k.table().table).toArray()));
+	}
+
+	private static Map<Key, TimeSeriesRegistry.Entry> readIds(PreparedStatement ps) throws SQLException {
+		Map<Key, TimeSeriesRegistry.Entry> result = new HashMap<>();
+		try (ResultSet rs = ps.executeQuery()) {
+			while (rs.next()) {
+				Key key = new Key(rs.getLong(2), rs.getLong(3), rs.getInt(4), ValueTable.getByTable(rs.getString(5)));
+				result.put(key, new TimeSeriesRegistry.Entry(rs.getLong(1), rs.getLong(6)));
+			}
+		}
+		return result;
+	}
+
 	private static final Logger LOG = LoggerFactory.getLogger(TimeSeries.class);
 
 	/**
@@ -344,25 +478,51 @@ public class TimeSeries {
 	}
 
 	/* A record, but wrapped deliciously */
-	private static class RecordBurrito extends SimpleRecordDto {
+	private static class RecordBurrito {
+		/** As read, not copied, so number records stay unboxed until they are written */
+		private final SimpleRecordDto dto;
 		private ValueTable table;
 
 		public RecordBurrito(SimpleRecordDto dto) {
-			super(dto.getTimestamp(), dto.getValue(), dto.getPeriod(), dto.getCreated_on());
-
-			Object valueObj = dto.getValue();
-			if (valueObj instanceof Number) {
-				table = ValueTable.NUMBER;
-			} else if (valueObj instanceof String) {
-				table = ValueTable.STRING;
-			} else if (valueObj instanceof Map) {
-				table = ValueTable.JSON;
+			this.dto = dto;
+
+			// Known from the record type or from parsing already, see RecordDtoDeserializer
+			ValueKind kind = dto.getValueKind();
+			if (kind != null) {
+				switch (kind) {
+					case NUMBER:
+						table = ValueTable.NUMBER;
+						break;
+					case STRING:
+						table = ValueTable.STRING;
+						break;
+					case JSON:
+						table = ValueTable.JSON;
+						break;
+				}
 			}
 		}
 
+		public SimpleRecordDto getDto() {
+			return dto;
+		}
+
+		public Long getTimestamp() {
+			return dto.getTimestamp();
+		}
+
+		public Integer getPeriod() {
+			return dto.getPeriod();
+		}
+
 		public ValueTable getTable() {
 			return table;
 		}
+
+		@Override
+		public String toString() {
+			return dto.toString();
+		}
 	}
 	
 	/**
@@ -388,185 +548,295 @@ public class TimeSeries {
 	 *                      does not exist in the database yet
 	 */
 	public static void pushRecords(EntityManager em, String stationType, DataMapDto<RecordDtoImpl> dataMap) {
+		pushRecords(em, stationType, dataMap, PushOptions.defaults());
+	}
+
+	/**
+	 * Same as {@link #pushRecords(EntityManager, String, DataMapDto)}, but with
+	 * configurable write strategies
+	 *
+	 * @param options see {@link PushOptions}
+	 */
+	public static void pushRecords(EntityManager em, String stationType, DataMapDto<RecordDtoImpl> dataMap, PushOptions options) {
+		pushRecords(em, stationType, List.of(dataMap), options);
+	}
+
+	/**
+	 * Write several data maps, that are all in memory already, within a single
+	 * transaction, see {@link #pushRecords(EntityManager, String, Iterator, PushOptions)}.
+	 *
+	 * <p>
+	 * The timeseries of all data maps are resolved and locked at once, before
+	 * anything is written, so that the push never waits for locks while
+	 * holding others.
+	 * </p>
+	 */
+	public static void pushRecords(EntityManager em, String stationType, List<DataMapDto<RecordDtoImpl>> dataMaps,
+			PushOptions options) {
+		pushBatches(em, stationType, dataMaps.iterator(), true, options);
+	}
+
+	/**
+	 * Streaming variant of {@link #pushRecords(EntityManager, String, DataMapDto, PushOptions)}.
+	 *
+	 * <p>
+	 * Each batch is a partial data tree. Batches are prepared and written one
+	 * after the other within a single transaction, and the persistence context
+	 * is cleared in between, so memory is bounded by the batch size and not by
+	 * the size of the whole push. Records of the same timeseries that are
+	 * split over several batches are written just as if they came in a single
+	 * batch: they are compared against the latest record before the push, and
+	 * records older than what previous batches already wrote are inserted as
+	 * well, skipping duplicate timestamps.
+	 * </p>
+	 *
+	 * @param batches partial data trees, each of them with provenance
+	 * @param options see {@link PushOptions}
+	 */
+	public static void pushRecords(EntityManager em, String stationType, Iterator<DataMapDto<RecordDtoImpl>> batches, PushOptions options) {
+		pushBatches(em, stationType, batches, false, options);
+	}
+
+	/**
+	 * @param lockUpFront walk all batches and lock their timeseries before
+	 *                    writing the first one, otherwise walk and lock one
+	 *                    batch after the other
+	 */
+	private static void pushBatches(EntityManager em, String stationType, Iterator<DataMapDto<RecordDtoImpl>> batches,
+			boolean lockUpFront, PushOptions options) {
 		Log log = new Log(LOG, "pushRecords");
+		Set<Key> touched = new HashSet<>();
+		Set<Long> touchedIds = new HashSet<>();
+		// New timeseries and the ones found in the database, they get published to the registry only after commit
+		Map<Key, TimeSeriesRegistry.Entry> created = new HashMap<>();
+		// Latest timestamps as seen by this push, they get published only after commit
+		Map<Long, Long> latestTimes = new HashMap<>();
+		// Latest timestamps before this push, records after them are new, even if a previous batch wrote newer ones
+		Map<Long, Long> startTimes = new HashMap<>();
+		// Timeseries whose latest timestamps must not be cached, see LatestTimestampCache#covers
+		Set<Long> uncached = new HashSet<>();
+		TimeSeriesLocks.Holder locks = options.getTimeSeriesLocks() == null ? null : options.getTimeSeriesLocks().holder();
+		try {
+			em.getTransaction().begin();
+			Deque<WalkedBatch> walked = new ArrayDeque<>();
+			if (lockUpFront) {
+				while (batches.hasNext()) {
+					walked.add(walkBatch(em, log, stationType, batches.next(), options));
+				}
+				if (locks != null) {
+					locks.lock(walked.stream()
+						.flatMap(w -> w.series().values().stream())
+						.map(Series::getTimeseriesId)
+						.toList());
+				}
+			}
+			while (!walked.isEmpty() || batches.hasNext()) {
+				WalkedBatch next = walked.isEmpty() ? walkBatch(em, log, stationType, batches.next(), options) : walked.poll();
+				PreparedBatch batch = prepareBatch(em, log, stationType, next, options, latestTimes, startTimes, locks);
+				for (Series s : batch.series()) {
+					touched.add(s.key);
+					if (!s.isNew) {
+						touchedIds.add(s.getTimeseriesId());
+					}
+				}
+				writeBatch(em, batch, options);
+				for (Series s : batch.series()) {
+					if (s.isNew || s.isUnregistered) {
+						created.put(s.key, new TimeSeriesRegistry.Entry(s.getTimeseriesId(), s.partition.getId()));
+					}
+					if (s.newestTime > 0) {
+						latestTimes.merge(s.getTimeseriesId(), s.newestTime, Math::max);
+					}
+					if (!LatestTimestampCache.covers(s.partition.getId())) {
+						uncached.add(s.getTimeseriesId());
+					}
+				}
+				// Everything of this batch is in the database now, drop it from the persistence context,
+				// unless walked batches still refer to it
+				em.flush();
+				if (walked.isEmpty()) {
+					em.clear();
+				}
+			}
+			LOG.debug("committing");
+			em.getTransaction().commit();
+			publish(options, created, latestTimes, uncached);
+		} catch (Exception e) {
+			invalidate(options, touched, touchedIds);
+			throw JPAException.unnest(e);
+		} finally {
+			if (em.getTransaction().isActive()) {
+				em.getTransaction().rollback();
+			}
+			em.clear();
+			if (em.isOpen())
+				em.close();
+			if (locks != null) {
+				locks.close();
+			}
+		}
+	}
+
+	/**
+	 * Only after commit the new timeseries and latest values are visible to others
+	 *
+	 * @param uncached timeseries whose latest timestamps are not cached
+	 */
+	private static void publish(PushOptions options, Map<Key, TimeSeriesRegistry.Entry> created,
+			Map<Long, Long> latestTimes, Set<Long> uncached) {
+		TimeSeriesRegistry registry = options.getTimeSeriesRegistry();
+		if (registry != null) {
+			created.forEach((key, entry) -> registry.put(key, entry.timeseriesId(), entry.partitionId()));
+		}
+		LatestTimestampCache latestCache = options.getLatestCache();
+		if (latestCache != null) {
+			latestTimes.forEach((id, time) -> {
+				if (!uncached.contains(id)) {
+					latestCache.putIfNewer(id, time);
+				}
+			});
+		}
+	}
+
+	/** A cached timeseries may have been removed in the meantime, do not trust any of them */
+	private static void invalidate(PushOptions options, Collection<Key> touched, Collection<Long> touchedIds) {
+		TimeSeriesRegistry registry = options.getTimeSeriesRegistry();
+		if (registry != null) {
+			touched.forEach(registry::invalidate);
+		}
+		LatestTimestampCache latestCache = options.getLatestCache();
+		if (latestCache != null) {
+			touchedIds.forEach(latestCache::invalidate);
+		}
+	}
+
+	/**
+	 * Columnar variant of {@link #pushRecords(EntityManager, String, DataMapDto, PushOptions)}.
+	 *
+	 * <p>
+	 * Timestamps and values are written straight from the arrays of the DTO,
+	 * no record or entity is created per measurement. Timestamps of each
+	 * series must be strictly ascending, so the records newer than the latest
+	 * one are just the tail of the series. Everything is written within a
+	 * single transaction.
+	 * </p>
+	 *
+	 * @param dto     series of records, with provenance
+	 * @param options see {@link PushOptions}, copyHistory does not apply
+	 */
+	public static void pushColumns(EntityManager em, String stationType, ColumnarRecordsDto dto, PushOptions options) {
+		Log log = new Log(LOG, "pushColumns");
+		Map<Key, Series> seriesByKey = new LinkedHashMap<>();
+		Map<Key, ColumnarRecordsDto.Series> columnsByKey = new HashMap<>();
+		Map<Long, Long> latestTimes = new HashMap<>();
+		TimeSeriesLocks.Holder locks = options.getTimeSeriesLocks() == null ? null : options.getTimeSeriesLocks().holder();
 		try {
-			Provenance provenance = Provenance.findByUuid(em, dataMap.getProvenance());
+			em.getTransaction().begin();
+			Provenance provenance = Provenance.findByUuid(em, dto.getProvenance());
 			if (provenance == null) {
-				throw new JPAException(String.format("Provenance with UUID %s not found", dataMap.getProvenance()));
+				throw new JPAException(String.format("Provenance with UUID %s not found", dto.getProvenance()));
 			}
 			log.setProvenance(provenance);
 
-			LOG.debug("Loading stations");
-			// Preload all the stations, types, latest etc. so we don't have to query for every record
-			var stations = Station.findStationsByCodes(em, stationType, dataMap.getBranch().keySet())
+			var stations = Station.findStationsByCodes(em, stationType, dto.getSeries().stream()
+					.map(ColumnarRecordsDto.Series::getStation)
+					.collect(Collectors.toSet()))
 				.stream()
 				.collect(Collectors.toMap(Station::getStationcode, Function.identity()));
+			var types = findTypes(em, options, dto.getSeries().stream()
+					.map(ColumnarRecordsDto.Series::getType)
+					.collect(Collectors.toSet()));
 
-			var typeNames = dataMap.getBranch().values()
-				.stream()
-				.flatMap(s -> s.getBranch().keySet().stream())
-				.distinct()
-				.collect(Collectors.toSet());
-			
-			LOG.debug("Loading types");
-			var types = DataType.findByCnames(em, typeNames)
-				.stream()
-				.collect(Collectors.toMap(DataType::getCname, Function.identity()));
-			
-			LOG.debug("Loading latest");
-			// tree stationcode/type.cname/period/table
-			var measurements = MeasurementAbstract.findLatest(em, stations.values(), types.values())
-				.stream()
-				.collect(Collectors.groupingBy(
-					l -> l.getTimeseries().station.stationcode,
-					Collectors.groupingBy(
-						l -> l.getTimeseries().getType().getCname(),
-						Collectors.groupingBy(
-							l -> l.getTimeseries().getPeriod(),
-							Collectors.toMap(
-								l -> l.getTimeseries().getValueTable(),
-								Function.identity()
-							)
-						)
-					)
-				));
-
-			LOG.debug("Loading timeseries");
-			// tree stationcode/type.cname/period/table
-			var timeseriesTree = TimeSeries.findByStationsAndTypes(em, stations.values(), types.values())
-				.stream()
-				.collect(Collectors.groupingBy(
-					ts -> ts.station.stationcode,
-					Collectors.groupingBy(
-						ts -> ts.getType().getCname(),
-						Collectors.groupingBy(
-							ts -> ts.getPeriod(),
-							Collectors.toMap(
-								ts -> ts.getValueTable(),
-								Function.identity()
-							)
-						)
-					)
-				));
-
-			var skippedDataTypes = new HashSet<String>();
-			int skippedCount = 0;
-			List<Series> allSeries = new ArrayList<>();
-			
-			LOG.debug("Loaded all stations, types, latest. Now walking tree");
-
-			for (var stationBranch : dataMap.getBranch().entrySet()) {
-				Station station = stations.get((String)stationBranch.getKey());
+			for (ColumnarRecordsDto.Series columns : dto.getSeries()) {
+				if (columns.size() == 0) {
+					continue;
+				}
+				Station station = stations.get(columns.getStation());
 				if (station == null) {
-					log.warn(String.format("Station '%s/%s' not found. Skipping...", stationType,
-							stationBranch.getKey()));
+					log.warn(String.format("Station '%s/%s' not found. Skipping...", stationType, columns.getStation()));
 					continue;
 				}
-				for (var typeBranch : stationBranch.getValue().getBranch().entrySet()) {
-					DataType type = types.get(typeBranch.getKey());
-					if (type == null) {
-						log.warn(String.format("Type '%s' not found. Skipping...", typeBranch.getKey()));
-						continue;
-					}
-					var dataRecords = typeBranch.getValue().getData();
-					if (dataRecords.isEmpty()) {
-						log.warn("Empty data set. Skipping...");
-						continue;
-					}
-
-					// group records by datatype / period and sort by timestamp
-					// grouping to handle mixed value types (e.g. string/double) and periods within
-					// the same type
-					// timestamp sort to discard duplicate timestamps (because we compare against
-					// the running latest)
-					List<RecordBurrito> simpleRecords = dataRecords.stream()
-							.map((r) -> new RecordBurrito((SimpleRecordDto) r))
-							.peek(r -> {
-								if (r.getTable() == null || r.getPeriod() == null || r.getTimestamp() == null){
-									throw new IllegalStateException("Null field or invalid data type in Record: " + r);
-								}
-							})
-							.sorted(Comparator.comparing(RecordBurrito::getTable)
-									.thenComparing(RecordBurrito::getPeriod)
-									.thenComparing(RecordBurrito::getTimestamp))
-							.toList();
-
-					Series series = new Series(em, provenance, station, type, null, null);
-
-					for (RecordBurrito record : simpleRecords) {
-						// Since we've sorted before looping, if a record doesn't fit the current timeseries, we move on to the next one
-						if (!series.fits(station, type, record.getPeriod(), record.getTable())) {
-							// check if latest record (and timeseries) exists, or we create a new one
-							MeasurementAbstract latest = Optional.ofNullable(measurements)
-									.map(m -> m.get(station.stationcode))
-									.map(m -> m.get(type.getCname()))
-									.map(m -> m.get(record.getPeriod()))
-									.map(m -> m.get(record.getTable()))
-									.orElse(null);
-							if (latest != null) {
-								series = new Series(provenance, latest);
-							} else {
-								TimeSeries existingTs = Optional.ofNullable(timeseriesTree)
-										.map(m -> m.get(station.stationcode))
-										.map(m -> m.get(type.getCname()))
-										.map(m -> m.get(record.getPeriod()))
-										.map(m -> m.get(record.getTable()))
-										.orElse(null);
-								if (existingTs != null) {
-									series = new Series(provenance, existingTs);
-								} else {
-									series = new Series(em, provenance, station, type, record.getPeriod(), record.getTable());
-								}
-							}
-							if (record.getTable() != null) {
-								allSeries.add(series);
-							}
-						}
-
-						series.addHistory(record);
-
-						if (series.skippedCount > 0) {
-							skippedDataTypes.add(type.getCname());
-							skippedCount += series.skippedCount;
-						}
-					}
+				DataType type = types.get(columns.getType());
+				if (type == null) {
+					log.warn(String.format("Type '%s' not found. Skipping...", columns.getType()));
+					continue;
+				}
+				if (!columns.isAscending()) {
+					throw new JPAException(String.format("Timestamps of series %s/%s/%d must be strictly ascending",
+						columns.getStation(), columns.getType(), columns.getPeriod()));
 				}
+				Key key = new Key(station.getId(), type.getId(), columns.getPeriod(), valueTable(columns.getKind()));
+				if (columnsByKey.put(key, columns) != null) {
+					throw new JPAException(String.format("Series %s/%s/%d must not be given more than once",
+						columns.getStation(), columns.getType(), columns.getPeriod()));
+				}
+				seriesByKey.put(key, new Series(provenance, station, type, key));
 			}
 
-			if (skippedCount > 0) {
-				log.warn(String.format("Skipped %d records due to timestamp for type: [%s, (%s)]", skippedCount,
-						stationType, String.join(", ", skippedDataTypes)));
-			}
-			
-			// Performance optimizations to leverage hibernate batch operations
-			// For that we do all the inserts and updates grouped
-			
-			// Sort the timeseries per table, because hibernate only batches per table
-			allSeries = allSeries.stream()
-				.filter(s -> !s.getMeasures().isEmpty())
-				.sorted((l, r) -> l.getTable().compareTo(r.getTable())).toList();
-			
-			LOG.debug("Starting insert");
+			resolveTimeSeries(em, seriesByKey.values(), options.getTimeSeriesRegistry(), options.getPartitionRules());
+			if (locks != null) {
+				locks.lock(seriesByKey.values().stream().map(Series::getTimeseriesId).toList());
+			}
+			loadLatestTimes(em, seriesByKey.values(), latestTimes, options.getLatestCache());
 
-			em.getTransaction().begin();
+			Map<ValueTable, List<MeasurementAbstractHistory.Columns>> history = new EnumMap<>(ValueTable.class);
+			int skippedCount = 0;
+			for (Series s : seriesByKey.values()) {
+				ColumnarRecordsDto.Series columns = columnsByKey.get(s.key);
+				long[] timestamps = columns.getTimestamps();
+				int size = columns.size();
+				int newer = firstAfter(timestamps, size, s.newestTime);
+				// Backfilled records may already exist, the history ignores them
+				int from = options.isBackfill() ? 0 : newer;
+				skippedCount += from;
+				if (from < size) {
+					history.computeIfAbsent(s.key.table(), t -> new ArrayList<>())
+						.add(new MeasurementAbstractHistory.Columns(s.getTimeseriesId(), s.partition.getId(), timestamps,
+							columns.getKind() == ColumnarRecordsDto.Kind.NUMBER ? columns.getNumbers() : columns.getTexts(),
+							from, size));
+				}
+				if (newer < size) {
+					s.updateNewest(new SimpleRecordDto(timestamps[size - 1], latestValue(columns, size - 1), columns.getPeriod()));
+				}
+			}
+			if (skippedCount > 0) {
+				log.warn(String.format("Skipped %d records due to timestamp for station type %s", skippedCount, stationType));
+			}
 
-			allSeries.stream()
-				.map(s -> s.timeseries)
-				.filter(t -> t.id == null)
-				.forEach(t -> em.persist(t));
-			
-			allSeries.stream()
-				.flatMap(s -> s.measures.stream())
-				.forEach(m -> em.persist(m));
-			
-			LOG.debug("updating latest");
-			for (Series s : allSeries) {
-				s.updateLatest(em);
+			for (var entry : history.entrySet()) {
+				int inserted = MeasurementAbstractHistory.insertColumns(em, entry.getKey(), provenance, entry.getValue(),
+					options.isBackfill());
+				LOG.debug("Inserted {} records into {}history", inserted, entry.getKey().table);
+			}
+			for (ValueTable table : ValueTable.values()) {
+				MeasurementAbstract.upsertLatest(em, table, provenance, seriesByKey.values().stream()
+					.filter(s -> s.key.table() == table)
+					.map(Series::getLatestValue)
+					.filter(Objects::nonNull)
+					.toList());
 			}
-			LOG.debug("committing");
 
+			LOG.debug("committing");
 			em.getTransaction().commit();
+			Map<Key, TimeSeriesRegistry.Entry> created = new HashMap<>();
+			Set<Long> uncached = new HashSet<>();
+			for (Series s : seriesByKey.values()) {
+				if (s.isNew || s.isUnregistered) {
+					created.put(s.key, new TimeSeriesRegistry.Entry(s.getTimeseriesId(), s.partition.getId()));
+				}
+				if (s.newestTime > 0) {
+					latestTimes.merge(s.getTimeseriesId(), s.newestTime, Math::max);
+				}
+				if (!LatestTimestampCache.covers(s.partition.getId())) {
+					uncached.add(s.getTimeseriesId());
+				}
+			}
+			publish(options, created, latestTimes, uncached);
 		} catch (Exception e) {
+			invalidate(options, seriesByKey.keySet(), seriesByKey.values().stream()
+				.filter(s -> !s.isNew && s.getTimeseriesId() != null)
+				.map(Series::getTimeseriesId)
+				.toList());
 			throw JPAException.unnest(e);
 		} finally {
 			if (em.getTransaction().isActive()) {
@@ -575,72 +845,487 @@ public class TimeSeries {
 			em.clear();
 			if (em.isOpen())
 				em.close();
+			if (locks != null) {
+				locks.close();
+			}
 		}
 	}
 
-	private MeasurementAbstractHistory newHistoryRecord(Object value, Date timestamp) {
-		try {
-			MeasurementAbstractHistory rec = value_table.historyClass.getDeclaredConstructor().newInstance();
-			rec.setTimeseries(this);
-			rec.setPartition(partition);
-			rec.setValue(value);
-			rec.setTimestamp(timestamp);
-			return rec;
-		} catch (Exception e) {
-			throw new RuntimeException(e);
+	private static ValueTable valueTable(ColumnarRecordsDto.Kind kind) {
+		switch (kind) {
+			case NUMBER:
+				return ValueTable.NUMBER;
+			case STRING:
+				return ValueTable.STRING;
+			default:
+				return ValueTable.JSON;
+		}
+	}
+
+	/** @return index of the first of the ascending {@code timestamps} that is after {@code time} */
+	private static int firstAfter(long[] timestamps, int size, long time) {
+		int low = 0;
+		int high = size;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (timestamps[mid] <= time) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	/** Only the latest value of each series gets turned into an object */
+	private static Object latestValue(ColumnarRecordsDto.Series columns, int index) {
+		switch (columns.getKind()) {
+			case NUMBER:
+				return columns.getNumbers()[index];
+			case JSON:
+				return new RawJsonValue(columns.getTexts()[index]);
+			default:
+				return columns.getTexts()[index];
+		}
+	}
+
+	/** Series with their new records, ready to be written */
+	private record PreparedBatch(Provenance provenance, List<Series> series) {}
+
+	/** Series with all their records, not compared to the latest ones yet */
+	private record WalkedBatch(Provenance provenance, Map<Key, Series> series, Map<Key, List<RecordBurrito>> records,
+			ForkJoinPool pool) {}
+
+	/**
+	 * Walk the data tree and resolve all references, including the timeseries,
+	 * without writing anything but new timeseries
+	 */
+	private static WalkedBatch walkBatch(EntityManager em, Log log, String stationType,
+			DataMapDto<RecordDtoImpl> dataMap, PushOptions options) throws Exception {
+		Provenance provenance = Provenance.findByUuid(em, dataMap.getProvenance());
+		if (provenance == null) {
+			throw new JPAException(String.format("Provenance with UUID %s not found", dataMap.getProvenance()));
+		}
+		log.setProvenance(provenance);
+
+		LOG.debug("Loading stations");
+		// Preload all the stations, types, latest etc. so we don't have to query for every record
+		var stations = Station.findStationsByCodes(em, stationType, dataMap.getBranch().keySet())
+			.stream()
+			.collect(Collectors.toMap(Station::getStationcode, Function.identity()));
+
+		var typeNames = dataMap.getBranch().values()
+			.stream()
+			.flatMap(s -> s.getBranch().keySet().stream())
+			.distinct()
+			.collect(Collectors.toSet());
+		
+		LOG.debug("Loading types");
+		var types = findTypes(em, options, typeNames);
+
+		LOG.debug("Loaded all stations and types. Now walking tree");
+
+		// group records by timeseries (station, type, period, value table)
+		// grouping to handle mixed value types (e.g. string/double) and periods within
+		// the same type
+		Map<Key, Series> seriesByKey = new LinkedHashMap<>();
+		Map<Key, List<RecordBurrito>> recordsByKey = new HashMap<>();
+
+		// Branches of different stations never share a timeseries, so they are walked independently
+		ForkJoinPool pool = walkPool(options, dataMap);
+		var stationBranches = new ArrayList<>(dataMap.getBranch().entrySet());
+		List<StationWalk> walks = onPool(pool, () -> stream(stationBranches, pool)
+			.map(branch -> walkStation(log, stationType, provenance, stations.get(branch.getKey()), branch, types))
+			.toList());
+		for (StationWalk walk : walks) {
+			seriesByKey.putAll(walk.series());
+			recordsByKey.putAll(walk.records());
+		}
+
+		LOG.debug("Resolving timeseries");
+		resolveTimeSeries(em, seriesByKey.values(), options.getTimeSeriesRegistry(), options.getPartitionRules());
+
+		return new WalkedBatch(provenance, seriesByKey, recordsByKey, pool);
+	}
+
+	/**
+	 * Lock the timeseries of a walked batch and collect the records to be
+	 * written, without writing anything yet
+	 */
+	private static PreparedBatch prepareBatch(EntityManager em, Log log, String stationType, WalkedBatch walked,
+			PushOptions options, Map<Long, Long> latestTimes, Map<Long, Long> startTimes,
+			TimeSeriesLocks.Holder locks) throws Exception {
+		Map<Key, Series> seriesByKey = walked.series();
+		Map<Key, List<RecordBurrito>> recordsByKey = walked.records();
+		ForkJoinPool pool = walked.pool();
+		log.setProvenance(walked.provenance());
+
+		if (locks != null) {
+			// Before reading the latest timestamps, so that they cannot change until we have written.
+			// Held until the transaction ends, that is, until others can see what we wrote.
+			locks.lock(seriesByKey.values().stream().map(Series::getTimeseriesId).toList());
+		}
+
+		LOG.debug("Loading latest");
+		loadLatestTimes(em, seriesByKey.values(), latestTimes, options.getLatestCache());
+
+		List<Series> allSeries = new ArrayList<>(seriesByKey.values());
+		for (Series series : allSeries) {
+			series.startTime = startTimes.computeIfAbsent(series.getTimeseriesId(), id -> series.newestTime);
+		}
+		onPool(pool, () -> {
+			stream(allSeries, pool).forEach(series -> {
+				// timestamp sort to discard duplicate timestamps (because we compare against
+				// the running latest)
+				List<RecordBurrito> records = recordsByKey.get(series.key);
+				records.sort(Comparator.comparing(RecordBurrito::getTimestamp));
+				for (RecordBurrito record : records) {
+					series.addHistory(record.getDto(), options.isBackfill());
+				}
+			});
+			return null;
+		});
+
+		var skippedDataTypes = new HashSet<String>();
+		int skippedCount = 0;
+		for (Series series : allSeries) {
+			if (series.skippedCount > 0) {
+				skippedDataTypes.add(series.type.getCname());
+				skippedCount += series.skippedCount;
+			}
+		}
+
+		if (skippedCount > 0) {
+			log.warn(String.format("Skipped %d records due to timestamp for type: [%s, (%s)]", skippedCount,
+					stationType, String.join(", ", skippedDataTypes)));
+		}
+		
+		return new PreparedBatch(walked.provenance(), allSeries);
+	}
+
+	/**
+	 * @return types by name, from {@link PushOptions#getTypeCatalog()} if
+	 *         there is one. Unknown names are not part of the result
+	 */
+	private static Map<String, DataType> findTypes(EntityManager em, PushOptions options, Set<String> typeNames) {
+		if (options.getTypeCatalog() != null) {
+			return options.getTypeCatalog().resolve(em, typeNames);
+		}
+		return DataType.findByCnames(em, typeNames)
+			.stream()
+			.collect(Collectors.toMap(DataType::getCname, Function.identity()));
+	}
+
+	/** Timeseries and records of a single station branch */
+	private record StationWalk(Map<Key, Series> series, Map<Key, List<RecordBurrito>> records) {}
+
+	/**
+	 * Group the records of a station branch by timeseries. Touches nothing but
+	 * the branch itself, so branches can be walked concurrently.
+	 *
+	 * @param station null if the station does not exist, the branch gets skipped
+	 */
+	private static StationWalk walkStation(Log log, String stationType, Provenance provenance, Station station,
+			Map.Entry<String, DataMapDto<RecordDtoImpl>> stationBranch, Map<String, DataType> types) {
+		StationWalk walk = new StationWalk(new LinkedHashMap<>(), new HashMap<>());
+		if (station == null) {
+			log.warn(String.format("Station '%s/%s' not found. Skipping...", stationType,
+					stationBranch.getKey()));
+			return walk;
+		}
+		for (var typeBranch : stationBranch.getValue().getBranch().entrySet()) {
+			DataType type = types.get(typeBranch.getKey());
+			if (type == null) {
+				log.warn(String.format("Type '%s' not found. Skipping...", typeBranch.getKey()));
+				continue;
+			}
+			var dataRecords = typeBranch.getValue().getData();
+			if (dataRecords.isEmpty()) {
+				log.warn("Empty data set. Skipping...");
+				continue;
+			}
+			for (RecordDtoImpl dto : dataRecords) {
+				RecordBurrito record = new RecordBurrito((SimpleRecordDto) dto);
+				if (record.getTable() == null || record.getPeriod() == null || record.getTimestamp() == null){
+					throw new IllegalStateException("Null field or invalid data type in Record: " + record);
+				}
+				Key key = new Key(station.getId(), type.getId(), record.getPeriod(), record.getTable());
+				walk.series().computeIfAbsent(key, k -> new Series(provenance, station, type, k));
+				walk.records().computeIfAbsent(key, k -> new ArrayList<>()).add(record);
+			}
+		}
+		return walk;
+	}
+
+	/**
+	 * @return pool to prepare {@code dataMap} on, or null if it is too small to
+	 *         be worth it, see {@link PushOptions#getParallelWalkThreshold()}
+	 */
+	private static ForkJoinPool walkPool(PushOptions options, DataMapDto<RecordDtoImpl> dataMap) {
+		int threshold = options.getParallelWalkThreshold();
+		if (options.getWalkPool() == null || threshold <= 0) {
+			return null;
 		}
+		long records = 0;
+		for (var stationBranch : dataMap.getBranch().values()) {
+			for (var typeBranch : stationBranch.getBranch().values()) {
+				records += typeBranch.getData().size();
+				if (records >= threshold) {
+					return options.getWalkPool();
+				}
+			}
+		}
+		return null;
 	}
 
-	private MeasurementAbstract newLatestRecord(Object value, Date timestamp) {
+	/**
+	 * Run {@code task} within {@code pool}, so that parallel streams of the task
+	 * use its threads, or on the calling thread if there is no pool
+	 */
+	private static <T> T onPool(ForkJoinPool pool, Callable<T> task) throws Exception {
+		if (pool == null) {
+			return task.call();
+		}
 		try {
-			MeasurementAbstract rec = value_table.latestClass.getDeclaredConstructor().newInstance();
-			rec.setTimeseries(this);
-			rec.setValue(value);
-			rec.setTimestamp(timestamp);
-			return rec;
-		} catch (Exception e) {
-			throw new RuntimeException(e);
+			return pool.submit(task).get();
+		} catch (ExecutionException e) {
+			throw e.getCause() instanceof Exception cause ? cause : e;
 		}
 	}
 
+	private static <T> Stream<T> stream(Collection<T> items, ForkJoinPool pool) {
+		return pool == null ? items.stream() : items.parallelStream();
+	}
+
+	/**
+	 * Set the latest timestamp of all existing {@code series}. Look at what
+	 * this push has already written first, then at the cache, if it covers
+	 * the partition of the series, and only ask the database for the rest.
+	 */
+	private static void loadLatestTimes(EntityManager em, Collection<Series> series, Map<Long, Long> latestTimes,
+			LatestTimestampCache cache) {
+		Map<ValueTable, Map<Long, Series>> missing = new EnumMap<>(ValueTable.class);
+		for (Series s : series) {
+			if (s.isNew) {
+				continue;
+			}
+			Long id = s.getTimeseriesId();
+			Long known = latestTimes.get(id);
+			if (known == null && cache != null && LatestTimestampCache.covers(s.partition.getId())) {
+				long cached = cache.get(id);
+				known = cached == LatestTimestampCache.MISSING ? null : cached;
+			}
+			if (known != null) {
+				s.newestTime = known;
+			} else {
+				missing.computeIfAbsent(s.key.table(), t -> new HashMap<>()).put(id, s);
+			}
+		}
+		for (var entry : missing.entrySet()) {
+			LOG.debug("Loading {} latest timestamps from {}", entry.getValue().size(), entry.getKey().table);
+			MeasurementAbstract.findLatestTimestamps(em, entry.getKey(), entry.getValue().keySet())
+				.forEach((id, time) -> entry.getValue().get(id).newestTime = time);
+		}
+	}
+
+	/**
+	 * Find the timeseries of all {@code series}. Ask the registry first, then
+	 * the database. Timeseries that do not exist yet get created right away,
+	 * all of them with a single statement.
+	 */
+	private static void resolveTimeSeries(EntityManager em, Collection<Series> series, TimeSeriesRegistry registry,
+			PartitionRules rules) {
+		Map<Key, Series> missing = new HashMap<>();
+		for (Series s : series) {
+			TimeSeriesRegistry.Entry cached = registry == null ? null : registry.get(s.key);
+			if (cached != null) {
+				s.useReference(em, cached.timeseriesId(), cached.partitionId());
+			} else {
+				missing.put(s.key, s);
+			}
+		}
+		if (missing.isEmpty()) {
+			return;
+		}
+
+		LOG.debug("Loading {} timeseries", missing.size());
+		useExisting(em, findIds(em, missing.keySet()), missing);
+		if (missing.isEmpty()) {
+			return;
+		}
+
+		LOG.debug("Creating {} timeseries", missing.size());
+		Map<Key, Long> partitions = new HashMap<>();
+		for (Series s : missing.values()) {
+			partitions.put(s.key, s.findPartition(em, rules).getId());
+		}
+		insertMissing(em, partitions).forEach((key, entry) -> {
+			Series s = missing.remove(key);
+			s.useReference(em, entry.timeseriesId(), entry.partitionId());
+			s.isNew = true;
+		});
+		if (!missing.isEmpty()) {
+			// Created by a concurrent push in the meantime, which is visible only to a new statement
+			useExisting(em, findIds(em, missing.keySet()), missing);
+		}
+		if (!missing.isEmpty()) {
+			throw new JPAException("Unable to create timeseries " + missing.keySet());
+		}
+	}
+
+	/**
+	 * Timeseries found by {@link #findIds} may have been inserted by an
+	 * earlier batch of the same transaction. They go to the registry only
+	 * after commit, like the ones created by this push.
+	 */
+	private static void useExisting(EntityManager em, Map<Key, TimeSeriesRegistry.Entry> existing,
+			Map<Key, Series> missing) {
+		existing.forEach((key, entry) -> {
+			Series s = missing.remove(key);
+			s.useReference(em, entry.timeseriesId(), entry.partitionId());
+			s.isUnregistered = true;
+		});
+	}
+
+	private static void writeBatch(EntityManager em, PreparedBatch batch, PushOptions options) {
+		Provenance provenance = batch.provenance();
+
+		// Performance optimizations to leverage hibernate batch operations
+		// For that we do all the inserts and updates grouped
+
+		// Sort the timeseries per table, because hibernate only batches per table.
+		// Within a table, write them in id order, so that concurrent pushes lock rows in the same order.
+		List<Series> allSeries = batch.series().stream()
+			.filter(s -> !s.getMeasures().isEmpty())
+			.sorted(Comparator.comparing(Series::getTable).thenComparing(Series::getTimeseriesId))
+			.toList();
+
+		LOG.debug("Starting insert");
+
+		// Backfilled records, and late records of a streamed push, may already exist,
+		// let the database sort them out
+		List<Series> overlapping = allSeries.stream()
+			.filter(s -> options.isBackfill() || s.overlapsPush)
+			.toList();
+		List<Series> fresh = allSeries.stream()
+			.filter(s -> !options.isBackfill() && !s.overlapsPush)
+			.toList();
+		for (ValueTable table : ValueTable.values()) {
+			List<MeasurementAbstractHistory> measures = overlapping.stream()
+				.filter(s -> s.key.table() == table)
+				.flatMap(s -> s.measures.stream())
+				.toList();
+			if (!measures.isEmpty()) {
+				int inserted = MeasurementAbstractHistory.insertIgnoreExisting(em, table, measures);
+				LOG.debug("Inserted {} possibly existing records into {}history", inserted, table.table);
+			}
+		}
+		if (options.isCopyHistory()) {
+			for (ValueTable table : ValueTable.values()) {
+				MeasurementCopyWriter.copy(em, table, fresh.stream()
+					.filter(s -> s.key.table() == table)
+					.flatMap(s -> s.measures.stream())
+					.toList());
+			}
+		} else {
+			// Pushed JSON values are raw text, which only the SQL insert writes as it is
+			List<MeasurementAbstractHistory> json = fresh.stream()
+				.filter(s -> s.key.table() == ValueTable.JSON)
+				.flatMap(s -> s.measures.stream())
+				.toList();
+			if (!json.isEmpty()) {
+				MeasurementAbstractHistory.insert(em, ValueTable.JSON, json, false);
+			}
+			fresh.stream()
+				.filter(s -> s.key.table() != ValueTable.JSON)
+				.flatMap(s -> s.measures.stream())
+				.forEach(m -> em.persist(m));
+		}
+		
+		LOG.debug("updating latest");
+		// Latest upsert is plain SQL, make sure hibernate has written everything it depends on
+		em.flush();
+		for (ValueTable table : ValueTable.values()) {
+			MeasurementAbstract.upsertLatest(em, table, provenance, allSeries.stream()
+				.filter(s -> s.key.table() == table)
+				.map(Series::getLatestValue)
+				.filter(Objects::nonNull)
+				.toList());
+		}
+	}
+
+	/** Natural key of a timeseries, see the unique constraint of this table */
+	public record Key(Long stationId, Long typeId, Integer period, ValueTable table) {}
+
+	public Key getKey() {
+		return new Key(station.getId(), type.getId(), period, value_table);
+	}
+
+	/**
+	 * Records of a single timeseries within a push.
+	 *
+	 * Timeseries are only lazy references (see {@link TimeSeriesRegistry} and
+	 * {@link TimeSeries#insertMissing}), so everything we need to know about
+	 * them is kept here and the timeseries entity itself is never touched.
+	 */
 	private static class Series {
 		public int skippedCount = 0;
 
-		private MeasurementAbstract latest;
+		private final Key key;
+		private final Station station;
+		private final DataType type;
+		private final Provenance provenance;
+
+		private TimeSeries timeseries;
+		private Long timeseriesId;
+		private Partition partition;
+		/** Created by this push */
+		private boolean isNew = false;
+		/** Found in the database instead of the registry, maybe created by an earlier batch of this push */
+		private boolean isUnregistered = false;
+
 		private long newestTime;
+		/** Latest timestamp before the push, older records are outdated even within a streamed push */
+		private long startTime = Long.MAX_VALUE;
+		/** Has records that previous batches of the same push may have written already */
+		private boolean overlapsPush = false;
+		private long lastAddedTime = Long.MIN_VALUE;
 		private RecordDtoImpl newest;
-		private TimeSeries timeseries;
-		private Provenance provenance;
-		
-		public String getTable(){
-			return timeseries.value_table.name();
+
+		private List<MeasurementAbstractHistory> measures = new ArrayList<>();
+
+		public Series(Provenance provenance, Station station, DataType type, Key key) {
+			this.provenance = provenance;
+			this.station = station;
+			this.type = type;
+			this.key = key;
 		}
 
-		public boolean fits(Station station, DataType type, Integer period, ValueTable table) {
-			return station.getId().equals(timeseries.station.getId()) 
-				&& type.getId().equals(timeseries.getType().getId()) 
-				&& period.equals(timeseries.period)
-				&& table.equals(timeseries.getValueTable());
+		public String getTable(){
+			return key.table().name();
 		}
 
-		public Series(Provenance provenance, MeasurementAbstract latest) {
-			this.provenance = provenance;
-			timeseries = latest.getTimeseries();
-			this.latest = latest;
-			newestTime = latest.getTimestamp().getTime();
-			newest = null;
+		/** Timeseries are never loaded, we only need a reference to them */
+		public void useReference(EntityManager em, Long timeseriesId, Long partitionId) {
+			this.timeseries = em.getReference(TimeSeries.class, timeseriesId);
+			this.timeseriesId = timeseriesId;
+			this.partition = em.getReference(Partition.class, partitionId);
 		}
 
-		public Series(Provenance provenance, TimeSeries timeseries) {
-			this.provenance = provenance;
-			this.timeseries = timeseries;
+		/**
+		 * @param rules in-memory partition rules, null to ask the database
+		 * @return partition a new timeseries of this series belongs to
+		 */
+		public Partition findPartition(EntityManager em, PartitionRules rules) {
+			if (rules != null) {
+				return rules.findPartition(em, station.getOrigin(), station.getStationtype(), type, key.period());
+			}
+			var part = PartitionDef.findPartition(em, station.getOrigin(), station.getStationtype(), type, key.period());
+			return part != null ? part : Partition.getDefault(em);
 		}
 
-		public Series(EntityManager em, Provenance provenance, Station station, DataType type, Integer period, ValueTable table) {
-			this.provenance = provenance;
-			timeseries = new TimeSeries(station, type, period, table);
-			var part = PartitionDef.findPartition(em, station.getOrigin(), station.getStationtype(), type, period);
-			timeseries.setPartition(part != null ? part : Partition.getDefault(em));
+		public Long getTimeseriesId() {
+			return timeseriesId;
 		}
 
 		private void updateNewest(RecordDtoImpl dto) {
@@ -649,28 +1334,44 @@ public class TimeSeries {
 				newestTime = newest.getTimestamp();
 			}
 		}
-		
-		private List<MeasurementAbstractHistory> measures = new ArrayList<>();
 
-		public void addHistory(SimpleRecordDto dto) throws Exception {
+		/**
+		 * @param backfill also keep records older than the latest one. They only
+		 *                 go to the history, which ignores already existing entries
+		 */
+		public void addHistory(SimpleRecordDto dto, boolean backfill) {
 			// In case of duplicates within a single push, which one is written and which
 			// one is discarded, is undefined (depends on the record sorting above)
-			if (newestTime >= dto.getTimestamp()) {
+			boolean outdated = newestTime >= dto.getTimestamp();
+			// Older than what a previous batch of this push wrote, but still new to the database
+			boolean late = outdated && startTime < dto.getTimestamp();
+			if (outdated && (!(backfill || late) || lastAddedTime == dto.getTimestamp())) {
 				LOG.debug(String.format("Skipping record due to timestamp: [%s, %s, %s, %d, %d]",
-						timeseries.station.stationtype, timeseries.station.stationcode, timeseries.type.getCname(),
-						timeseries.period, dto.getTimestamp()));
-				skippedCount++;
-			} else if (timeseries.getValueTable() == null) {
-				LOG.debug(String.format("Skipping record due to unknown value type: [%s, %s, %s, %d, %d, %s]",
-						timeseries.station.stationtype, timeseries.station.stationcode, timeseries.type.getCname(),
-						timeseries.period, dto.getTimestamp(), dto.getValue()));
+						station.stationtype, station.stationcode, type.getCname(),
+						key.period(), dto.getTimestamp()));
 				skippedCount++;
 			} else {
-				MeasurementAbstractHistory rec = timeseries.newHistoryRecord(dto.getValue(),
-						new Date(dto.getTimestamp()));
+				MeasurementAbstractHistory rec = newHistoryRecord(dto.getValue(), new Date(dto.getTimestamp()));
 				rec.setProvenance(provenance);
 				measures.add(rec);
-				updateNewest(dto);
+				lastAddedTime = dto.getTimestamp();
+				overlapsPush |= late;
+				if (!outdated) {
+					updateNewest(dto);
+				}
+			}
+		}
+
+		private MeasurementAbstractHistory newHistoryRecord(Object value, Date timestamp) {
+			try {
+				MeasurementAbstractHistory rec = key.table().historyClass.getDeclaredConstructor().newInstance();
+				rec.setTimeseries(timeseries);
+				rec.setPartition(partition);
+				rec.setValue(value);
+				rec.setTimestamp(timestamp);
+				return rec;
+			} catch (Exception e) {
+				throw new RuntimeException(e);
 			}
 		}
 		
@@ -678,19 +1379,12 @@ public class TimeSeries {
 			return measures;
 		}
 
-		private void updateLatest(EntityManager em) {
-			if (newest != null) {
-				if (latest == null) {
-					var measurement = timeseries.newLatestRecord(newest.getValue(), new Date(newest.getTimestamp()));
-					measurement.setProvenance(provenance);
-					em.persist(measurement);
-				} else if (newest.getTimestamp() > latest.getTimestamp().getTime()) {
-					latest.setTimestamp(new Date(newest.getTimestamp()));
-					latest.setValue(newest.getValue());
-					latest.setProvenance(provenance);
-					em.merge(latest);
-				}
+		/** @return the newest record of this push, or null if all records have been skipped */
+		public LatestValue getLatestValue() {
+			if (newest == null) {
+				return null;
 			}
+			return new LatestValue(getTimeseriesId(), newest.getTimestamp(), newest.getValue());
 		}
 	}
 }
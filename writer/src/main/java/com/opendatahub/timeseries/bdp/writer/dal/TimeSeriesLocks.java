@@ -0,0 +1,150 @@
+// Copyright © 2025 NOI Techpark - Südtirol / Alto Adige (info@opendatahub.com)
+//
+// SPDX-License-Identifier: GPL-3.0-only
+
+package com.opendatahub.timeseries.bdp.writer.dal;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.http.HttpStatus;
+
+import com.opendatahub.timeseries.bdp.writer.dal.util.JPAException;
+
+/**
+ * Striped in-process locks on timeseries ids.
+ *
+ * <p>
+ * Concurrent pushes that write the same timeseries update the same latest
+ * rows. Without coordination they wait for each other's row locks inside
+ * the database while holding a connection, and deadlock if they lock in
+ * different order. A push takes the stripes of its timeseries before
+ * writing and keeps them until its transaction ends, so overlapping pushes
+ * queue up here instead, while pushes with disjoint timeseries only share
+ * a stripe by hash collision.
+ * </p>
+ *
+ * <p>
+ * Stripes are always acquired in ascending order, which rules out deadlocks
+ * among pushes that lock once. A streamed push locks again for each batch and
+ * may then need a stripe below one it already holds. It only waits for such a
+ * stripe as long as no one waits for the stripes it holds, since the holder
+ * of the stripe might be one of them. Otherwise it fails at once with 503, to
+ * be retried, and releases its stripes with the rollback. Waiting in order is
+ * bounded by {@code timeoutMillis} as well.
+ * </p>
+ */
+public class TimeSeriesLocks {
+
+	/** How often a push waiting out of order checks, if others wait for it */
+	private static final long OUT_OF_ORDER_POLL_MILLIS = 20;
+
+	private final ReentrantLock[] stripes;
+	private final long timeoutMillis;
+
+	/**
+	 * @param stripeCount number of stripes, 0 to disable locking
+	 * @param timeoutMillis max. time to wait for a single stripe
+	 */
+	public TimeSeriesLocks(int stripeCount, long timeoutMillis) {
+		this.stripes = new ReentrantLock[Math.max(stripeCount, 0)];
+		for (int i = 0; i < stripes.length; i++) {
+			stripes[i] = new ReentrantLock();
+		}
+		this.timeoutMillis = timeoutMillis;
+	}
+
+	/** @return a new, empty set of locks held by a single push */
+	public Holder holder() {
+		return new Holder();
+	}
+
+	int stripeOf(long timeseriesId) {
+		// Fibonacci hashing, ids are sequential and would otherwise cluster
+		long hash = (timeseriesId * 0x9E3779B97F4A7C15L) >>> 32;
+		return (int) (hash % stripes.length);
+	}
+
+	/**
+	 * Stripes held by a single push. Not thread-safe, use it from the thread of
+	 * the push only, since locks are owned by threads.
+	 */
+	public class Holder implements AutoCloseable {
+		private final BitSet held = new BitSet();
+
+		/** Acquire the stripes of all {@code timeseriesIds}, that are not held yet */
+		public void lock(Collection<Long> timeseriesIds) {
+			if (stripes.length == 0) {
+				return;
+			}
+			BitSet wanted = new BitSet(stripes.length);
+			for (Long id : timeseriesIds) {
+				wanted.set(stripeOf(id));
+			}
+			wanted.andNot(held);
+			for (int i = wanted.nextSetBit(0); i >= 0; i = wanted.nextSetBit(i + 1)) {
+				if (held.length() > i) {
+					acquireOutOfOrder(i);
+				} else {
+					acquire(i);
+				}
+				held.set(i);
+			}
+		}
+
+		private void acquire(int stripe) {
+			try {
+				if (stripes[stripe].tryLock(timeoutMillis, TimeUnit.MILLISECONDS)) {
+					return;
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			throw new JPAException("Timeout while waiting for concurrent pushes of the same timeseries, retry later",
+				HttpStatus.SERVICE_UNAVAILABLE.value());
+		}
+
+		/** Acquire a stripe below one that is already held, without risking a deadlock */
+		private void acquireOutOfOrder(int stripe) {
+			long deadline = System.currentTimeMillis() + timeoutMillis;
+			try {
+				while (!stripes[stripe].tryLock(OUT_OF_ORDER_POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+					if (isAwaited()) {
+						throw new JPAException(
+							"Concurrent pushes of the same timeseries lock them in a different order, retry later",
+							HttpStatus.SERVICE_UNAVAILABLE.value());
+					}
+					if (System.currentTimeMillis() >= deadline) {
+						throw new JPAException("Timeout while waiting for concurrent pushes of the same timeseries, retry later",
+							HttpStatus.SERVICE_UNAVAILABLE.value());
+					}
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new JPAException("Interrupted while waiting for concurrent pushes of the same timeseries",
+					HttpStatus.SERVICE_UNAVAILABLE.value());
+			}
+		}
+
+		/** @return true if another push waits for one of the held stripes */
+		private boolean isAwaited() {
+			for (int i = held.nextSetBit(0); i >= 0; i = held.nextSetBit(i + 1)) {
+				if (stripes[i].hasQueuedThreads()) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		/** Release all stripes */
+		@Override
+		public void close() {
+			for (int i = held.nextSetBit(0); i >= 0; i = held.nextSetBit(i + 1)) {
+				stripes[i].unlock();
+			}
+			held.clear();
+		}
+	}
+}
@@ -0,0 +1,76 @@
+// Copyright © 2025 NOI Techpark - Südtirol / Alto Adige (info@opendatahub.com)
+//
+// SPDX-License-Identifier: GPL-3.0-only
+
+package com.opendatahub.timeseries.bdp.writer.dal;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.opendatahub.timeseries.bdp.writer.dal.TimeSeries.Key;
+
+/**
+ * In-memory lookup of timeseries ids by their natural {@link Key}.
+ *
+ * <p>
+ * Timeseries are created once and then never change, so once we know the id
+ * of a (station, type, period, value table) combination, we do not need to
+ * ask the database again. Entries are added lazily, when a timeseries is
+ * loaded or created by {@link TimeSeries#pushRecords}.
+ * </p>
+ *
+ * <p>
+ * The registry is bounded by {@code maxSize}. When it is full, an arbitrary
+ * part of the entries gets evicted, they will simply be loaded again.
+ * </p>
+ */
+public class TimeSeriesRegistry {
+
+	public record Entry(Long timeseriesId, Long partitionId) {}
+
+	/** Fraction of the entries removed, when the registry is full */
+	private static final int EVICTION_DIVISOR = 10;
+
+	private final ConcurrentHashMap<Key, Entry> entries = new ConcurrentHashMap<>();
+	private final int maxSize;
+
+	public TimeSeriesRegistry(int maxSize) {
+		this.maxSize = maxSize;
+	}
+
+	/** @return cached ids of the timeseries, or null if unknown */
+	public Entry get(Key key) {
+		return entries.get(key);
+	}
+
+	public void put(Key key, Long timeseriesId, Long partitionId) {
+		if (maxSize <= 0 || timeseriesId == null || partitionId == null) {
+			return;
+		}
+		if (entries.size() >= maxSize && !entries.containsKey(key)) {
+			evict();
+		}
+		entries.put(key, new Entry(timeseriesId, partitionId));
+	}
+
+	public void invalidate(Key key) {
+		entries.remove(key);
+	}
+
+	public void clear() {
+		entries.clear();
+	}
+
+	public int size() {
+		return entries.size();
+	}
+
+	private void evict() {
+		int toRemove = Math.max(1, maxSize / EVICTION_DIVISOR);
+		Iterator<Key> it = entries.keySet().iterator();
+		while (toRemove-- > 0 && it.hasNext()) {
+			it.next();
+			it.remove();
+		}
+	}
+}
@@ -0,0 +1,44 @@
+// Copyright © 2025 NOI Techpark - Südtirol / Alto Adige (info@opendatahub.com)
+//
+// SPDX-License-Identifier: GPL-3.0-only
+
+package com.opendatahub.timeseries.bdp.writer.dal.util;
+
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Classification of failed writes, by the {@link JPAException} status and
+ * the SQL state of the causes
+ */
+public final class DatabaseErrors {
+
+	/** SQL state classes of lost connections, transaction rollbacks, resource shortages and operator interventions */
+	private static final List<String> TRANSIENT_CLASSES = List.of("08", "40", "53", "57");
+
+	private DatabaseErrors() {
+	}
+
+	/**
+	 * Server side errors and lost connections, deadlocks, serialization failures
+	 * and resource shortages of the database are worth another try
+	 */
+	public static boolean isTransient(Throwable e) {
+		for (Throwable t = e; t != null; t = t.getCause()) {
+			if (t instanceof JPAException jpa && jpa.getExceptionDto().getStatus() != null
+					&& jpa.getExceptionDto().getStatus() >= 500) {
+				return true;
+			}
+			if (t instanceof SQLException sql && sql.getSQLState() != null) {
+				String sqlClass = sql.getSQLState().substring(0, Math.min(2, sql.getSQLState().length()));
+				if (TRANSIENT_CLASSES.contains(sqlClass)) {
+					return true;
+				}
+			}
+			if (t.getCause() == t) {
+				break;
+			}
+		}
+		return false;
+	}
+}
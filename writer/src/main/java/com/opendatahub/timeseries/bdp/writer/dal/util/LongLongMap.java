@@ -0,0 +1,162 @@
+// SPDX-FileCopyrightText: NOI Techpark <digital@noi.bz.it>
+//
+// SPDX-License-Identifier: AGPL-3.0-or-later
+
+package com.opendatahub.timeseries.bdp.writer.dal.util;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing hash map from {@code long} to {@code long}, without boxing.
+ *
+ * Linear probing with backward shift deletion. Not thread-safe.
+ */
+public class LongLongMap {
+
+	private static final long FREE = 0L;
+	private static final int MIN_CAPACITY = 16;
+
+	private long[] keys;
+	private long[] values;
+	private int size;
+	private int mask;
+
+	/** Keys are stored as is, except the free marker, which lives here */
+	private boolean hasFreeKey;
+	private long freeKeyValue;
+
+	public LongLongMap() {
+		this(MIN_CAPACITY);
+	}
+
+	public LongLongMap(int expectedSize) {
+		allocate(capacityFor(expectedSize));
+	}
+
+	/** @return the value of {@code key}, or {@code missing} if there is none */
+	public long get(long key, long missing) {
+		if (key == FREE) {
+			return hasFreeKey ? freeKeyValue : missing;
+		}
+		int i = slot(key);
+		while (keys[i] != FREE) {
+			if (keys[i] == key) {
+				return values[i];
+			}
+			i = (i + 1) & mask;
+		}
+		return missing;
+	}
+
+	public boolean containsKey(long key) {
+		if (key == FREE) {
+			return hasFreeKey;
+		}
+		int i = slot(key);
+		while (keys[i] != FREE) {
+			if (keys[i] == key) {
+				return true;
+			}
+			i = (i + 1) & mask;
+		}
+		return false;
+	}
+
+	public void put(long key, long value) {
+		if (key == FREE) {
+			if (!hasFreeKey) {
+				size++;
+			}
+			hasFreeKey = true;
+			freeKeyValue = value;
+			return;
+		}
+		int i = slot(key);
+		while (keys[i] != FREE) {
+			if (keys[i] == key) {
+				values[i] = value;
+				return;
+			}
+			i = (i + 1) & mask;
+		}
+		keys[i] = key;
+		values[i] = value;
+		if (++size > keys.length / 2) {
+			rehash(keys.length * 2);
+		}
+	}
+
+	public void remove(long key) {
+		if (key == FREE) {
+			if (hasFreeKey) {
+				size--;
+			}
+			hasFreeKey = false;
+			return;
+		}
+		int i = slot(key);
+		while (keys[i] != key) {
+			if (keys[i] == FREE) {
+				return;
+			}
+			i = (i + 1) & mask;
+		}
+		size--;
+		// Shift following entries of the same cluster back, so lookups never hit a hole
+		int gap = i;
+		int j = (i + 1) & mask;
+		while (keys[j] != FREE) {
+			int home = slot(keys[j]);
+			// Move the entry, if its home slot is not between the gap and its current position
+			if (((j - home) & mask) >= ((j - gap) & mask)) {
+				keys[gap] = keys[j];
+				values[gap] = values[j];
+				gap = j;
+			}
+			j = (j + 1) & mask;
+		}
+		keys[gap] = FREE;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public void clear() {
+		Arrays.fill(keys, FREE);
+		size = 0;
+		hasFreeKey = false;
+	}
+
+	private int slot(long key) {
+		// Fibonacci hashing, timeseries ids are sequential
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32)) & mask;
+	}
+
+	private void rehash(int capacity) {
+		long[] oldKeys = keys;
+		long[] oldValues = values;
+		allocate(capacity);
+		size = hasFreeKey ? 1 : 0;
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldKeys[i] != FREE) {
+				put(oldKeys[i], oldValues[i]);
+			}
+		}
+	}
+
+	private void allocate(int capacity) {
+		keys = new long[capacity];
+		values = new long[capacity];
+		mask = capacity - 1;
+	}
+
+	private static int capacityFor(int expectedSize) {
+		int capacity = MIN_CAPACITY;
+		while (capacity < expectedSize * 2L && capacity < (1 << 30)) {
+			capacity <<= 1;
+		}
+		return capacity;
+	}
+}
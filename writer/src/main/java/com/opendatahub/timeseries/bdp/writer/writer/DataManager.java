@@ -5,31 +5,66 @@
 
 package com.opendatahub.timeseries.bdp.writer.writer;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.io.UncheckedIOException;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.cfg.ContextAttributes;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.opendatahub.timeseries.bdp.dto.dto.ColumnarRecordsDto;
 import com.opendatahub.timeseries.bdp.dto.dto.DataMapDto;
 import com.opendatahub.timeseries.bdp.dto.dto.DataTypeDto;
 import com.opendatahub.timeseries.bdp.dto.dto.ProvenanceDto;
+import com.opendatahub.timeseries.bdp.dto.dto.RecordDtoDeserializer;
 import com.opendatahub.timeseries.bdp.dto.dto.RecordDtoImpl;
 import com.opendatahub.timeseries.bdp.dto.dto.StationDto;
+import com.opendatahub.timeseries.bdp.writer.dal.CrsTransforms;
 import com.opendatahub.timeseries.bdp.writer.dal.DataType;
+import com.opendatahub.timeseries.bdp.writer.dal.DataTypeCatalog;
+import com.opendatahub.timeseries.bdp.writer.dal.LatestTimestampCache;
+import com.opendatahub.timeseries.bdp.writer.dal.PartitionRules;
 import com.opendatahub.timeseries.bdp.writer.dal.Provenance;
+import com.opendatahub.timeseries.bdp.writer.dal.PushOptions;
+import com.opendatahub.timeseries.bdp.writer.dal.PushReceipts;
 import com.opendatahub.timeseries.bdp.writer.dal.Station;
 import com.opendatahub.timeseries.bdp.writer.dal.TimeSeries;
+import com.opendatahub.timeseries.bdp.writer.dal.TimeSeriesLocks;
+import com.opendatahub.timeseries.bdp.writer.dal.TimeSeriesRegistry;
 import com.opendatahub.timeseries.bdp.writer.dal.util.JPAException;
 import com.opendatahub.timeseries.bdp.writer.dal.util.QueryBuilder;
+import com.opendatahub.timeseries.bdp.writer.writer.ingest.AsyncIngestion;
+import com.opendatahub.timeseries.bdp.writer.writer.ingest.DataMapStreamReader;
+import com.opendatahub.timeseries.bdp.writer.writer.ingest.IngestionLog;
+import com.opendatahub.timeseries.bdp.writer.writer.ingest.NdjsonRecordReader;
+import com.opendatahub.timeseries.bdp.writer.writer.ingest.PushCoalescer;
 
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityManagerFactory;
 import jakarta.persistence.PersistenceUnit;
@@ -56,6 +91,90 @@ public class DataManager {
 	@PersistenceUnit
 	private EntityManagerFactory entityManagerFactory;
 
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	/** Reads push bodies, keeps JSON values as text, see RecordDtoDeserializer.RAW_JSON_ATTRIBUTE */
+	private ObjectMapper jsonMapper;
+
+	/** Same as jsonMapper, but for Smile encoded bodies */
+	private ObjectMapper smileMapper;
+
+	@Autowired
+	private TimeSeriesRegistry timeSeriesRegistry;
+
+	@Autowired
+	private LatestTimestampCache latestTimestampCache;
+
+	@Autowired
+	private PartitionRules partitionRules;
+
+	@Autowired
+	private TimeSeriesLocks timeSeriesLocks;
+
+	@Autowired
+	private PushReceipts pushReceipts;
+
+	@Value("${writer.push.idempotency.hashMaxSize:0}")
+	private int idempotencyHashMaxSize;
+
+	@Autowired
+	private ForkJoinPool walkPool;
+
+	@Autowired
+	private CrsTransforms crsTransforms;
+
+	@Autowired
+	private DataTypeCatalog dataTypeCatalog;
+
+	@Value("${writer.push.parallelWalkThreshold:10000}")
+	private int parallelWalkThreshold;
+
+	@Value("${writer.push.copyHistory:false}")
+	private boolean copyHistory;
+
+	@Value("${writer.push.streamBatchSize:100000}")
+	private int streamBatchSize;
+
+	@Value("${writer.push.chunk.records:100000}")
+	private int chunkRecords;
+
+	@Value("${writer.push.chunk.branches:1000}")
+	private int chunkBranches;
+
+	@Value("${writer.push.ndjson.chunkSize:10000}")
+	private int ndjsonChunkSize;
+
+	@Value("${writer.push.ndjson.chunkInterval:5000}")
+	private long ndjsonChunkInterval;
+
+	@Value("${writer.push.coalesceWindow:0}")
+	private long coalesceWindow;
+
+	@Value("${writer.push.coalesceMaxRecords:50000}")
+	private int coalesceMaxRecords;
+
+	/** Group commit of concurrent pushes, null if disabled */
+	private PushCoalescer coalescer;
+
+	@Value("${writer.push.async.enabled:false}")
+	private boolean asyncEnabled;
+
+	@Value("${writer.push.async.dir:ingestion-log}")
+	private String asyncDir;
+
+	@Value("${writer.push.async.segmentSize:67108864}")
+	private int asyncSegmentSize;
+
+	@Value("${writer.push.async.fsync:true}")
+	private boolean asyncFsync;
+
+	@Value("${writer.push.async.threads:2}")
+	private int asyncThreads;
+
+	/** Background writer of asynchronous pushes, null if disabled */
+	private AsyncIngestion asyncIngestion;
+
 	/**
 	 * @param stationType all data sets must have stations as reference with given station type
 	 * @param responseLocation
@@ -63,10 +182,305 @@ public class DataManager {
 	 * @return correct response status code
 	 */
 	public ResponseEntity<Object> pushRecords(String stationType, URI responseLocation, DataMapDto<RecordDtoImpl> dataMap){
-		LOG.debug("DataManager: pushRecords: {}, {}", stationType, responseLocation);
+		return pushRecords(stationType, responseLocation, dataMap, false);
+	}
+
+	/**
+	 * @param stationType all data sets must have stations as reference with given station type
+	 * @param responseLocation
+	 * @param dataMap containing all data as measurement in a tree structure
+	 * @param backfill also write records older than the latest one, skipping already existing ones
+	 * @return correct response status code
+	 */
+	public ResponseEntity<Object> pushRecords(String stationType, URI responseLocation, DataMapDto<RecordDtoImpl> dataMap, boolean backfill){
+		LOG.debug("DataManager: pushRecords: {}, {}, backfill = {}", stationType, responseLocation, backfill);
+		if (coalescer != null) {
+			coalescer.push(stationType, dataMap, backfill);
+			return ResponseEntity.created(responseLocation).build();
+		}
+		EntityManager entityManager = entityManagerFactory.createEntityManager();
+		try {
+			TimeSeries.pushRecords(entityManager, stationType, dataMap, pushOptions().setBackfill(backfill));
+		} catch (Exception e) {
+			throw JPAException.unnest(e);
+		} finally {
+			entityManager.close();
+		}
+		return ResponseEntity.created(responseLocation).build();
+	}
+
+	/**
+	 * Store the push durably and write it in the background with
+	 * {@link #pushRecords(String, URI, InputStream, boolean)}
+	 *
+	 * @param ticketLocation base URI of the ticket status, the ticket gets appended
+	 * @return 202 Accepted with the ticket, see {@link #getPushStatus(String)}
+	 */
+	public ResponseEntity<Object> pushRecordsAsync(String stationType, URI ticketLocation, InputStream body, boolean backfill) {
+		LOG.debug("DataManager: pushRecordsAsync: {}, backfill = {}", stationType, backfill);
+		if (asyncIngestion == null) {
+			throw new JPAException("Asynchronous pushRecords is not enabled", HttpStatus.BAD_REQUEST.value());
+		}
+		int maxBodySize = asyncIngestion.maxBodySize(stationType);
+		try {
+			byte[] bytes = body.readNBytes(maxBodySize + 1);
+			if (bytes.length > maxBodySize) {
+				throw new JPAException(
+					String.format("Push larger than %d bytes, push it synchronously", maxBodySize),
+					HttpStatus.PAYLOAD_TOO_LARGE.value()
+				);
+			}
+			AsyncIngestion.TicketStatus ticket = asyncIngestion.submit(stationType, bytes, backfill);
+			return ResponseEntity
+				.accepted()
+				.location(URI.create(ticketLocation + "/" + ticket.ticket()))
+				.body(ticket);
+		} catch (IOException e) {
+			throw new JPAException("Unable to store push: " + e.getMessage(), HttpStatus.SERVICE_UNAVAILABLE.value(), e);
+		}
+	}
+
+	/**
+	 * @param ticket returned by {@link #pushRecordsAsync}
+	 * @return state of an asynchronous push
+	 */
+	public AsyncIngestion.TicketStatus getPushStatus(String ticket) {
+		AsyncIngestion.TicketStatus status = asyncIngestion == null ? null : asyncIngestion.status(ticket);
+		if (status == null) {
+			throw new JPAException("Ticket " + ticket + " not found", HttpStatus.NOT_FOUND.value());
+		}
+		return status;
+	}
+
+	/** Write several data maps in one transaction, see {@link PushCoalescer} */
+	private void pushCoalesced(String stationType, List<DataMapDto<RecordDtoImpl>> dataMaps, boolean backfill) {
+		EntityManager entityManager = entityManagerFactory.createEntityManager();
+		try {
+			TimeSeries.pushRecords(entityManager, stationType, dataMaps, pushOptions().setBackfill(backfill));
+		} catch (Exception e) {
+			throw JPAException.unnest(e);
+		} finally {
+			entityManager.close();
+		}
+	}
+
+	/**
+	 * Same as {@link #pushRecords(String, URI, DataMapDto, boolean)}, but reads
+	 * the data map incrementally from {@code body}, so that large pushes never
+	 * need to be held in memory as a whole
+	 *
+	 * @param body JSON serialized {@link DataMapDto}
+	 */
+	public ResponseEntity<Object> pushRecords(String stationType, URI responseLocation, InputStream body, boolean backfill) {
+		return pushRecords(stationType, responseLocation, body, MediaType.APPLICATION_JSON, backfill);
+	}
+
+	/**
+	 * @param body        {@link DataMapDto} serialized as JSON or Smile
+	 * @param contentType format of {@code body}, JSON if null
+	 */
+	public ResponseEntity<Object> pushRecords(String stationType, URI responseLocation, InputStream body,
+			MediaType contentType, boolean backfill) {
+		LOG.debug("DataManager: pushRecords (streaming): {}, {}, {}, backfill = {}", stationType, responseLocation,
+			contentType, backfill);
+		try (DataMapStreamReader batches = new DataMapStreamReader(mapperFor(contentType), body, streamBatchSize)) {
+			if (coalescer != null && batches.isSingleBatch()) {
+				// Small enough to be held in memory anyway
+				coalescer.push(stationType, batches.next(), backfill);
+			} else {
+				EntityManager entityManager = entityManagerFactory.createEntityManager();
+				try {
+					TimeSeries.pushRecords(entityManager, stationType, batches, pushOptions().setBackfill(backfill));
+				} finally {
+					entityManager.close();
+				}
+			}
+		} catch (Exception e) {
+			throw JPAException.unnest(e);
+		}
+		return ResponseEntity.created(responseLocation).build();
+	}
+
+	/**
+	 * Same as {@link #pushRecords(String, URI, InputStream, MediaType, boolean)},
+	 * but a push sent again with the same idempotency key gets the status and
+	 * response body of the first one, like the committed chunks of a chunked
+	 * push, without being written again, see {@link PushReceipts}
+	 *
+	 * @param chunked        commit in chunks, see {@link #pushRecordsChunked}
+	 * @param idempotencyKey chosen by the client, unique per station type. If
+	 *                       null, small bodies get a key computed from their
+	 *                       content, see writer.push.idempotency.hashMaxSize
+	 */
+	public ResponseEntity<Object> pushRecords(String stationType, URI responseLocation, InputStream body,
+			MediaType contentType, boolean backfill, boolean chunked, String idempotencyKey) {
+		if (!pushReceipts.isEnabled()) {
+			return push(stationType, responseLocation, body, contentType, backfill, chunked);
+		}
+		if (isEmpty(idempotencyKey) && idempotencyHashMaxSize > 0) {
+			try {
+				byte[] head = body.readNBytes(idempotencyHashMaxSize + 1);
+				if (head.length <= idempotencyHashMaxSize) {
+					idempotencyKey = fingerprint(head, contentType, backfill, chunked);
+				}
+				body = new SequenceInputStream(new ByteArrayInputStream(head), body);
+			} catch (IOException e) {
+				throw new JPAException("Unable to read push: " + e.getMessage(), HttpStatus.BAD_REQUEST.value(), e);
+			}
+		}
+		if (isEmpty(idempotencyKey)) {
+			return push(stationType, responseLocation, body, contentType, backfill, chunked);
+		}
+
+		String key = stationType + "/" + idempotencyKey;
 		EntityManager entityManager = entityManagerFactory.createEntityManager();
 		try {
-			TimeSeries.pushRecords(entityManager, stationType, dataMap);
+			PushReceipts.Receipt receipt = pushReceipts.claim(entityManager, key);
+			if (receipt != null) {
+				LOG.debug("DataManager: pushRecords: {} already written, answering with status {}", key, receipt.status());
+				ResponseEntity.BodyBuilder replay = ResponseEntity
+					.status(receipt.status())
+					.location(responseLocation)
+					.header(JsonController.IDEMPOTENT_REPLAYED, "true");
+				return receipt.body() == null
+					? replay.build()
+					: replay.contentType(MediaType.APPLICATION_JSON).body(receipt.body());
+			}
+			boolean completed = false;
+			try {
+				ResponseEntity<Object> response = push(stationType, responseLocation, body, contentType, backfill, chunked);
+				if (response.getStatusCode().is2xxSuccessful()) {
+					String responseBody = response.hasBody() ? jsonMapper.writeValueAsString(response.getBody()) : null;
+					pushReceipts.complete(entityManager, key, response.getStatusCode().value(), responseBody);
+					completed = true;
+				}
+				return response;
+			} finally {
+				if (!completed) {
+					pushReceipts.abort(key);
+				}
+			}
+		} catch (Exception e) {
+			throw JPAException.unnest(e);
+		} finally {
+			entityManager.close();
+		}
+	}
+
+	private ResponseEntity<Object> push(String stationType, URI responseLocation, InputStream body,
+			MediaType contentType, boolean backfill, boolean chunked) {
+		return chunked
+			? pushRecordsChunked(stationType, responseLocation, body, contentType, backfill)
+			: pushRecords(stationType, responseLocation, body, contentType, backfill);
+	}
+
+	/**
+	 * Same as {@link #pushRecords(String, URI, InputStream, MediaType, boolean)},
+	 * but each chunk of whole station/type branches is written and committed
+	 * on its own, see writer.push.chunk.records and writer.push.chunk.branches.
+	 * That keeps transactions, locks and WAL bursts of huge pushes small.
+	 *
+	 * Writing stops at the first chunk that fails, all chunks before it stay
+	 * committed. The client resends only the branches that are not listed as
+	 * committed.
+	 *
+	 * @return 201 Created if all chunks got committed, the status of the
+	 *         failure otherwise, both with the branches of each chunk
+	 */
+	public ResponseEntity<Object> pushRecordsChunked(String stationType, URI responseLocation, InputStream body,
+			MediaType contentType, boolean backfill) {
+		LOG.debug("DataManager: pushRecordsChunked: {}, {}, {}, backfill = {}", stationType, responseLocation,
+			contentType, backfill);
+		ObjectMapper mapper = mapperFor(contentType);
+		List<DataMapStreamReader.ChunkResult> results = new ArrayList<>();
+		DataMapDto<RecordDtoImpl> chunk = null;
+		try (DataMapStreamReader chunks = new DataMapStreamReader(mapper, body, chunkRecords, chunkBranches)) {
+			while (chunks.hasNext()) {
+				chunk = chunks.next();
+				EntityManager entityManager = entityManagerFactory.createEntityManager();
+				try {
+					TimeSeries.pushRecords(entityManager, stationType, chunk, pushOptions().setBackfill(backfill));
+				} finally {
+					entityManager.close();
+				}
+				results.add(new DataMapStreamReader.ChunkResult(results.size() + 1, DataMapStreamReader.recordsOf(chunk),
+					DataMapStreamReader.branchesOf(chunk), NdjsonRecordReader.Status.COMMITTED, null));
+				chunk = null;
+			}
+		} catch (Exception e) {
+			JPAException error = JPAException.unnest(e);
+			LOG.debug("DataManager: pushRecordsChunked failed after {} chunks", results.size(), error);
+			// Without a chunk, reading the next one failed
+			results.add(new DataMapStreamReader.ChunkResult(results.size() + 1,
+				chunk == null ? 0 : DataMapStreamReader.recordsOf(chunk),
+				chunk == null ? Map.of() : DataMapStreamReader.branchesOf(chunk),
+				NdjsonRecordReader.Status.FAILED, error.getMessage()));
+			Integer status = error.getExceptionDto().getStatus();
+			return ResponseEntity
+				.status(status == null ? HttpStatus.BAD_REQUEST.value() : status)
+				.body(results);
+		}
+		return ResponseEntity.created(responseLocation).body(results);
+	}
+
+	/** @return true if {@code e} was caused by a row that violates a unique constraint */
+	private static boolean isUniqueViolation(Throwable e) {
+		for (Throwable t = e; t != null; t = t.getCause()) {
+			if (t instanceof SQLException sql && "23505".equals(sql.getSQLState())) {
+				return true;
+			}
+			if (t.getCause() == t) {
+				break;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return key of a push computed from its content and parameters, the same
+	 *         body sent chunked and in one piece gets different responses
+	 */
+	private static String fingerprint(byte[] body, MediaType contentType, boolean backfill, boolean chunked) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			digest.update(String.valueOf(contentType).getBytes(StandardCharsets.UTF_8));
+			digest.update((byte) (backfill ? 1 : 0));
+			digest.update((byte) (chunked ? 1 : 0));
+			digest.update(body);
+			return "sha256:" + HexFormat.of().formatHex(digest.digest());
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * @return mapper reading bodies of {@code contentType}
+	 * @throws JPAException 415 if the format is not supported
+	 */
+	private ObjectMapper mapperFor(MediaType contentType) {
+		if (contentType == null || contentType.isCompatibleWith(MediaType.APPLICATION_JSON)) {
+			return jsonMapper;
+		}
+		if (contentType.isCompatibleWith(JsonController.APPLICATION_SMILE)) {
+			return smileMapper;
+		}
+		throw new JPAException(
+			String.format("Content type %s not supported, use %s or %s", contentType, MediaType.APPLICATION_JSON_VALUE,
+				JsonController.APPLICATION_SMILE_VALUE),
+			HttpStatus.UNSUPPORTED_MEDIA_TYPE.value()
+		);
+	}
+
+	/**
+	 * Same as {@link #pushRecords(String, URI, DataMapDto, boolean)}, but with
+	 * records in columnar form, see {@link TimeSeries#pushColumns}
+	 */
+	public ResponseEntity<Object> pushColumns(String stationType, URI responseLocation, ColumnarRecordsDto dto, boolean backfill) {
+		LOG.debug("DataManager: pushColumns: {}, {}, series = {}, backfill = {}", stationType, responseLocation,
+			dto.getSeries().size(), backfill);
+		EntityManager entityManager = entityManagerFactory.createEntityManager();
+		try {
+			TimeSeries.pushColumns(entityManager, stationType, dto, pushOptions().setBackfill(backfill));
 		} catch (Exception e) {
 			throw JPAException.unnest(e);
 		} finally {
@@ -75,6 +489,54 @@ public class DataManager {
 		return ResponseEntity.created(responseLocation).build();
 	}
 
+	/**
+	 * Push newline delimited JSON records, see {@link NdjsonRecordReader}.
+	 *
+	 * Each chunk is written and committed on its own, as soon as it has been
+	 * read. Writing stops at the first chunk that fails, all chunks before it
+	 * stay committed. Since pushes skip records older than the latest ones,
+	 * the client resends the stream starting with the first line of the
+	 * failed chunk.
+	 *
+	 * @param provenance UUID of the provenance of all records
+	 * @return 201 Created if all chunks got committed, the status of the
+	 *         failure otherwise, both with the results of all chunks
+	 */
+	public ResponseEntity<Object> pushRecordsNdjson(String stationType, String provenance, URI responseLocation,
+			InputStream body, boolean backfill) {
+		LOG.debug("DataManager: pushRecordsNdjson: {}, {}, backfill = {}", stationType, responseLocation, backfill);
+		if (isEmpty(provenance)) {
+			throw new JPAException("Missing provenance, set it with ?provenance=<uuid>", HttpStatus.BAD_REQUEST.value());
+		}
+		List<NdjsonRecordReader.ChunkResult> results = new ArrayList<>();
+		long nextLine = 1;
+		try (NdjsonRecordReader chunks = new NdjsonRecordReader(jsonMapper, body, provenance, ndjsonChunkSize,
+				ndjsonChunkInterval)) {
+			while (chunks.hasNext()) {
+				NdjsonRecordReader.Chunk chunk = chunks.next();
+				EntityManager entityManager = entityManagerFactory.createEntityManager();
+				try {
+					TimeSeries.pushRecords(entityManager, stationType, chunk.dataMap(), pushOptions().setBackfill(backfill));
+				} finally {
+					entityManager.close();
+				}
+				results.add(new NdjsonRecordReader.ChunkResult(chunk.firstLine(), chunk.lastLine(), chunk.records(),
+					NdjsonRecordReader.Status.COMMITTED, null));
+				nextLine = chunk.lastLine() + 1;
+			}
+		} catch (Exception e) {
+			JPAException error = JPAException.unnest(e);
+			LOG.debug("DataManager: pushRecordsNdjson failed after {} chunks", results.size(), error);
+			results.add(new NdjsonRecordReader.ChunkResult(nextLine, -1, 0, NdjsonRecordReader.Status.FAILED,
+				error.getMessage()));
+			Integer status = error.getExceptionDto().getStatus();
+			return ResponseEntity
+				.status(status == null ? HttpStatus.BAD_REQUEST.value() : status)
+				.body(results);
+		}
+		return ResponseEntity.created(responseLocation).body(results);
+	}
+
 	/**
 	 * @param stationType stations of only this type get synchronized
 	 * @param dtos list of all station data transfer object provided by a given data collector
@@ -100,7 +562,7 @@ public class DataManager {
 		);
 		EntityManager entityManager = entityManagerFactory.createEntityManager();
 		try {
-			Station.syncStations(entityManager, stationType, dtos, provenanceName, provenanceVersion, syncState, onlyActivation);
+			Station.syncStations(entityManager, stationType, dtos, crsTransforms, provenanceName, provenanceVersion, syncState, onlyActivation);
 		} catch (Exception e) {
 			throw JPAException.unnest(e);
 		} finally {
@@ -117,17 +579,45 @@ public class DataManager {
 	public ResponseEntity<Object> syncDataTypes(List<DataTypeDto> dtos, URI responseLocation) {
 		LOG.debug("DataManager: syncDataTypes: {}, List<DataTypeDto>.size = {}", responseLocation, dtos.size());
 		EntityManager entityManager = entityManagerFactory.createEntityManager();
+		DataType.SyncResult result = null;
 		try {
-			entityManager.getTransaction().begin();
-			DataType.sync(entityManager, dtos);
-			entityManager.getTransaction().commit();
+			for (int attempt = 0; result == null; attempt++) {
+				try {
+					entityManager.getTransaction().begin();
+					// Compared with the types as this transaction sees them, not with the shared catalog
+					DataType.SyncResult synced = DataType.sync(entityManager, dtos);
+					entityManager.getTransaction().commit();
+					result = synced;
+				} catch (Exception e) {
+					if (entityManager.getTransaction().isActive()) {
+						entityManager.getTransaction().rollback();
+					}
+					if (attempt > 0 || !isUniqueViolation(e)) {
+						throw e;
+					}
+					// Another writer instance inserted one of the types meanwhile
+					LOG.debug("DataManager: syncDataTypes: types changed concurrently, syncing again");
+					entityManager.clear();
+				}
+			}
+			// Published only once committed, also if just meta data hashes were added
+			if (result.changedCatalog()) {
+				try {
+					dataTypeCatalog.reload(entityManager);
+				} catch (Exception e) {
+					// Committed, but the new catalog could not be loaded
+					dataTypeCatalog.invalidate();
+					throw e;
+				}
+			}
 		} catch (Exception e) {
-			entityManager.getTransaction().rollback();
 			throw JPAException.unnest(e);
 		} finally {
 			entityManager.close();
 		}
-		return ResponseEntity.created(responseLocation).build();
+		LOG.debug("DataManager: syncDataTypes: {} inserted, {} updated, {} unchanged",
+			result.inserted(), result.updated(), result.unchanged());
+		return ResponseEntity.created(responseLocation).body(result);
 	}
 
 	/**
@@ -257,7 +747,7 @@ public class DataManager {
 		LOG.debug("DataManager: getDataTypes");
 		EntityManager entityManager = entityManagerFactory.createEntityManager();
 		try {
-			return DataType.findTypeNames(entityManager);
+			return dataTypeCatalog.current(entityManager).names();
 		} catch (Exception e) {
 			throw JPAException.unnest(e);
 		} finally {
@@ -325,9 +815,45 @@ public class DataManager {
 		return provenances;
 	}
 
+	private PushOptions pushOptions() {
+		return PushOptions.defaults()
+			.setCopyHistory(copyHistory)
+			.setTimeSeriesRegistry(timeSeriesRegistry)
+			.setLatestCache(latestTimestampCache)
+			.setPartitionRules(partitionRules)
+			.setTimeSeriesLocks(timeSeriesLocks)
+			.setTypeCatalog(dataTypeCatalog)
+			.setWalkPool(walkPool)
+			.setParallelWalkThreshold(parallelWalkThreshold);
+	}
+
 	@PostConstruct
     public void postConstruct() {
         Objects.requireNonNull(entityManagerFactory);
+        jsonMapper = objectMapper.copy();
+        jsonMapper.setDefaultAttributes(
+            ContextAttributes.getEmpty().withSharedAttribute(RecordDtoDeserializer.RAW_JSON_ATTRIBUTE, true));
+        smileMapper = jsonMapper.copyWith(new SmileFactory());
+        if (coalesceWindow > 0) {
+            coalescer = new PushCoalescer(coalesceWindow, coalesceMaxRecords, this::pushCoalesced);
+        }
+        if (asyncEnabled) {
+            try {
+                IngestionLog log = new IngestionLog(Path.of(asyncDir), asyncSegmentSize, asyncFsync);
+                asyncIngestion = new AsyncIngestion(log, (stationType, body, backfill) ->
+                    pushRecords(stationType, null, body, backfill), asyncThreads, 1000, 100_000);
+                asyncIngestion.start();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Unable to open the ingestion log in " + asyncDir, e);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void preDestroy() throws IOException {
+        if (asyncIngestion != null) {
+            asyncIngestion.close();
+        }
     }
 
 	private boolean isEmpty(String what) {
@@ -10,10 +10,15 @@ import java.util.Map;
 import org.hibernate.PropertyValueException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExceptionHandler;
 
 import com.fasterxml.jackson.databind.JsonNode;
@@ -54,6 +59,25 @@ public class ExceptionControllerAdvice extends ResponseEntityExceptionHandler {
 		return buildResponse(HttpStatus.INTERNAL_SERVER_ERROR, ex, request);
 	}
 
+	@Override
+	protected ResponseEntity<Object> handleHttpMessageNotReadable(HttpMessageNotReadableException ex, HttpHeaders headers,
+			HttpStatusCode status, WebRequest request) {
+		if (isBodyTooLarge(ex) && request instanceof ServletWebRequest servletRequest) {
+			return buildResponse(HttpStatus.PAYLOAD_TOO_LARGE, ex, servletRequest.getRequest());
+		}
+		return super.handleHttpMessageNotReadable(ex, headers, status, request);
+	}
+
+	/** Decompressed bodies can exceed their limit anywhere they get parsed, the error ends up wrapped somehow */
+	private static boolean isBodyTooLarge(Throwable ex) {
+		for (Throwable t = ex; t != null; t = t.getCause()) {
+			if (t instanceof RequestDecompressionFilter.BodyTooLargeException) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	private ResponseEntity<Object> buildResponse(HttpStatus httpStatus, Exception ex, HttpServletRequest request) {
 		ExceptionDto exceptionDto;
 		if (ex instanceof JPAException) {
@@ -85,7 +109,10 @@ public class ExceptionControllerAdvice extends ResponseEntityExceptionHandler {
 		}
 		if (exceptionDto.getDescription() == null)
 			exceptionDto.setDescription(ex.getMessage());
-		if (exceptionDto.getStatus() == null) {
+		if (isBodyTooLarge(ex)) {
+			exceptionDto.setStatus(HttpStatus.PAYLOAD_TOO_LARGE.value());
+			exceptionDto.setName(HttpStatus.PAYLOAD_TOO_LARGE.getReasonPhrase());
+		} else if (exceptionDto.getStatus() == null) {
 			exceptionDto.setStatus(httpStatus.value());
 			exceptionDto.setName(httpStatus.getReasonPhrase());
 		} else if (exceptionDto.getName() == null) {
@@ -5,30 +5,33 @@
 
 package com.opendatahub.timeseries.bdp.writer.writer;
 
+import java.io.IOException;
 import java.net.URI;
 import java.util.Date;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
-import com.opendatahub.timeseries.bdp.dto.dto.DataMapDto;
+import com.opendatahub.timeseries.bdp.dto.dto.ColumnarRecordsDto;
 import com.opendatahub.timeseries.bdp.dto.dto.DataTypeDto;
 import com.opendatahub.timeseries.bdp.dto.dto.ProvenanceDto;
-import com.opendatahub.timeseries.bdp.dto.dto.RecordDtoImpl;
 import com.opendatahub.timeseries.bdp.dto.dto.StationDto;
 import com.opendatahub.timeseries.bdp.writer.dal.util.JPAException;
 import com.opendatahub.timeseries.bdp.writer.writer.authz.AuthorizeSyncStation;
+import com.opendatahub.timeseries.bdp.writer.writer.ingest.AsyncIngestion;
 
 import jakarta.servlet.http.HttpServletRequest;
 
@@ -43,6 +46,25 @@ import jakarta.servlet.http.HttpServletRequest;
 @RequestMapping("/json")
 public class JsonController {
 
+	/**
+	 * Binary JSON, see https://github.com/FasterXML/smile-format-specification.
+	 * Accepted by all endpoints with a request body, the payload is the same
+	 * as with JSON. Spring MVC registers a Smile message converter by itself,
+	 * since jackson-dataformat-smile is on the classpath.
+	 */
+	public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+	public static final MediaType APPLICATION_SMILE = MediaType.parseMediaType(APPLICATION_SMILE_VALUE);
+
+	/**
+	 * Request header of pushRecords: a push sent again with the same key, for
+	 * example after a timeout, is answered with the original result, without
+	 * writing it again. See DataManager.
+	 */
+	public static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+	/** Response header, set if the push had already been written before */
+	public static final String IDEMPOTENT_REPLAYED = "Idempotent-Replayed";
+	private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 255;
+
 	@Autowired
 	DataManager dataManager;
 
@@ -131,16 +153,88 @@ public class JsonController {
 		throw new JPAException("Missing station type. For example set MyStationType: .../pushRecords/MyStationType");
 	}
 
+	/*
+	 * The body is read as a stream instead of a @RequestBody DataMapDto, big
+	 * pushes would otherwise need to be fully deserialized into memory first.
+	 * Smile bodies are read the same way, see APPLICATION_SMILE_VALUE.
+	 * Asynchronous pushes ignore IDEMPOTENCY_KEY, they answer with a new ticket.
+	 */
 	@PostMapping(value = "/pushRecords/{stationType}")
 	@ResponseBody
 	public ResponseEntity<Object> pushRecords(
 		HttpServletRequest request,
-		@RequestBody(required = true) DataMapDto<RecordDtoImpl> dataMap,
 		@PathVariable String stationType,
 		@RequestParam(value = "prn", required = false) String provenanceName,
+		@RequestParam(value = "prv", required = false) String provenanceVersion,
+		@RequestParam(value = "backfill", required = false, defaultValue = "false") Boolean backfill,
+		@RequestParam(value = "async", required = false, defaultValue = "false") Boolean async,
+		@RequestParam(value = "chunked", required = false, defaultValue = "false") Boolean chunked,
+		@RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey
+	) throws IOException {
+		if (idempotencyKey != null && idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH) {
+			throw new JPAException(String.format("%s must not be longer than %d characters", IDEMPOTENCY_KEY,
+				MAX_IDEMPOTENCY_KEY_LENGTH), HttpStatus.BAD_REQUEST.value());
+		}
+		MediaType contentType = request.getContentType() == null ? null : MediaType.parseMediaType(request.getContentType());
+		if (async) {
+			if (chunked) {
+				throw new JPAException("Asynchronous pushRecords cannot be chunked", HttpStatus.BAD_REQUEST.value());
+			}
+			// The ingestion log replays bodies as JSON
+			if (contentType != null && !contentType.isCompatibleWith(MediaType.APPLICATION_JSON)) {
+				throw new JPAException("Asynchronous pushRecords needs a JSON body", HttpStatus.UNSUPPORTED_MEDIA_TYPE.value());
+			}
+			return dataManager.pushRecordsAsync(stationType, getURIMapping("pushRecords/tickets"), request.getInputStream(), backfill);
+		}
+		return dataManager.pushRecords(stationType, null, request.getInputStream(), contentType, backfill, chunked,
+			idempotencyKey);
+	}
+
+	@PostMapping(value = "/pushRecords/{stationType}", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+	@ResponseBody
+	public ResponseEntity<Object> pushRecordsNdjson(
+		HttpServletRequest request,
+		@PathVariable String stationType,
+		@RequestParam(value = "provenance", required = false) String provenance,
+		@RequestParam(value = "prn", required = false) String provenanceName,
+		@RequestParam(value = "prv", required = false) String provenanceVersion,
+		@RequestParam(value = "backfill", required = false, defaultValue = "false") Boolean backfill,
+		@RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey
+	) throws IOException {
+		// Each chunk commits as soon as it is read, a replay could not tell which ones the first push wrote
+		if (idempotencyKey != null) {
+			throw new JPAException(IDEMPOTENCY_KEY + " is not supported by NDJSON pushes", HttpStatus.BAD_REQUEST.value());
+		}
+		return dataManager.pushRecordsNdjson(stationType, provenance, null, request.getInputStream(), backfill);
+	}
+
+	@PostMapping(value = "/pushColumns")
+	@ResponseBody
+	public ResponseEntity<Object> pushColumnsMissingTopology() {
+		throw new JPAException("Missing station type. For example set MyStationType: .../pushColumns/MyStationType");
+	}
+
+	@PostMapping(value = "/pushColumns/{stationType}")
+	@ResponseBody
+	public ResponseEntity<Object> pushColumns(
+		HttpServletRequest request,
+		@PathVariable String stationType,
+		@RequestBody(required = true) ColumnarRecordsDto dto,
+		@RequestParam(value = "prn", required = false) String provenanceName,
+		@RequestParam(value = "prv", required = false) String provenanceVersion,
+		@RequestParam(value = "backfill", required = false, defaultValue = "false") Boolean backfill
+	) {
+		return dataManager.pushColumns(stationType, null, dto, backfill);
+	}
+
+	@GetMapping(value = "/pushRecords/tickets/{ticket}", produces = MediaType.APPLICATION_JSON_VALUE)
+	@ResponseBody
+	public AsyncIngestion.TicketStatus pushRecordsStatus(
+		@PathVariable String ticket,
+		@RequestParam(value = "prn", required = false) String provenanceName,
 		@RequestParam(value = "prv", required = false) String provenanceVersion
 	) {
-		return dataManager.pushRecords(stationType, null, dataMap);
+		return dataManager.getPushStatus(ticket);
 	}
 
 	/**
@@ -0,0 +1,202 @@
+// Copyright © 2025 NOI Techpark - Südtirol / Alto Adige (info@opendatahub.com)
+//
+// SPDX-License-Identifier: GPL-3.0-only
+
+package com.opendatahub.timeseries.bdp.writer.writer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.zip.GZIPInputStream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Decompresses request bodies sent with {@code Content-Encoding: gzip}.
+ *
+ * The body gets decompressed while it is read, it is never buffered as a
+ * whole. Reading fails as soon as more than {@code writer.push.maxDecompressedSize}
+ * bytes come out of it, so that a small compressed body cannot blow up into
+ * gigabytes. Other encodings than gzip and identity are refused with 415.
+ */
+@Component
+public class RequestDecompressionFilter extends OncePerRequestFilter {
+
+	@Value("${writer.push.maxDecompressedSize:1073741824}")
+	private long maxDecompressedSize;
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+			throws ServletException, IOException {
+		String encoding = request.getHeader(HttpHeaders.CONTENT_ENCODING);
+		if (encoding == null || encoding.isBlank() || "identity".equalsIgnoreCase(encoding.trim())) {
+			chain.doFilter(request, response);
+		} else if ("gzip".equalsIgnoreCase(encoding.trim()) || "x-gzip".equalsIgnoreCase(encoding.trim())) {
+			chain.doFilter(new DecompressedRequest(request, maxDecompressedSize), response);
+		} else {
+			response.sendError(HttpStatus.UNSUPPORTED_MEDIA_TYPE.value(),
+				"Content-Encoding " + encoding + " not supported, use gzip");
+		}
+	}
+
+	/** Thrown while reading once the decompressed body exceeds the limit */
+	public static class BodyTooLargeException extends IOException {
+
+		private static final long serialVersionUID = 1L;
+
+		public BodyTooLargeException(long maxSize) {
+			super(String.format("Decompressed request body larger than %d bytes", maxSize));
+		}
+	}
+
+	/**
+	 * Request with the decompressed body, without Content-Encoding and
+	 * Content-Length headers, since both describe the compressed body
+	 */
+	private static class DecompressedRequest extends HttpServletRequestWrapper {
+
+		private final long maxSize;
+		private ServletInputStream body;
+		private BufferedReader reader;
+
+		DecompressedRequest(HttpServletRequest request, long maxSize) {
+			super(request);
+			this.maxSize = maxSize;
+		}
+
+		@Override
+		public ServletInputStream getInputStream() throws IOException {
+			if (reader != null) {
+				throw new IllegalStateException("getReader() has already been called");
+			}
+			if (body == null) {
+				body = new LimitedInputStream(new GZIPInputStream(super.getInputStream(), 8192), maxSize);
+			}
+			return body;
+		}
+
+		@Override
+		public BufferedReader getReader() throws IOException {
+			if (reader == null) {
+				String charset = getCharacterEncoding();
+				reader = new BufferedReader(new InputStreamReader(getInputStream(),
+					charset == null ? StandardCharsets.UTF_8.name() : charset));
+			}
+			return reader;
+		}
+
+		@Override
+		public int getContentLength() {
+			return -1;
+		}
+
+		@Override
+		public long getContentLengthLong() {
+			return -1;
+		}
+
+		private static boolean isHidden(String name) {
+			return HttpHeaders.CONTENT_ENCODING.equalsIgnoreCase(name) || HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name);
+		}
+
+		@Override
+		public String getHeader(String name) {
+			return isHidden(name) ? null : super.getHeader(name);
+		}
+
+		@Override
+		public Enumeration<String> getHeaders(String name) {
+			return isHidden(name) ? Collections.emptyEnumeration() : super.getHeaders(name);
+		}
+
+		@Override
+		public Enumeration<String> getHeaderNames() {
+			return Collections.enumeration(
+				Collections.list(super.getHeaderNames()).stream().filter(name -> !isHidden(name)).toList());
+		}
+
+		@Override
+		public int getIntHeader(String name) {
+			return isHidden(name) ? -1 : super.getIntHeader(name);
+		}
+	}
+
+	/** Blocking servlet stream, which fails after reading more than maxSize bytes */
+	static class LimitedInputStream extends ServletInputStream {
+
+		private final InputStream in;
+		private final long maxSize;
+		private long count = 0;
+		private boolean finished = false;
+
+		LimitedInputStream(InputStream in, long maxSize) {
+			this.in = in;
+			this.maxSize = maxSize;
+		}
+
+		@Override
+		public int read() throws IOException {
+			int b = in.read();
+			if (b < 0) {
+				finished = true;
+			} else {
+				count(1);
+			}
+			return b;
+		}
+
+		@Override
+		public int read(byte[] buffer, int offset, int length) throws IOException {
+			int n = in.read(buffer, offset, length);
+			if (n < 0) {
+				finished = true;
+			} else {
+				count(n);
+			}
+			return n;
+		}
+
+		private void count(int n) throws BodyTooLargeException {
+			count += n;
+			if (count > maxSize) {
+				throw new BodyTooLargeException(maxSize);
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			in.close();
+		}
+
+		@Override
+		public boolean isFinished() {
+			return finished;
+		}
+
+		@Override
+		public boolean isReady() {
+			return true;
+		}
+
+		@Override
+		public void setReadListener(ReadListener listener) {
+			throw new UnsupportedOperationException("Decompressed request bodies are read blocking only");
+		}
+	}
+}
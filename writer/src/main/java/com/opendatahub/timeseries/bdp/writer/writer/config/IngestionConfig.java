@@ -0,0 +1,79 @@
+// SPDX-FileCopyrightText: NOI Techpark <digital@noi.bz.it>
+//
+// SPDX-License-Identifier: AGPL-3.0-or-later
+
+package com.opendatahub.timeseries.bdp.writer.writer.config;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.opendatahub.timeseries.bdp.writer.dal.CrsTransforms;
+import com.opendatahub.timeseries.bdp.writer.dal.DataTypeCatalog;
+import com.opendatahub.timeseries.bdp.writer.dal.LatestTimestampCache;
+import com.opendatahub.timeseries.bdp.writer.dal.PartitionRules;
+import com.opendatahub.timeseries.bdp.writer.dal.PushReceipts;
+import com.opendatahub.timeseries.bdp.writer.dal.TimeSeriesLocks;
+import com.opendatahub.timeseries.bdp.writer.dal.TimeSeriesRegistry;
+
+/**
+ * Shared in-memory state of the ingestion path (pushRecords), which lives
+ * longer than a single request
+ */
+@Configuration
+public class IngestionConfig {
+
+	@Bean
+	public TimeSeriesRegistry timeSeriesRegistry(@Value("${writer.push.timeseriesCacheSize:500000}") int maxSize) {
+		return new TimeSeriesRegistry(maxSize);
+	}
+
+	@Bean
+	public LatestTimestampCache latestTimestampCache(@Value("${writer.push.latestCacheSize:0}") int maxSize) {
+		return new LatestTimestampCache(maxSize);
+	}
+
+	@Bean
+	public PartitionRules partitionRules(@Value("${writer.push.partitionRulesTtl:60}") int ttlSeconds) {
+		return new PartitionRules(ttlSeconds * 1000L);
+	}
+
+	@Bean
+	public TimeSeriesLocks timeSeriesLocks(
+			@Value("${writer.push.lockStripes:256}") int stripes,
+			@Value("${writer.push.lockTimeout:60}") int timeoutSeconds) {
+		return new TimeSeriesLocks(stripes, timeoutSeconds * 1000L);
+	}
+
+	@Bean
+	public DataTypeCatalog dataTypeCatalog(
+			@Value("${writer.push.typeCatalogMissReload:10}") int missReloadSeconds,
+			@Value("${writer.push.typeCatalogMaxAge:300}") int maxAgeSeconds) {
+		return new DataTypeCatalog(missReloadSeconds * 1000L, maxAgeSeconds * 1000L);
+	}
+
+	@Bean
+	public PushReceipts pushReceipts(
+			@Value("${writer.push.idempotency.cacheSize:10000}") int maxSize,
+			@Value("${writer.push.idempotency.retention:86400}") int retentionSeconds,
+			@Value("${writer.push.lockTimeout:60}") int waitSeconds) {
+		return new PushReceipts(maxSize, retentionSeconds * 1000L, waitSeconds * 1000L);
+	}
+
+	/** Threads walking the data tree of large pushes, see PushOptions */
+	@Bean(destroyMethod = "shutdown")
+	public ForkJoinPool walkPool(@Value("${writer.push.parallelWalkThreads:0}") int threads) {
+		return new ForkJoinPool(threads > 0 ? threads : Runtime.getRuntime().availableProcessors());
+	}
+
+	/** Coordinate transforms of syncStations, looked up at startup for the given CRS codes */
+	@Bean
+	public CrsTransforms crsTransforms(@Value("${writer.sync.crsWarmUp:EPSG:25832}") String codes) {
+		CrsTransforms crsTransforms = new CrsTransforms();
+		crsTransforms.warmUp(Arrays.stream(codes.split(",")).map(String::trim).filter(c -> !c.isEmpty()).toList());
+		return crsTransforms;
+	}
+}
@@ -0,0 +1,313 @@
+// Copyright © 2025 NOI Techpark - Südtirol / Alto Adige (info@opendatahub.com)
+//
+// SPDX-License-Identifier: GPL-3.0-only
+
+package com.opendatahub.timeseries.bdp.writer.writer.ingest;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.channels.ClosedByInterruptException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.opendatahub.timeseries.bdp.writer.dal.util.DatabaseErrors;
+
+/**
+ * Asynchronous pushRecords: pushes are stored in the {@link IngestionLog},
+ * acknowledged with a ticket and written to the database by background
+ * workers.
+ *
+ * <p>
+ * Pushes of the same station type always go to the same worker, so they are
+ * written in the order they arrived. Otherwise a newer push could overtake an
+ * older one, whose records would then be skipped as outdated. Failures caused
+ * by the database being unavailable are retried with a growing delay until
+ * the push is written, it stays PENDING and in the log meanwhile. Later pushes
+ * of the same station type wait behind it, the worker goes on with the other
+ * station types. Other failures are final and reported through the ticket
+ * status.
+ * </p>
+ *
+ * <p>
+ * Ticket states are kept in memory only. After a restart, pushes that have
+ * not been written yet are recovered from the log and their tickets are
+ * PENDING again, tickets of finished pushes are unknown. Tickets of pending
+ * pushes are never forgotten.
+ * </p>
+ */
+public class AsyncIngestion implements Closeable {
+
+	private static final Logger LOG = LoggerFactory.getLogger(AsyncIngestion.class);
+
+	private static final long MAX_RETRY_DELAY_MILLIS = 60_000;
+	/** How long {@link #close()} waits for pushes that are being written */
+	private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+	/** How often idle workers check, if they should stop */
+	private static final long POLL_MILLIS = 500;
+
+	/** Writes a single push */
+	@FunctionalInterface
+	public interface Writer {
+		void write(String stationType, InputStream body, boolean backfill);
+	}
+
+	public enum Status { PENDING, DONE, FAILED }
+
+	public record TicketStatus(String ticket, Status status, String error) {}
+
+	private final IngestionLog log;
+	private final Writer writer;
+	private final long retryDelayMillis;
+	private final int maxTickets;
+	private final List<BlockingQueue<IngestionLog.Entry>> queues;
+	private final ExecutorService workers;
+	private volatile boolean closing = false;
+
+	/** Pending and latest finished tickets only, older finished ones are forgotten */
+	private final Map<UUID, TicketStatus> tickets = new LinkedHashMap<>() {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<UUID, TicketStatus> eldest) {
+			Iterator<TicketStatus> it = values().iterator();
+			while (size() > maxTickets && it.hasNext()) {
+				if (it.next().status() != Status.PENDING) {
+					it.remove();
+				}
+			}
+			return false;
+		}
+	};
+
+	/**
+	 * @param threads          number of workers, i.e., concurrent database writes
+	 * @param retryDelayMillis initial delay before writing a push again
+	 * @param maxTickets       number of ticket states kept in memory, more if
+	 *                         that many pushes are pending
+	 */
+	public AsyncIngestion(IngestionLog log, Writer writer, int threads, long retryDelayMillis, int maxTickets) {
+		this.log = log;
+		this.writer = writer;
+		this.retryDelayMillis = retryDelayMillis;
+		this.maxTickets = maxTickets;
+		this.queues = new ArrayList<>();
+		for (int i = 0; i < threads; i++) {
+			queues.add(new LinkedBlockingQueue<>());
+		}
+		this.workers = Executors.newFixedThreadPool(threads);
+	}
+
+	/** Enqueue pushes left over by a previous run and start the workers */
+	public void start() throws IOException {
+		for (IngestionLog.Entry entry : log.recover()) {
+			enqueue(entry);
+		}
+		for (BlockingQueue<IngestionLog.Entry> queue : queues) {
+			workers.submit(new Worker(queue));
+		}
+	}
+
+	/**
+	 * Store a push durably, it gets written later
+	 *
+	 * @return status of the new ticket
+	 */
+	public TicketStatus submit(String stationType, byte[] body, boolean backfill) throws IOException {
+		IngestionLog.Entry entry = log.append(UUID.randomUUID(), stationType, backfill, body);
+		return enqueue(entry);
+	}
+
+	/** @return status of {@code ticket}, null if unknown or forgotten */
+	public TicketStatus status(String ticket) {
+		UUID id;
+		try {
+			id = UUID.fromString(ticket);
+		} catch (IllegalArgumentException e) {
+			return null;
+		}
+		synchronized (tickets) {
+			return tickets.get(id);
+		}
+	}
+
+	/** @return max. size of a request body accepted by {@link #submit} */
+	public int maxBodySize(String stationType) {
+		return log.maxBodySize(stationType);
+	}
+
+	private TicketStatus enqueue(IngestionLog.Entry entry) {
+		TicketStatus status = setStatus(entry, Status.PENDING, null);
+		queues.get(Math.floorMod(entry.getStationType().hashCode(), queues.size())).add(entry);
+		return status;
+	}
+
+	private TicketStatus setStatus(IngestionLog.Entry entry, Status status, String error) {
+		TicketStatus ticket = new TicketStatus(entry.getTicket().toString(), status, error);
+		synchronized (tickets) {
+			tickets.put(entry.getTicket(), ticket);
+		}
+		return ticket;
+	}
+
+	/** A push waiting for another try */
+	private record Retry(IngestionLog.Entry entry, long dueAt, long nextDelay) {}
+
+	/**
+	 * Writes the pushes of one queue. Pushes failing for a transient reason are
+	 * put aside until they are due again, instead of holding up the queue.
+	 */
+	private final class Worker implements Runnable {
+		private final BlockingQueue<IngestionLog.Entry> queue;
+		/** Pushes waiting for another try, the earliest due first */
+		private final PriorityQueue<Retry> retries = new PriorityQueue<>(Comparator.comparingLong(Retry::dueAt));
+		/** Pushes held back by station type, while an older push of it waits for another try */
+		private final Map<String, Deque<IngestionLog.Entry>> heldBack = new HashMap<>();
+
+		Worker(BlockingQueue<IngestionLog.Entry> queue) {
+			this.queue = queue;
+		}
+
+		@Override
+		public void run() {
+			try {
+				while (!closing && !Thread.currentThread().isInterrupted()) {
+					Retry due = retries.peek();
+					long now = System.currentTimeMillis();
+					if (due != null && due.dueAt() <= now) {
+						retries.poll();
+						if (write(due.entry(), due.nextDelay())) {
+							release(due.entry().getStationType());
+						}
+						continue;
+					}
+					long timeout = due == null ? POLL_MILLIS : Math.min(POLL_MILLIS, due.dueAt() - now);
+					IngestionLog.Entry entry = queue.poll(timeout, TimeUnit.MILLISECONDS);
+					if (entry == null) {
+						continue;
+					}
+					Deque<IngestionLog.Entry> waiting = heldBack.get(entry.getStationType());
+					if (waiting != null) {
+						waiting.add(entry);
+					} else {
+						write(entry, retryDelayMillis);
+					}
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		/** Write the pushes held back by the push of {@code stationType} just finished */
+		private void release(String stationType) {
+			Deque<IngestionLog.Entry> waiting = heldBack.remove(stationType);
+			while (waiting != null && !waiting.isEmpty() && !closing) {
+				if (!write(waiting.poll(), retryDelayMillis)) {
+					// Failed again, the rest keeps waiting behind it
+					Deque<IngestionLog.Entry> again = heldBack.get(stationType);
+					if (again != null) {
+						again.addAll(waiting);
+					}
+					return;
+				}
+			}
+		}
+
+		/**
+		 * @param delay delay before the next try, if this one fails for a transient reason
+		 * @return true if the push is finished, false if it is still pending
+		 */
+		private boolean write(IngestionLog.Entry entry, long delay) {
+			try {
+				writer.write(entry.getStationType(), new ByteArrayInputStream(entry.readBody()), entry.isBackfill());
+				finish(entry, Status.DONE, null);
+				return true;
+			} catch (Exception e) {
+				if (isInterrupted(e)) {
+					// Stays in the log and gets written again after a restart
+					LOG.info("Push {} interrupted by shutdown, leaving it pending: {}", entry.getTicket(), e.getMessage());
+					return false;
+				}
+				if (!DatabaseErrors.isTransient(e)) {
+					LOG.error("Push {} of station type {} failed: {}", entry.getTicket(), entry.getStationType(), e.getMessage());
+					finish(entry, Status.FAILED, e.getMessage());
+					return true;
+				}
+				// Already acknowledged, so it stays in the log until the database is back
+				LOG.warn("Push {} failed, retrying in {} ms: {}", entry.getTicket(), delay, e.getMessage());
+				retries.add(new Retry(entry, System.currentTimeMillis() + delay, Math.min(delay * 2, MAX_RETRY_DELAY_MILLIS)));
+				heldBack.putIfAbsent(entry.getStationType(), new ArrayDeque<>());
+				return false;
+			}
+		}
+	}
+
+	private void finish(IngestionLog.Entry entry, Status status, String error) {
+		try {
+			log.markDone(entry);
+		} catch (IOException e) {
+			LOG.warn("Unable to flag push {} as done, it will be written again after a restart", entry.getTicket(), e);
+		}
+		setStatus(entry, status, error);
+	}
+
+	/** @return true if the worker got interrupted, the push did not fail on its own */
+	private static boolean isInterrupted(Throwable e) {
+		if (Thread.currentThread().isInterrupted()) {
+			return true;
+		}
+		for (Throwable t = e; t != null; t = t.getCause()) {
+			if (t instanceof InterruptedException || t instanceof InterruptedIOException
+					|| t instanceof ClosedByInterruptException) {
+				return true;
+			}
+			if (t.getCause() == t) {
+				break;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Stop the workers, pushes not written yet stay in the log. Pushes that are
+	 * being written get some time to finish. The log gets closed only after
+	 * all workers stopped.
+	 */
+	@Override
+	public void close() throws IOException {
+		closing = true;
+		workers.shutdown();
+		try {
+			if (!workers.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+				LOG.warn("Pushes still being written after {} s, interrupting them", SHUTDOWN_TIMEOUT_SECONDS);
+				workers.shutdownNow();
+				if (!workers.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+					LOG.error("Workers did not stop, leaving the ingestion log open");
+					return;
+				}
+			}
+		} catch (InterruptedException e) {
+			workers.shutdownNow();
+			Thread.currentThread().interrupt();
+			return;
+		}
+		log.close();
+	}
+}
@@ -0,0 +1,305 @@
+// Copyright © 2025 NOI Techpark - Südtirol / Alto Adige (info@opendatahub.com)
+//
+// SPDX-License-Identifier: GPL-3.0-only
+
+package com.opendatahub.timeseries.bdp.writer.writer.ingest;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import org.springframework.http.HttpStatus;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import com.opendatahub.timeseries.bdp.dto.dto.DataMapDto;
+import com.opendatahub.timeseries.bdp.dto.dto.RecordDtoImpl;
+import com.opendatahub.timeseries.bdp.writer.dal.util.JPAException;
+
+/**
+ * Reads a {@link DataMapDto} push body incrementally and hands it out as a
+ * sequence of smaller {@link DataMapDto} batches.
+ *
+ * <p>
+ * Only the tree layout <code>Station --> DataType --> Measurements</code> is
+ * supported, which is the only one {@code pushRecords} understands anyway.
+ * Each batch holds at most {@code batchSize} records and carries the
+ * provenance of the root. If the provenance comes after the branches in the
+ * document, the branches are buffered until the provenance is known. Clients
+ * serialize the provenance first to avoid that.
+ * </p>
+ *
+ * <p>
+ * With {@code maxBranches}, batches consist of whole station/type branches
+ * only, so that each batch can be committed on its own and the client can
+ * tell which branches made it. A batch ends after {@code batchSize} records
+ * or {@code maxBranches} branches, a single branch larger than that becomes
+ * a batch of its own.
+ * </p>
+ */
+public class DataMapStreamReader implements Iterator<DataMapDto<RecordDtoImpl>>, Closeable {
+
+	private enum Level {
+		/** inside the station map, expecting a station code */
+		STATIONS,
+		/** inside a station node, expecting one of its fields */
+		STATION,
+		/** inside the data type map of a station, expecting a type name */
+		TYPES,
+		/** inside a data type node, expecting one of its fields */
+		TYPE,
+		/** inside the records array of a data type */
+		RECORDS,
+		DONE
+	}
+
+	/** Outcome of writing a batch in chunks, see {@link #branchesOf}, error is set if FAILED */
+	public record ChunkResult(int chunk, int records, Map<String, List<String>> branches, NdjsonRecordReader.Status status,
+			String error) {}
+
+	private final ObjectMapper mapper;
+	private final int batchSize;
+	private final int maxBranches;
+	private final JsonParser source;
+
+	private JsonParser parser;
+	private String provenance;
+	private Level level;
+	private String stationCode;
+	private String typeName;
+	private DataMapDto<RecordDtoImpl> next;
+	private boolean anyBatch = false;
+
+	public DataMapStreamReader(ObjectMapper mapper, InputStream in, int batchSize) {
+		this(mapper, in, batchSize, 0);
+	}
+
+	/**
+	 * @param maxBranches max. number of station/type branches per batch, if
+	 *                    positive batches never split a branch
+	 */
+	public DataMapStreamReader(ObjectMapper mapper, InputStream in, int batchSize, int maxBranches) {
+		if (batchSize <= 0) {
+			throw new IllegalArgumentException("batchSize must be positive");
+		}
+		this.mapper = mapper;
+		this.batchSize = batchSize;
+		this.maxBranches = maxBranches;
+		try {
+			this.source = mapper.getFactory().createParser(in);
+			this.parser = source;
+			readHeader();
+		} catch (IOException e) {
+			throw invalid(e);
+		}
+	}
+
+	/**
+	 * Read root fields until the station map starts, buffering the station
+	 * map if the provenance is not known yet
+	 */
+	private void readHeader() throws IOException {
+		if (parser.nextToken() != JsonToken.START_OBJECT) {
+			throw new JPAException("Invalid data map: JSON object expected", HttpStatus.BAD_REQUEST.value());
+		}
+		TokenBuffer buffered = null;
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String field = parser.currentName();
+			JsonToken value = parser.nextToken();
+			if ("provenance".equals(field)) {
+				provenance = value == JsonToken.VALUE_NULL ? null : parser.getText();
+			} else if ("branch".equals(field) && value == JsonToken.START_OBJECT) {
+				if (provenance != null) {
+					level = Level.STATIONS;
+					return;
+				}
+				buffered = new TokenBuffer(parser);
+				buffered.copyCurrentStructure(parser);
+			} else {
+				// name and data of the root are not used by pushRecords
+				parser.skipChildren();
+			}
+		}
+		if (buffered == null) {
+			level = Level.DONE;
+			return;
+		}
+		parser = buffered.asParser(parser.getCodec());
+		parser.nextToken(); // START_OBJECT of the station map
+		level = Level.STATIONS;
+	}
+
+	@Override
+	public boolean hasNext() {
+		if (next == null) {
+			try {
+				next = readBatch();
+			} catch (IOException e) {
+				throw invalid(e);
+			}
+		}
+		return next != null;
+	}
+
+	@Override
+	public DataMapDto<RecordDtoImpl> next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		DataMapDto<RecordDtoImpl> batch = next;
+		next = null;
+		return batch;
+	}
+
+	/**
+	 * Read ahead the first batch, if not done yet, and check if it is the only
+	 * one. Only meaningful before the first call of {@link #next()}.
+	 *
+	 * @return true if the whole document is known to fit into the first batch
+	 */
+	public boolean isSingleBatch() {
+		return hasNext() && level == Level.DONE;
+	}
+
+	private DataMapDto<RecordDtoImpl> readBatch() throws IOException {
+		DataMapDto<RecordDtoImpl> batch = null;
+		int count = 0;
+		int branches = 0;
+		while (level != Level.DONE) {
+			boolean full = count >= batchSize || (maxBranches > 0 && branches >= maxBranches);
+			if (full && (maxBranches <= 0 || level != Level.RECORDS)) {
+				break;
+			}
+			JsonToken token = parser.nextToken();
+			if (token == null) {
+				throw new JPAException("Invalid data map: unexpected end of input", HttpStatus.BAD_REQUEST.value());
+			}
+			switch (level) {
+				case STATIONS:
+					if (token != JsonToken.FIELD_NAME) {
+						level = Level.DONE;
+						break;
+					}
+					stationCode = parser.currentName();
+					expectObject();
+					level = Level.STATION;
+					break;
+				case STATION:
+					if (token != JsonToken.FIELD_NAME) {
+						level = Level.STATIONS;
+						break;
+					}
+					level = enterField("branch", JsonToken.START_OBJECT, Level.TYPES, Level.STATION);
+					break;
+				case TYPES:
+					if (token != JsonToken.FIELD_NAME) {
+						level = Level.STATION;
+						break;
+					}
+					typeName = parser.currentName();
+					expectObject();
+					level = Level.TYPE;
+					break;
+				case TYPE:
+					if (token != JsonToken.FIELD_NAME) {
+						level = Level.TYPES;
+						break;
+					}
+					level = enterField("data", JsonToken.START_ARRAY, Level.RECORDS, Level.TYPE);
+					if (level == Level.RECORDS) {
+						branches++;
+					}
+					break;
+				case RECORDS:
+					if (token == JsonToken.END_ARRAY) {
+						level = Level.TYPE;
+						break;
+					}
+					if (token != JsonToken.START_OBJECT) {
+						parser.skipChildren();
+						break;
+					}
+					RecordDtoImpl record = mapper.readValue(parser, RecordDtoImpl.class);
+					if (batch == null) {
+						batch = newBatch();
+					}
+					batch.upsertBranch(stationCode).upsertBranch(typeName).getData().add(record);
+					count++;
+					break;
+				default:
+					break;
+			}
+		}
+		if (batch == null && !anyBatch) {
+			// Always hand out at least one batch, so that the provenance gets validated
+			batch = newBatch();
+		}
+		if (batch != null) {
+			anyBatch = true;
+		}
+		return batch;
+	}
+
+	/** @return type names by station code of a batch */
+	public static Map<String, List<String>> branchesOf(DataMapDto<RecordDtoImpl> batch) {
+		Map<String, List<String>> branches = new LinkedHashMap<>();
+		batch.getBranch().forEach((station, types) -> branches.put(station, List.copyOf(types.getBranch().keySet())));
+		return branches;
+	}
+
+	/** @return number of records of a batch */
+	public static int recordsOf(DataMapDto<RecordDtoImpl> batch) {
+		return batch.getBranch().values().stream()
+			.flatMap(station -> station.getBranch().values().stream())
+			.mapToInt(type -> type.getData().size())
+			.sum();
+	}
+
+	/**
+	 * Move to the value of the current field and descend into it, if it is the
+	 * one we are interested in. Skip it otherwise.
+	 */
+	private Level enterField(String wanted, JsonToken wantedToken, Level inside, Level stay) throws IOException {
+		String field = parser.currentName();
+		JsonToken value = parser.nextToken();
+		if (wanted.equals(field) && value == wantedToken) {
+			return inside;
+		}
+		parser.skipChildren();
+		return stay;
+	}
+
+	private void expectObject() throws IOException {
+		if (parser.nextToken() != JsonToken.START_OBJECT) {
+			throw new JPAException(
+				String.format("Invalid data map: object expected for '%s'", parser.currentName()),
+				HttpStatus.BAD_REQUEST.value()
+			);
+		}
+	}
+
+	private DataMapDto<RecordDtoImpl> newBatch() {
+		DataMapDto<RecordDtoImpl> batch = new DataMapDto<>();
+		batch.setProvenance(provenance);
+		return batch;
+	}
+
+	private static JPAException invalid(IOException e) {
+		return new JPAException("Invalid data map: " + e.getMessage(), HttpStatus.BAD_REQUEST.value(), e);
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (parser != source) {
+			parser.close();
+		}
+		source.close();
+	}
+}
@@ -0,0 +1,281 @@
+// Copyright © 2025 NOI Techpark - Südtirol / Alto Adige (info@opendatahub.com)
+//
+// SPDX-License-Identifier: GPL-3.0-only
+
+package com.opendatahub.timeseries.bdp.writer.writer.ingest;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Write-ahead log of accepted, but not yet written pushes.
+ *
+ * <p>
+ * The log is a directory of memory-mapped segment files of fixed size,
+ * named by an increasing sequence number. Entries are only appended to the
+ * newest segment. Each entry is laid out as
+ * </p>
+ *
+ * <pre>
+ * int   payload length, 0 marks the end of the segment
+ * int   CRC32 of the payload
+ * byte  state, PENDING or DONE
+ * payload:
+ *   long  ticket (most significant bits)
+ *   long  ticket (least significant bits)
+ *   byte  backfill flag
+ *   short length of the station type
+ *   ...   station type (UTF-8)
+ *   ...   request body
+ * </pre>
+ *
+ * <p>
+ * The length is written last, so that a torn entry is never mistaken for a
+ * complete one, the checksum covers the rest. Entries are flagged DONE once
+ * written to the database, and a segment is deleted as soon as it holds no
+ * more pending entries. On startup all pending entries are read back.
+ * Delivery is at least once: a DONE flag lost in a crash makes the push be
+ * written again, which pushRecords tolerates, because it skips records that
+ * are not newer than the latest ones.
+ * </p>
+ */
+public class IngestionLog implements Closeable {
+
+	private static final Logger LOG = LoggerFactory.getLogger(IngestionLog.class);
+
+	private static final String SUFFIX = ".wal";
+	private static final int HEADER = 9;
+	/** Payload bytes in front of the station type */
+	private static final int PAYLOAD_HEADER = 19;
+	private static final int STATE_OFFSET = 8;
+	private static final byte PENDING = 1;
+	private static final byte DONE = 2;
+
+	/** A durably stored push */
+	public static class Entry {
+		private final UUID ticket;
+		private final String stationType;
+		private final boolean backfill;
+		private final Segment segment;
+		private final int offset;
+		private final int bodyOffset;
+		private final int bodyLength;
+
+		private Entry(UUID ticket, String stationType, boolean backfill, Segment segment, int offset,
+				int bodyOffset, int bodyLength) {
+			this.ticket = ticket;
+			this.stationType = stationType;
+			this.backfill = backfill;
+			this.segment = segment;
+			this.offset = offset;
+			this.bodyOffset = bodyOffset;
+			this.bodyLength = bodyLength;
+		}
+
+		public UUID getTicket() {
+			return ticket;
+		}
+
+		public String getStationType() {
+			return stationType;
+		}
+
+		public boolean isBackfill() {
+			return backfill;
+		}
+
+		/** @return a copy of the request body */
+		public byte[] readBody() {
+			byte[] body = new byte[bodyLength];
+			segment.buffer.get(bodyOffset, body);
+			return body;
+		}
+	}
+
+	private static class Segment {
+		private final Path path;
+		private final MappedByteBuffer buffer;
+		private int position = 0;
+		private int pending = 0;
+
+		private Segment(Path path, MappedByteBuffer buffer) {
+			this.path = path;
+			this.buffer = buffer;
+		}
+	}
+
+	private final Path directory;
+	private final int segmentSize;
+	private final boolean fsync;
+
+	private Segment active;
+	private long nextSegment = 0;
+
+	/**
+	 * @param directory   where segments are stored, gets created if missing
+	 * @param segmentSize size of a segment in bytes, also the max. size of an entry
+	 * @param fsync       force each appended entry to disk before returning
+	 */
+	public IngestionLog(Path directory, int segmentSize, boolean fsync) throws IOException {
+		this.directory = directory;
+		this.segmentSize = segmentSize;
+		this.fsync = fsync;
+		Files.createDirectories(directory);
+	}
+
+	/** @return max. size of a request body that fits into a segment */
+	public int maxBodySize(String stationType) {
+		return segmentSize - HEADER - PAYLOAD_HEADER - stationType.getBytes(StandardCharsets.UTF_8).length;
+	}
+
+	/**
+	 * Read all segments left over by a previous run
+	 *
+	 * @return all pending entries, oldest first
+	 */
+	public synchronized List<Entry> recover() throws IOException {
+		List<Path> files;
+		try (Stream<Path> list = Files.list(directory)) {
+			files = list.filter(p -> p.getFileName().toString().endsWith(SUFFIX)).sorted().toList();
+		}
+		List<Entry> pending = new ArrayList<>();
+		for (Path file : files) {
+			String name = file.getFileName().toString();
+			long number = Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+			nextSegment = Math.max(nextSegment, number + 1);
+			Segment segment = map(file, Files.size(file));
+			List<Entry> entries = scan(segment);
+			if (segment.pending == 0) {
+				Files.deleteIfExists(file);
+			}
+			pending.addAll(entries);
+		}
+		LOG.info("Recovered {} pending pushes from {} segments", pending.size(), files.size());
+		return pending;
+	}
+
+	private List<Entry> scan(Segment segment) {
+		ByteBuffer buf = segment.buffer;
+		List<Entry> entries = new ArrayList<>();
+		int offset = 0;
+		while (offset + HEADER <= buf.capacity()) {
+			int length = buf.getInt(offset);
+			if (length <= 0 || offset + HEADER + length > buf.capacity()) {
+				break;
+			}
+			CRC32 crc = new CRC32();
+			crc.update(buf.slice(offset + HEADER, length));
+			if ((int) crc.getValue() != buf.getInt(offset + 4)) {
+				LOG.warn("Corrupt entry in {} at {}, ignoring the rest of the segment", segment.path, offset);
+				break;
+			}
+			if (buf.get(offset + STATE_OFFSET) == PENDING) {
+				entries.add(parse(segment, offset, length));
+				segment.pending++;
+			}
+			offset += HEADER + length;
+		}
+		segment.position = offset;
+		return entries;
+	}
+
+	private static Entry parse(Segment segment, int offset, int length) {
+		ByteBuffer buf = segment.buffer;
+		int p = offset + HEADER;
+		UUID ticket = new UUID(buf.getLong(p), buf.getLong(p + 8));
+		boolean backfill = buf.get(p + 16) != 0;
+		int stationTypeLength = buf.getShort(p + 17);
+		byte[] stationType = new byte[stationTypeLength];
+		buf.get(p + PAYLOAD_HEADER, stationType);
+		int bodyOffset = p + PAYLOAD_HEADER + stationTypeLength;
+		return new Entry(ticket, new String(stationType, StandardCharsets.UTF_8), backfill, segment, offset,
+			bodyOffset, offset + HEADER + length - bodyOffset);
+	}
+
+	/**
+	 * Durably store a push
+	 *
+	 * @throws IllegalArgumentException if the push does not fit into a segment
+	 */
+	public synchronized Entry append(UUID ticket, String stationType, boolean backfill, byte[] body) throws IOException {
+		byte[] type = stationType.getBytes(StandardCharsets.UTF_8);
+		int length = PAYLOAD_HEADER + type.length + body.length;
+		if (HEADER + length > segmentSize || type.length > Short.MAX_VALUE) {
+			throw new IllegalArgumentException("Push too large for the ingestion log");
+		}
+		if (active == null || active.position + HEADER + length > segmentSize) {
+			roll();
+		}
+		int offset = active.position;
+		ByteBuffer payload = active.buffer.slice(offset + HEADER, length);
+		payload.putLong(ticket.getMostSignificantBits());
+		payload.putLong(ticket.getLeastSignificantBits());
+		payload.put((byte) (backfill ? 1 : 0));
+		payload.putShort((short) type.length);
+		payload.put(type);
+		payload.put(body);
+		CRC32 crc = new CRC32();
+		crc.update(payload.flip());
+		active.buffer.putInt(offset + 4, (int) crc.getValue());
+		active.buffer.put(offset + STATE_OFFSET, PENDING);
+		active.buffer.putInt(offset, length);
+		if (fsync) {
+			active.buffer.force(offset, HEADER + length);
+		}
+		active.position = offset + HEADER + length;
+		active.pending++;
+		return parse(active, offset, length);
+	}
+
+	/** Flag an entry as written, it will not be recovered anymore */
+	public synchronized void markDone(Entry entry) throws IOException {
+		Segment segment = entry.segment;
+		segment.buffer.put(entry.offset + STATE_OFFSET, DONE);
+		segment.pending--;
+		if (segment.pending == 0 && segment != active) {
+			Files.deleteIfExists(segment.path);
+		}
+	}
+
+	private void roll() throws IOException {
+		Segment previous = active;
+		active = map(directory.resolve(String.format("%020d%s", nextSegment++, SUFFIX)), segmentSize);
+		if (previous != null && previous.pending == 0) {
+			Files.deleteIfExists(previous.path);
+		}
+	}
+
+	private static Segment map(Path path, long size) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE)) {
+			// The mapping stays valid after the channel is closed
+			return new Segment(path, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+		}
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		if (active != null) {
+			active.buffer.force();
+			if (active.pending == 0) {
+				Files.deleteIfExists(active.path);
+			}
+			active = null;
+		}
+	}
+}
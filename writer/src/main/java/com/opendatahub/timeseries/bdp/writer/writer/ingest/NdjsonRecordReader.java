@@ -0,0 +1,159 @@
+// Copyright © 2025 NOI Techpark - Südtirol / Alto Adige (info@opendatahub.com)
+//
+// SPDX-License-Identifier: GPL-3.0-only
+
+package com.opendatahub.timeseries.bdp.writer.writer.ingest;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.springframework.http.HttpStatus;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.opendatahub.timeseries.bdp.dto.dto.DataMapDto;
+import com.opendatahub.timeseries.bdp.dto.dto.RecordDtoDeserializer;
+import com.opendatahub.timeseries.bdp.dto.dto.RecordDtoImpl;
+import com.opendatahub.timeseries.bdp.dto.dto.SimpleRecordDto;
+import com.opendatahub.timeseries.bdp.writer.dal.util.JPAException;
+
+/**
+ * Reads a newline delimited JSON push body, one flat record per line, and
+ * hands it out as a sequence of {@link DataMapDto} chunks.
+ *
+ * <pre>
+ * {"station": "ST1", "type": "air-temperature", "period": 600, "timestamp": 1700000000000, "value": 12.3}
+ * </pre>
+ *
+ * <p>
+ * A chunk ends after {@code chunkSize} records, or with the first record
+ * read {@code chunkMillis} after the chunk started, so that a slow but
+ * continuous stream gets committed regularly as well. The time is only
+ * checked when a record arrives: if the stream pauses, the records read so
+ * far wait for the next one, or for the end of the stream. Each chunk
+ * carries the provenance given for the whole stream. Blank lines are ignored.
+ * </p>
+ */
+public class NdjsonRecordReader implements Iterator<NdjsonRecordReader.Chunk>, Closeable {
+
+	/** A single line of the stream */
+	public record Line(String station, String type, Integer period, Long timestamp,
+			@JsonDeserialize(using = RecordDtoDeserializer.ValueDeserializer.class) Object value, Long created_on) {}
+
+	/**
+	 * Records of consecutive lines
+	 *
+	 * @param firstLine line number of the first record, starting with 1
+	 * @param lastLine  line number of the last record
+	 */
+	public record Chunk(long firstLine, long lastLine, int records, DataMapDto<RecordDtoImpl> dataMap) {}
+
+	public enum Status { COMMITTED, FAILED }
+
+	/** Outcome of writing a {@link Chunk}, error is set if FAILED */
+	public record ChunkResult(long firstLine, long lastLine, int records, Status status, String error) {}
+
+	private final String provenance;
+	private final int chunkSize;
+	private final long chunkMillis;
+	private final JsonParser parser;
+	private final MappingIterator<Line> lines;
+
+	private Chunk next;
+
+	/**
+	 * @param provenance  UUID of the provenance of all records
+	 * @param chunkSize   max. number of records per chunk
+	 * @param chunkMillis max. time to collect a chunk while records keep
+	 *                    arriving, 0 for no limit
+	 */
+	public NdjsonRecordReader(ObjectMapper mapper, InputStream in, String provenance, int chunkSize, long chunkMillis) {
+		if (chunkSize <= 0) {
+			throw new IllegalArgumentException("chunkSize must be positive");
+		}
+		this.provenance = provenance;
+		this.chunkSize = chunkSize;
+		this.chunkMillis = chunkMillis;
+		try {
+			this.parser = mapper.getFactory().createParser(in);
+			this.lines = mapper.readerFor(Line.class).readValues(parser);
+		} catch (IOException e) {
+			throw invalid(e);
+		}
+	}
+
+	@Override
+	public boolean hasNext() {
+		if (next == null) {
+			next = readChunk();
+		}
+		return next != null;
+	}
+
+	@Override
+	public Chunk next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		Chunk chunk = next;
+		next = null;
+		return chunk;
+	}
+
+	private Chunk readChunk() {
+		DataMapDto<RecordDtoImpl> dataMap = null;
+		long firstLine = 0;
+		long lastLine = 0;
+		int count = 0;
+		long deadline = Long.MAX_VALUE;
+		try {
+			while (count < chunkSize && System.currentTimeMillis() < deadline && lines.hasNextValue()) {
+				Line line = lines.nextValue();
+				lastLine = parser.currentLocation().getLineNr();
+				if (dataMap == null) {
+					dataMap = new DataMapDto<>();
+					dataMap.setProvenance(provenance);
+					firstLine = lastLine;
+					if (chunkMillis > 0) {
+						deadline = System.currentTimeMillis() + chunkMillis;
+					}
+				}
+				dataMap.upsertBranch(line.station()).upsertBranch(line.type()).getData().add(toRecord(line, lastLine));
+				count++;
+			}
+		} catch (IOException | IllegalArgumentException e) {
+			throw new JPAException(
+				String.format("Invalid record at line %d: %s", parser.currentLocation().getLineNr(), e.getMessage()),
+				HttpStatus.BAD_REQUEST.value(),
+				e
+			);
+		}
+		return dataMap == null ? null : new Chunk(firstLine, lastLine, count, dataMap);
+	}
+
+	private static SimpleRecordDto toRecord(Line line, long lineNr) {
+		if (line.station() == null || line.type() == null || line.period() == null || line.timestamp() == null
+				|| line.value() == null) {
+			throw new JPAException(
+				String.format("Invalid record at line %d: station, type, period, timestamp and value are required", lineNr),
+				HttpStatus.BAD_REQUEST.value()
+			);
+		}
+		return new SimpleRecordDto(line.timestamp(), line.value(), line.period(), line.created_on());
+	}
+
+	private static JPAException invalid(IOException e) {
+		return new JPAException("Invalid NDJSON: " + e.getMessage(), HttpStatus.BAD_REQUEST.value(), e);
+	}
+
+	@Override
+	public void close() throws IOException {
+		lines.close();
+		parser.close();
+	}
+}
@@ -0,0 +1,200 @@
+// Copyright © 2025 NOI Techpark - Südtirol / Alto Adige (info@opendatahub.com)
+//
+// SPDX-License-Identifier: GPL-3.0-only
+
+package com.opendatahub.timeseries.bdp.writer.writer.ingest;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.opendatahub.timeseries.bdp.dto.dto.DataMapDto;
+import com.opendatahub.timeseries.bdp.dto.dto.RecordDtoImpl;
+import com.opendatahub.timeseries.bdp.writer.dal.util.DatabaseErrors;
+import com.opendatahub.timeseries.bdp.writer.dal.util.JPAException;
+
+/**
+ * Group commit for pushRecords.
+ *
+ * <p>
+ * Pushes for the same station type that arrive within {@code windowMillis}
+ * are written together: data maps with the same provenance are merged into
+ * one tree, so that stations, types and latest values are loaded once, and
+ * all of them are committed in a single transaction.
+ * </p>
+ *
+ * <p>
+ * The first push of a group waits for the window to pass, or until the group
+ * holds {@code maxRecords}, and then writes the group on its own thread. All
+ * others just wait for the result. The writer locks the timeseries of the
+ * whole group at once, see {@link Writer}. If the group fails because of its
+ * data, each push gets written on its own again, so that every caller gets
+ * its own result and a single bad push does not take down the others.
+ * Transient failures like lock timeouts or lost connections would just hit
+ * each push again, so all callers get them right away instead.
+ * </p>
+ */
+public class PushCoalescer {
+
+	private static final Logger LOG = LoggerFactory.getLogger(PushCoalescer.class);
+
+	/**
+	 * Writes a list of data maps within a single transaction, locking the
+	 * timeseries of all of them before writing any
+	 */
+	@FunctionalInterface
+	public interface Writer {
+		void write(String stationType, List<DataMapDto<RecordDtoImpl>> dataMaps, boolean backfill);
+	}
+
+	private record GroupKey(String stationType, boolean backfill) {}
+
+	private record Pending(DataMapDto<RecordDtoImpl> dataMap, CompletableFuture<Void> result) {}
+
+	private static class Group {
+		private final List<Pending> pushes = new ArrayList<>();
+		private int records = 0;
+	}
+
+	private final long windowMillis;
+	private final int maxRecords;
+	private final Writer writer;
+	private final Map<GroupKey, Group> open = new HashMap<>();
+
+	/**
+	 * @param windowMillis how long the first push of a group waits for others
+	 * @param maxRecords   write a group as soon as it holds that many records
+	 * @param writer       writes merged groups and single pushes
+	 */
+	public PushCoalescer(long windowMillis, int maxRecords, Writer writer) {
+		this.windowMillis = windowMillis;
+		this.maxRecords = maxRecords;
+		this.writer = writer;
+	}
+
+	/**
+	 * Write {@code dataMap} together with concurrent pushes, and wait until it
+	 * has been committed
+	 *
+	 * @throws JPAException if this push could not be written
+	 */
+	public void push(String stationType, DataMapDto<RecordDtoImpl> dataMap, boolean backfill) {
+		GroupKey key = new GroupKey(stationType, backfill);
+		Pending pending = new Pending(dataMap, new CompletableFuture<>());
+		Group group;
+		boolean leader;
+		synchronized (open) {
+			group = open.get(key);
+			leader = group == null;
+			if (leader) {
+				group = new Group();
+				open.put(key, group);
+			}
+			group.pushes.add(pending);
+			group.records += countRecords(dataMap);
+			if (group.records >= maxRecords) {
+				// Full, nobody else may join. Wake up the leader, if it is waiting.
+				open.remove(key, group);
+				open.notifyAll();
+			}
+		}
+
+		if (leader) {
+			awaitWindow(key, group);
+			write(stationType, group.pushes, backfill);
+		}
+		await(pending.result());
+	}
+
+	/** Wait until the window has passed or the group got closed, because it is full */
+	private void awaitWindow(GroupKey key, Group group) {
+		long deadline = System.currentTimeMillis() + windowMillis;
+		synchronized (open) {
+			try {
+				long remaining;
+				while (open.get(key) == group && (remaining = deadline - System.currentTimeMillis()) > 0) {
+					open.wait(remaining);
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} finally {
+				open.remove(key, group);
+			}
+		}
+	}
+
+	private void write(String stationType, List<Pending> pushes, boolean backfill) {
+		if (pushes.size() > 1) {
+			try {
+				writer.write(stationType, merge(pushes), backfill);
+				pushes.forEach(p -> p.result().complete(null));
+				LOG.debug("Wrote {} coalesced pushes for {}", pushes.size(), stationType);
+				return;
+			} catch (Exception e) {
+				if (DatabaseErrors.isTransient(e)) {
+					LOG.debug("Coalesced push for {} failed, failing all {} pushes", stationType, pushes.size(), e);
+					pushes.forEach(p -> p.result().completeExceptionally(e));
+					return;
+				}
+				LOG.debug("Coalesced push for {} failed, writing {} pushes separately", stationType, pushes.size(), e);
+			}
+		}
+		for (Pending p : pushes) {
+			try {
+				writer.write(stationType, List.of(p.dataMap()), backfill);
+				p.result().complete(null);
+			} catch (Exception e) {
+				p.result().completeExceptionally(e);
+			}
+		}
+	}
+
+	/** Merge all data maps with the same provenance into one tree */
+	static List<DataMapDto<RecordDtoImpl>> merge(List<Pending> pushes) {
+		Map<String, DataMapDto<RecordDtoImpl>> byProvenance = new LinkedHashMap<>();
+		for (Pending p : pushes) {
+			DataMapDto<RecordDtoImpl> dataMap = p.dataMap();
+			DataMapDto<RecordDtoImpl> merged = byProvenance.computeIfAbsent(
+				String.valueOf(dataMap.getProvenance()),
+				k -> {
+					DataMapDto<RecordDtoImpl> m = new DataMapDto<>();
+					m.setProvenance(dataMap.getProvenance());
+					return m;
+				});
+			for (var station : dataMap.getBranch().entrySet()) {
+				for (var type : station.getValue().getBranch().entrySet()) {
+					merged.upsertBranch(station.getKey()).upsertBranch(type.getKey())
+						.getData().addAll(type.getValue().getData());
+				}
+			}
+		}
+		return new ArrayList<>(byProvenance.values());
+	}
+
+	private static int countRecords(DataMapDto<RecordDtoImpl> dataMap) {
+		return dataMap.getBranch().values().stream()
+			.flatMap(s -> s.getBranch().values().stream())
+			.mapToInt(t -> t.getData().size())
+			.sum();
+	}
+
+	private static void await(CompletableFuture<Void> result) {
+		try {
+			result.get();
+		} catch (ExecutionException e) {
+			throw e.getCause() instanceof Exception cause
+				? JPAException.unnest(cause)
+				: new JPAException(e.getCause().getMessage(), e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new JPAException("Interrupted while waiting for the push to be written", e);
+		}
+	}
+}
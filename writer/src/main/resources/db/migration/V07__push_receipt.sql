@@ -0,0 +1,16 @@
+-- SPDX-FileCopyrightText: 2025 NOI Techpark <digital@noi.bz.it>
+--
+-- SPDX-License-Identifier: CC0-1.0
+set search_path to ${default_schema}, public;
+
+-- Results of completed pushRecords calls by idempotency key, see PushReceipts.
+-- Rows older than writer.push.idempotency.retention are deleted by the writer.
+create table if not exists push_receipt (
+	idempotency_key text not null,
+	status int2 not null,
+	-- JSON response body, replayed together with the status, null if there was none
+	body text,
+	created_on timestamp not null,
+	primary key (idempotency_key)
+);
+create index if not exists idx_push_receipt_created_on on push_receipt (created_on);
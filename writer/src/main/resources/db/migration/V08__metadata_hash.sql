@@ -0,0 +1,9 @@
+-- SPDX-FileCopyrightText: 2025 NOI Techpark <digital@noi.bz.it>
+--
+-- SPDX-License-Identifier: CC0-1.0
+set search_path to ${default_schema}, public;
+
+-- md5 of the meta data as canonical JSON, written by the writer, see MetaData.hash.
+-- Rows of earlier versions have none, the writer fills it in when it compares them the next time.
+alter table metadata add column if not exists json_hash varchar(32);
+alter table type_metadata add column if not exists json_hash varchar(32);
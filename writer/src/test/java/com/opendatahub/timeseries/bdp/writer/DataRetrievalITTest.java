@@ -6,13 +6,19 @@
 package com.opendatahub.timeseries.bdp.writer;
 
 import static org.junit.Assert.fail;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.commons.collections.map.SingletonMap;
 import org.junit.jupiter.api.Test;
@@ -31,7 +37,9 @@ import com.opendatahub.timeseries.bdp.writer.dal.Measurement;
 import com.opendatahub.timeseries.bdp.writer.dal.MeasurementAbstract;
 import com.opendatahub.timeseries.bdp.writer.dal.Partition;
 import com.opendatahub.timeseries.bdp.writer.dal.PartitionDef;
+import com.opendatahub.timeseries.bdp.writer.dal.PushOptions;
 import com.opendatahub.timeseries.bdp.writer.dal.Station;
+import com.opendatahub.timeseries.bdp.writer.dal.TimeSeries;
 import com.opendatahub.timeseries.bdp.writer.writer.Application;
 
 @SpringBootTest
@@ -83,6 +91,10 @@ public class DataRetrievalITTest extends WriterSetupTest {
 		dtos.add(t);
 		ResponseEntity<Object> result = dataManager.syncDataTypes(dtos, null);
 		assertEquals(HttpStatus.CREATED, result.getStatusCode());
+
+		// Nothing changed the second time
+		result = dataManager.syncDataTypes(dtos, null);
+		assertEquals(new DataType.SyncResult(0, 0, 1, 0), result.getBody());
 	}
 
 	@Test
@@ -153,6 +165,80 @@ public class DataRetrievalITTest extends WriterSetupTest {
 		}
 	}
 
+	@Test
+	public void testSyncStationsAgainAndChanged() {
+		List<StationDto> parents = new ArrayList<StationDto>();
+		parents.add(new StationDto("p1", "Parent 1", null, null));
+		parents.add(new StationDto("p2", "Parent 2", null, null));
+		dataManager.syncStations("SyncParent", parents, null, "testProvenance", "testProvenanceVersion", false, false);
+		long p1 = Station.findStation(em, "SyncParent", "p1").getId();
+		long p2 = Station.findStation(em, "SyncParent", "p2").getId();
+
+		ResponseEntity<Object> result = dataManager.syncStations("SyncChild",
+				List.of(syncStation("a", 46.5, 11.3, "p1", Map.of("x", 1)), syncStation("b", null, null, null, Map.of("y", 1))),
+				null, "testProvenance", "testProvenanceVersion", false, false);
+		assertEquals(HttpStatus.CREATED, result.getStatusCode());
+		Object[] a = stationRow("a");
+		Object[] b = stationRow("b");
+		assertEquals(11.3, a[1]);
+		assertEquals(46.5, a[2]);
+		assertEquals(p1, a[3]);
+		assertNotNull(a[4]);
+		assertNull(b[1]);
+		assertNull(b[3]);
+		assertNotNull(b[4]);
+
+		// Same stations again: nothing changes, no new meta data versions
+		dataManager.syncStations("SyncChild",
+				List.of(syncStation("a", 46.5, 11.3, "p1", Map.of("x", 1)), syncStation("b", null, null, null, Map.of("y", 1))),
+				null, "testProvenance", "testProvenanceVersion", false, false);
+		assertArrayEquals(a, stationRow("a"));
+		assertArrayEquals(b, stationRow("b"));
+		assertEquals(2L, metaDataCount("SyncChild"));
+
+		// Station a moves to another position, parent and meta data, b without coordinates keeps its own
+		dataManager.syncStations("SyncChild",
+				List.of(syncStation("a", 46.6, 11.4, "p2", Map.of("x", 2)), syncStation("b", null, null, null, Map.of("y", 1))),
+				null, "testProvenance", "testProvenanceVersion", false, false);
+		Object[] a2 = stationRow("a");
+		assertEquals(a[0], a2[0]);
+		assertEquals(11.4, a2[1]);
+		assertEquals(46.6, a2[2]);
+		assertEquals(p2, a2[3]);
+		assertNotEquals(a[4], a2[4]);
+		assertEquals("{\"x\": 2}", em.createNativeQuery("SELECT json::text FROM metadata WHERE id = ?1", String.class)
+				.setParameter(1, a2[4])
+				.getSingleResult());
+		assertArrayEquals(b, stationRow("b"));
+		assertEquals(3L, metaDataCount("SyncChild"));
+	}
+
+	private static StationDto syncStation(String code, Double latitude, Double longitude, String parent,
+			Map<String, Object> metaData) {
+		StationDto dto = new StationDto(code, "Station " + code, latitude, longitude);
+		if (parent != null) {
+			dto.setParentStation(parent);
+			dto.setParentStationType("SyncParent");
+		}
+		dto.setMetaData(metaData);
+		return dto;
+	}
+
+	/** @return id, x, y, parent_id and meta_data_id of a station synced by testSyncStationsAgainAndChanged */
+	private Object[] stationRow(String code) {
+		return (Object[]) em.createNativeQuery("SELECT id, ST_X(pointprojection), ST_Y(pointprojection), parent_id, meta_data_id"
+				+ " FROM station WHERE stationtype = 'SyncChild' AND stationcode = ?1", Object[].class)
+			.setParameter(1, code)
+			.getSingleResult();
+	}
+
+	private long metaDataCount(String stationType) {
+		return ((Number) em.createNativeQuery("SELECT count(*) FROM metadata m JOIN station s ON s.id = m.station_id"
+				+ " WHERE s.stationtype = ?1")
+			.setParameter(1, stationType)
+			.getSingleResult()).longValue();
+	}
+
 	@Test
 	public void testDuplicateMeasurements() {
 		List<RecordDtoImpl> values = new ArrayList<>();
@@ -225,6 +311,89 @@ public class DataRetrievalITTest extends WriterSetupTest {
 		assertEquals(7, qResult.intValue());
 	}
 	
+	@Test
+	public void testBackfillSkipsExisting() {
+		DataType tCount = new DataType("backfillcount", "", "Fake type", "test");
+		em.getTransaction().begin();
+		em.persist(tCount);
+		em.getTransaction().commit();
+
+		long ts = 1737041440;
+		String body = String.format("{\"provenance\": \"%s\", \"branch\": {\"%s\": {\"branch\": {\"%s\": {\"data\": ["
+			+ "{\"timestamp\": %d, \"value\": 1.0, \"period\": 600},"
+			+ "{\"timestamp\": %d, \"value\": 1.1, \"period\": 600},"
+			+ "{\"timestamp\": %d, \"value\": 1.1, \"period\": 600}"
+			+ "]}}}}}", provenance.getUuid(), station.getStationcode(), tCount.getCname(), ts, ts + 1, ts + 1);
+		for (int i = 0; i < 2; i++) {
+			ResponseEntity<Object> result = dataManager.pushRecords(STATION_TYPE, null,
+				new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), true);
+			assertEquals(HttpStatus.CREATED, result.getStatusCode());
+		}
+
+		// Each timestamp once, no matter how often it has been pushed
+		var count = em.createQuery("select count(*) from MeasurementHistory where timeseries.type.id = " + tCount.getId(),
+			Long.class).getSingleResult();
+		assertEquals(2L, count);
+	}
+
+	@Test
+	public void testStreamedPushAcrossBatches() {
+		DataType tCount = new DataType("streamcount", "", "Fake type", "test");
+		em.getTransaction().begin();
+		em.persist(tCount);
+		em.getTransaction().commit();
+
+		long ts = 1737041440;
+		List<RecordDtoImpl> recs = new ArrayList<>();
+		recs.add(new SimpleRecordDto(ts + 1, 1.0, 600));
+		dataManager.pushRecords(STATION_TYPE, null, DataMapDto.build(provenance.getUuid(), station.getStationcode(), tCount.getCname(), recs));
+
+		// Descending timestamps, split into batches like a streamed push does
+		List<RecordDtoImpl> first = new ArrayList<>();
+		first.add(new SimpleRecordDto(ts + 5, 1.5, 600));
+		first.add(new SimpleRecordDto(ts + 4, 1.4, 600));
+		List<RecordDtoImpl> second = new ArrayList<>();
+		second.add(new SimpleRecordDto(ts + 4, 1.4, 600));
+		second.add(new SimpleRecordDto(ts + 3, 1.3, 600));
+		second.add(new SimpleRecordDto(ts + 2, 1.2, 600));
+		second.add(new SimpleRecordDto(ts + 1, 1.1, 600));
+		second.add(new SimpleRecordDto(ts, 1.0, 600));
+		List<DataMapDto<RecordDtoImpl>> batches = List.of(
+			DataMapDto.build(provenance.getUuid(), station.getStationcode(), tCount.getCname(), first),
+			DataMapDto.build(provenance.getUuid(), station.getStationcode(), tCount.getCname(), second));
+		TimeSeries.pushRecords(entityManagerFactory.createEntityManager(), STATION_TYPE, batches.iterator(), PushOptions.defaults());
+
+		// Everything newer than before the push, each timestamp once
+		var timestamps = em.createQuery("select m.timestamp from MeasurementHistory m where m.timeseries.type.id = "
+			+ tCount.getId() + " order by m.timestamp", Date.class).getResultList();
+		assertEquals(List.of(ts + 1, ts + 2, ts + 3, ts + 4, ts + 5), timestamps.stream().map(Date::getTime).toList());
+		var latest = em.createQuery("select m.timestamp from Measurement m where m.timeseries.type.id = " + tCount.getId(),
+			Date.class).getSingleResult();
+		assertEquals(ts + 5, latest.getTime());
+	}
+
+	@Test
+	public void testPushJsonRecords() {
+		DataType tJson = new DataType("jsonvalue", "", "Fake type", "test");
+		em.getTransaction().begin();
+		em.persist(tJson);
+		em.getTransaction().commit();
+
+		String body = String.format("{\"provenance\": \"%s\", \"branch\": {\"%s\": {\"branch\": {\"%s\": {\"data\": ["
+			+ "{\"timestamp\": 1737041440000, \"value\": {\"a\": 1, \"b\": {\"c\": \"x\"}}, \"period\": 600}"
+			+ "]}}}}}", provenance.getUuid(), station.getStationcode(), tJson.getCname());
+		ResponseEntity<Object> result = dataManager.pushRecords(STATION_TYPE, null,
+			new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), false);
+		assertEquals(HttpStatus.CREATED, result.getStatusCode());
+
+		var history = em.createQuery("select m.jsonValue from MeasurementJSONHistory m where m.timeseries.type.id = "
+			+ tJson.getId(), Map.class).getSingleResult();
+		assertEquals(Map.of("a", 1, "b", Map.of("c", "x")), history);
+		var latest = em.createQuery("select m.jsonValue from MeasurementJSON m where m.timeseries.type.id = "
+			+ tJson.getId(), Map.class).getSingleResult();
+		assertEquals(history, latest);
+	}
+
 	@Test
 	public void testPartitionDef(){
 		em.getTransaction().begin();
@@ -50,7 +50,7 @@ import jakarta.persistence.PersistenceUnit;
 public abstract class WriterSetupTest extends AbstractJUnit4SpringContextTests {
 
     @PersistenceUnit
-    private EntityManagerFactory entityManagerFactory;
+    protected EntityManagerFactory entityManagerFactory;
 
     @Autowired
     DataManager dataManager;
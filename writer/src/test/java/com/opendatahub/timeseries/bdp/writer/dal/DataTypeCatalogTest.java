@@ -0,0 +1,54 @@
+// Copyright © 2025 NOI Techpark - Südtirol / Alto Adige (info@opendatahub.com)
+//
+// SPDX-License-Identifier: GPL-3.0-only
+
+package com.opendatahub.timeseries.bdp.writer.dal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+
+import com.opendatahub.timeseries.bdp.writer.dal.DataTypeCatalog.Entry;
+import com.opendatahub.timeseries.bdp.writer.dal.DataTypeCatalog.Snapshot;
+
+public class DataTypeCatalogTest {
+
+	private final Snapshot snapshot = new Snapshot(3, Map.of(
+		"air-temperature", new Entry(7L, "air-temperature", "°C", "Mean", "Air temperature", null),
+		"wind-speed", new Entry(8L, "wind-speed", "m/s", null, null, MetaData.hash(Map.of("a", 1)))
+	), 0);
+
+	@Test
+	public void testLookup() {
+		assertEquals(8L, snapshot.get("wind-speed").id());
+		assertNull(snapshot.get("unknown"));
+		assertEquals(Set.of("air-temperature", "wind-speed"), Set.copyOf(snapshot.names()));
+		assertEquals(3, snapshot.getVersion());
+		// Snapshots never change
+		assertThrows(UnsupportedOperationException.class, () -> snapshot.names().add("other"));
+	}
+
+	@Test
+	public void testReference() {
+		DataType type = snapshot.get("air-temperature").toReference();
+		assertEquals(7L, type.getId());
+		assertEquals("air-temperature", type.getCname());
+		assertEquals("°C", type.getCunit());
+		assertEquals("Mean", type.getRtype());
+	}
+
+	@Test
+	public void testMetaDataHash() {
+		// Same content, keys in any order, nested maps included
+		Map<String, Object> metaData = new TreeMap<>(Map.of("b", 2, "a", Map.of("y", 1, "x", 2)));
+		assertEquals(MetaData.hash(Map.of("a", Map.of("x", 2, "y", 1), "b", 2)), MetaData.hash(metaData));
+		assertEquals(snapshot.get("wind-speed").metaDataHash(), MetaData.hash(Map.of("a", 1)));
+		assertEquals(32, MetaData.hash(null).length());
+	}
+}
@@ -0,0 +1,51 @@
+// Copyright © 2025 NOI Techpark - Südtirol / Alto Adige (info@opendatahub.com)
+//
+// SPDX-License-Identifier: GPL-3.0-only
+
+package com.opendatahub.timeseries.bdp.writer.dal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.opendatahub.timeseries.bdp.writer.dal.PartitionRules.Rule;
+import com.opendatahub.timeseries.bdp.writer.dal.PartitionRules.Snapshot;
+
+public class PartitionRulesTest {
+
+	private static final Long TYPE = 7L;
+
+	private final Snapshot snapshot = new Snapshot(List.of(
+		new Rule(1L, "or1", null, null, null),
+		new Rule(1L, "or1", "s1", null, null),
+		new Rule(1L, "or1", "s1", TYPE, null),
+		new Rule(1L, "or1", "s1", TYPE, 100),
+		new Rule(2L, "or2", "s1", TYPE, 100),
+		new Rule(3L, "or3", "s1", null, null),
+		new Rule(4L, "or3", null, TYPE, null),
+		new Rule(5L, null, null, null, 300)
+	), 1L, 0);
+
+	@Test
+	public void testMostSpecificWins() {
+		// or2 is only defined for a specific period
+		assertNull(snapshot.find("or2", "s1", TYPE, null));
+		assertEquals(2L, snapshot.find("or2", "s1", TYPE, 100));
+
+		assertEquals(1L, snapshot.find("or1", "s1", TYPE, 100));
+		assertEquals(1L, snapshot.find("or1", "s1", TYPE, null));
+		assertEquals(1L, snapshot.find("or1", "other", 8L, 600));
+		assertEquals(5L, snapshot.find("other", "s1", TYPE, 300));
+		assertNull(snapshot.find("other", "s1", TYPE, 600));
+	}
+
+	@Test
+	public void testTieGoesToHighestPartition() {
+		// both or3 rules have two matching fields
+		assertEquals(4L, snapshot.find("or3", "s1", TYPE, null));
+		assertEquals(3L, snapshot.find("or3", "s1", 8L, null));
+	}
+}
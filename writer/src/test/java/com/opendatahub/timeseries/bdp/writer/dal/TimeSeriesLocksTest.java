@@ -0,0 +1,92 @@
+// Copyright © 2025 NOI Techpark - Südtirol / Alto Adige (info@opendatahub.com)
+//
+// SPDX-License-Identifier: GPL-3.0-only
+
+package com.opendatahub.timeseries.bdp.writer.dal;
+
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.Test;
+
+import com.opendatahub.timeseries.bdp.writer.dal.util.JPAException;
+
+public class TimeSeriesLocksTest {
+
+	private static Throwable inOtherThread(Runnable r) throws Exception {
+		return CompletableFuture.runAsync(r).handle((v, e) -> e == null ? null : e.getCause()).get();
+	}
+
+	@Test
+	public void testOverlappingWaits() throws Exception {
+		TimeSeriesLocks locks = new TimeSeriesLocks(16, 50);
+		// find an id on a different stripe than 1
+		long other = 2;
+		while (locks.stripeOf(other) == locks.stripeOf(1)) {
+			other++;
+		}
+		long disjoint = other;
+
+		try (var holder = locks.holder()) {
+			holder.lock(List.of(1L));
+			assertNull(inOtherThread(() -> {
+				try (var h = locks.holder()) {
+					h.lock(List.of(disjoint));
+				}
+			}));
+			Throwable timeout = inOtherThread(() -> {
+				try (var h = locks.holder()) {
+					h.lock(List.of(disjoint, 1L));
+				}
+			});
+			assertInstanceOf(JPAException.class, timeout);
+		}
+		assertNull(inOtherThread(() -> {
+			try (var h = locks.holder()) {
+				h.lock(List.of(disjoint, 1L));
+			}
+		}));
+	}
+
+	@Test
+	public void testOutOfOrderFailsFast() throws Exception {
+		TimeSeriesLocks locks = new TimeSeriesLocks(16, 60_000);
+		long low = 1;
+		long high = 2;
+		while (locks.stripeOf(high) <= locks.stripeOf(low)) {
+			high++;
+		}
+		long higher = high;
+
+		CountDownLatch lowLocked = new CountDownLatch(1);
+		try (var streamed = locks.holder()) {
+			streamed.lock(List.of(higher));
+			// Another push holds the lower stripe and waits for ours
+			CompletableFuture<Void> other = CompletableFuture.runAsync(() -> {
+				try (var h = locks.holder()) {
+					h.lock(List.of(low));
+					lowLocked.countDown();
+					h.lock(List.of(higher));
+				}
+			});
+			lowLocked.await();
+			long start = System.currentTimeMillis();
+			Throwable deadlock = null;
+			try {
+				// A later batch of the streamed push needs the lower stripe
+				streamed.lock(List.of(low));
+			} catch (JPAException e) {
+				deadlock = e;
+			}
+			assertInstanceOf(JPAException.class, deadlock);
+			assertTrue(System.currentTimeMillis() - start < 10_000);
+			streamed.close();
+			other.get();
+		}
+	}
+}
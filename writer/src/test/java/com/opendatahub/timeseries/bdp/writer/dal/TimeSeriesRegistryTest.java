@@ -0,0 +1,45 @@
+// Copyright © 2025 NOI Techpark - Südtirol / Alto Adige (info@opendatahub.com)
+//
+// SPDX-License-Identifier: GPL-3.0-only
+
+package com.opendatahub.timeseries.bdp.writer.dal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import com.opendatahub.timeseries.bdp.writer.dal.TimeSeries.Key;
+import com.opendatahub.timeseries.bdp.writer.dal.TimeSeries.ValueTable;
+
+public class TimeSeriesRegistryTest {
+
+	@Test
+	public void testLookup() {
+		TimeSeriesRegistry registry = new TimeSeriesRegistry(100);
+		registry.put(new Key(1L, 2L, 600, ValueTable.NUMBER), 42L, 1L);
+
+		var entry = registry.get(new Key(1L, 2L, 600, ValueTable.NUMBER));
+		assertEquals(42L, entry.timeseriesId());
+		assertEquals(1L, entry.partitionId());
+		assertNull(registry.get(new Key(1L, 2L, 600, ValueTable.STRING)));
+		assertNull(registry.get(new Key(1L, 2L, 300, ValueTable.NUMBER)));
+
+		registry.invalidate(new Key(1L, 2L, 600, ValueTable.NUMBER));
+		assertNull(registry.get(new Key(1L, 2L, 600, ValueTable.NUMBER)));
+	}
+
+	@Test
+	public void testBounded() {
+		TimeSeriesRegistry registry = new TimeSeriesRegistry(100);
+		for (long i = 0; i < 1000; i++) {
+			registry.put(new Key(i, 1L, 600, ValueTable.NUMBER), i, 1L);
+		}
+		assertTrue(registry.size() <= 100);
+
+		TimeSeriesRegistry disabled = new TimeSeriesRegistry(0);
+		disabled.put(new Key(1L, 1L, 600, ValueTable.NUMBER), 1L, 1L);
+		assertEquals(0, disabled.size());
+	}
+}
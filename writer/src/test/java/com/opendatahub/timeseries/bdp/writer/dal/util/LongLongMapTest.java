@@ -0,0 +1,52 @@
+// Copyright © 2025 NOI Techpark - Südtirol / Alto Adige (info@opendatahub.com)
+//
+// SPDX-License-Identifier: GPL-3.0-only
+
+package com.opendatahub.timeseries.bdp.writer.dal.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class LongLongMapTest {
+
+	@Test
+	public void testAgainstHashMap() {
+		LongLongMap map = new LongLongMap(4);
+		Map<Long, Long> expected = new HashMap<>();
+		Random random = new Random(42);
+		for (int i = 0; i < 100_000; i++) {
+			// small key range, so that we hit existing keys and removals often
+			long key = random.nextInt(5_000) - 10;
+			if (random.nextInt(3) == 0) {
+				map.remove(key);
+				expected.remove(key);
+			} else {
+				map.put(key, i);
+				expected.put(key, (long) i);
+			}
+		}
+		assertEquals(expected.size(), map.size());
+		for (long key = -10; key < 5_000; key++) {
+			assertEquals(expected.getOrDefault(key, -1L).longValue(), map.get(key, -1));
+			assertEquals(expected.containsKey(key), map.containsKey(key));
+		}
+	}
+
+	@Test
+	public void testZeroKeyAndClear() {
+		LongLongMap map = new LongLongMap();
+		map.put(0, 7);
+		assertTrue(map.containsKey(0));
+		assertEquals(7, map.get(0, -1));
+		map.clear();
+		assertFalse(map.containsKey(0));
+		assertEquals(0, map.size());
+	}
+}
@@ -0,0 +1,71 @@
+// Copyright © 2025 NOI Techpark - Südtirol / Alto Adige (info@opendatahub.com)
+//
+// SPDX-License-Identifier: GPL-3.0-only
+
+package com.opendatahub.timeseries.bdp.writer.writer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+public class RequestDecompressionFilterTest {
+
+	private static byte[] gzip(byte[] data) throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+			gzip.write(data);
+		}
+		return out.toByteArray();
+	}
+
+	private static HttpServletRequest filter(MockHttpServletRequest request, MockHttpServletResponse response,
+			long maxSize) throws Exception {
+		RequestDecompressionFilter filter = new RequestDecompressionFilter();
+		ReflectionTestUtils.setField(filter, "maxDecompressedSize", maxSize);
+		MockFilterChain chain = new MockFilterChain();
+		filter.doFilter(request, response, chain);
+		return (HttpServletRequest) chain.getRequest();
+	}
+
+	private static MockHttpServletRequest request(String encoding, byte[] body) {
+		MockHttpServletRequest request = new MockHttpServletRequest("POST", "/json/pushRecords/T");
+		request.addHeader("Content-Encoding", encoding);
+		request.setContent(body);
+		return request;
+	}
+
+	@Test
+	public void testGzip() throws Exception {
+		byte[] body = "{\"provenance\":\"p\",\"branch\":{}}".repeat(100).getBytes();
+		HttpServletRequest filtered = filter(request("gzip", gzip(body)), new MockHttpServletResponse(), 1 << 20);
+		assertNull(filtered.getHeader("Content-Encoding"));
+		assertEquals(-1, filtered.getContentLength());
+		assertArrayEquals(body, filtered.getInputStream().readAllBytes());
+	}
+
+	@Test
+	public void testTooLarge() throws Exception {
+		byte[] body = new byte[10_000];
+		HttpServletRequest filtered = filter(request("gzip", gzip(body)), new MockHttpServletResponse(), 9_999);
+		assertThrows(RequestDecompressionFilter.BodyTooLargeException.class, () -> filtered.getInputStream().readAllBytes());
+	}
+
+	@Test
+	public void testUnsupported() throws Exception {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		assertNull(filter(request("br", new byte[] {1}), response, 1 << 20));
+		assertEquals(415, response.getStatus());
+	}
+}
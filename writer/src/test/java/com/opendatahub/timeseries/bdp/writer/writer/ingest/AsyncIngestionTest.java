@@ -0,0 +1,143 @@
+// Copyright © 2025 NOI Techpark - Südtirol / Alto Adige (info@opendatahub.com)
+//
+// SPDX-License-Identifier: GPL-3.0-only
+
+package com.opendatahub.timeseries.bdp.writer.writer.ingest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.opendatahub.timeseries.bdp.writer.dal.util.JPAException;
+
+public class AsyncIngestionTest {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	public void testShutdownLeavesPushPending() throws Exception {
+		CountDownLatch writing = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		IngestionLog log = new IngestionLog(dir, 1024, false);
+		AsyncIngestion ingestion = new AsyncIngestion(log, (stationType, body, backfill) -> {
+			writing.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			// The database went away while shutting down
+			throw new JPAException("Connection closed", 503);
+		}, 1, 10, 10);
+		ingestion.start();
+		var ticket = ingestion.submit("Station", "{}".getBytes(StandardCharsets.UTF_8), false);
+		writing.await();
+
+		// close waits for the push being written
+		CompletableFuture<Void> closed = CompletableFuture.runAsync(() -> {
+			try {
+				ingestion.close();
+			} catch (Exception e) {
+				throw new RuntimeException(e);
+			}
+		});
+		Thread.sleep(100);
+		release.countDown();
+		closed.get(10, TimeUnit.SECONDS);
+
+		assertEquals(AsyncIngestion.Status.PENDING, ingestion.status(ticket.ticket()).status());
+		IngestionLog reopened = new IngestionLog(dir, 1024, false);
+		assertEquals(1, reopened.recover().size());
+		reopened.close();
+	}
+
+	@Test
+	public void testTransientFailureStaysPending() throws Exception {
+		AtomicBoolean databaseDown = new AtomicBoolean(true);
+		List<String> written = new CopyOnWriteArrayList<>();
+		IngestionLog log = new IngestionLog(dir, 1024, false);
+		AsyncIngestion ingestion = new AsyncIngestion(log, (stationType, body, backfill) -> {
+			String push = read(body);
+			if (stationType.equals("Down") && databaseDown.get()) {
+				throw new JPAException("Connection refused", 503);
+			}
+			written.add(push);
+		}, 1, 10, 10);
+		ingestion.start();
+		var first = ingestion.submit("Down", "1".getBytes(StandardCharsets.UTF_8), false);
+		var second = ingestion.submit("Down", "2".getBytes(StandardCharsets.UTF_8), false);
+		var other = ingestion.submit("Up", "3".getBytes(StandardCharsets.UTF_8), false);
+
+		// Far more tries than any fixed limit, the other station type is not held up
+		awaitStatus(ingestion, other.ticket(), AsyncIngestion.Status.DONE);
+		Thread.sleep(500);
+		assertEquals(AsyncIngestion.Status.PENDING, ingestion.status(first.ticket()).status());
+		assertEquals(AsyncIngestion.Status.PENDING, ingestion.status(second.ticket()).status());
+
+		databaseDown.set(false);
+		awaitStatus(ingestion, second.ticket(), AsyncIngestion.Status.DONE);
+		assertEquals(AsyncIngestion.Status.DONE, ingestion.status(first.ticket()).status());
+		assertEquals(List.of("3", "1", "2"), written);
+		ingestion.close();
+	}
+
+	@Test
+	public void testPendingTicketsAreKept() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		IngestionLog log = new IngestionLog(dir, 1024, false);
+		AsyncIngestion ingestion = new AsyncIngestion(log, (stationType, body, backfill) -> {
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}, 1, 10, 2);
+		ingestion.start();
+		var first = ingestion.submit("Station", "{}".getBytes(StandardCharsets.UTF_8), false);
+		for (int i = 0; i < 5; i++) {
+			ingestion.submit("Station", "{}".getBytes(StandardCharsets.UTF_8), false);
+		}
+		assertNotNull(ingestion.status(first.ticket()));
+
+		release.countDown();
+		var last = ingestion.submit("Station", "{}".getBytes(StandardCharsets.UTF_8), false);
+		awaitStatus(ingestion, last.ticket(), AsyncIngestion.Status.DONE);
+		var newest = ingestion.submit("Station", "{}".getBytes(StandardCharsets.UTF_8), false);
+		awaitStatus(ingestion, newest.ticket(), AsyncIngestion.Status.DONE);
+		// Finished tickets are forgotten again
+		assertNull(ingestion.status(first.ticket()));
+		ingestion.close();
+	}
+
+	private static void awaitStatus(AsyncIngestion ingestion, String ticket, AsyncIngestion.Status status)
+			throws InterruptedException {
+		for (int i = 0; i < 100 && ingestion.status(ticket).status() != status; i++) {
+			Thread.sleep(50);
+		}
+		assertEquals(status, ingestion.status(ticket).status());
+	}
+
+	private static String read(InputStream body) {
+		try {
+			return new String(body.readAllBytes(), StandardCharsets.UTF_8);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+}
@@ -0,0 +1,132 @@
+// Copyright © 2025 NOI Techpark - Südtirol / Alto Adige (info@opendatahub.com)
+//
+// SPDX-License-Identifier: GPL-3.0-only
+
+package com.opendatahub.timeseries.bdp.writer.writer.ingest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.opendatahub.timeseries.bdp.dto.dto.DataMapDto;
+import com.opendatahub.timeseries.bdp.dto.dto.RecordDtoImpl;
+import com.opendatahub.timeseries.bdp.dto.dto.SimpleRecordDto;
+import com.opendatahub.timeseries.bdp.writer.dal.util.JPAException;
+
+public class DataMapStreamReaderTest {
+
+	private final ObjectMapper mapper = new ObjectMapper();
+
+	private DataMapDto<RecordDtoImpl> sample() {
+		DataMapDto<RecordDtoImpl> map = new DataMapDto<>();
+		map.setProvenance("prov-uuid");
+		for (String station : List.of("s1", "s2")) {
+			for (String type : List.of("t1", "t2")) {
+				for (long ts = 1; ts <= 3; ts++) {
+					map.addRecord(station, type, new SimpleRecordDto(ts, (Object) (station + type + ts), 600));
+				}
+			}
+		}
+		return map;
+	}
+
+	private List<DataMapDto<RecordDtoImpl>> readAll(String json, int batchSize) throws Exception {
+		List<DataMapDto<RecordDtoImpl>> batches = new ArrayList<>();
+		try (DataMapStreamReader reader = new DataMapStreamReader(mapper,
+				new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), batchSize)) {
+			reader.forEachRemaining(batches::add);
+		}
+		return batches;
+	}
+
+	private int count(List<DataMapDto<RecordDtoImpl>> batches) {
+		return batches.stream()
+			.flatMap(b -> b.getBranch().values().stream())
+			.flatMap(s -> s.getBranch().values().stream())
+			.mapToInt(t -> t.getData().size())
+			.sum();
+	}
+
+	@Test
+	public void testBatching() throws Exception {
+		String json = mapper.writeValueAsString(sample());
+		List<DataMapDto<RecordDtoImpl>> batches = readAll(json, 5);
+		assertEquals(3, batches.size());
+		assertEquals(12, count(batches));
+		batches.forEach(b -> assertEquals("prov-uuid", b.getProvenance()));
+
+		SimpleRecordDto first = (SimpleRecordDto) batches.get(0).getBranch().get("s1").getBranch().get("t1").getData().get(0);
+		assertEquals(1L, first.getTimestamp());
+		assertEquals("s1t11", first.getValue());
+		assertEquals(600, first.getPeriod());
+	}
+
+	@Test
+	public void testWholeBranches() throws Exception {
+		byte[] json = mapper.writeValueAsBytes(sample());
+		List<DataMapDto<RecordDtoImpl>> batches = new ArrayList<>();
+		// 5 records would split a branch of 3, so each batch gets 2 whole branches
+		try (DataMapStreamReader reader = new DataMapStreamReader(mapper, new ByteArrayInputStream(json), 5, 10)) {
+			reader.forEachRemaining(batches::add);
+		}
+		assertEquals(2, batches.size());
+		assertEquals(Map.of("s1", List.of("t1", "t2")), DataMapStreamReader.branchesOf(batches.get(0)));
+		assertEquals(6, DataMapStreamReader.recordsOf(batches.get(1)));
+
+		batches.clear();
+		try (DataMapStreamReader reader = new DataMapStreamReader(mapper, new ByteArrayInputStream(json), 100, 1)) {
+			reader.forEachRemaining(batches::add);
+		}
+		assertEquals(4, batches.size());
+		assertEquals(Map.of("s2", List.of("t1")), DataMapStreamReader.branchesOf(batches.get(2)));
+	}
+
+	@Test
+	public void testProvenanceAfterBranch() throws Exception {
+		String json = mapper.writeValueAsString(sample());
+		// Move provenance to the end, like older clients serialize it
+		json = json.replace("\"provenance\":\"prov-uuid\",", "");
+		json = json.substring(0, json.length() - 1) + ",\"provenance\":\"prov-uuid\"}";
+		List<DataMapDto<RecordDtoImpl>> batches = readAll(json, 100);
+		assertEquals(1, batches.size());
+		assertEquals(12, count(batches));
+		assertEquals("prov-uuid", batches.get(0).getProvenance());
+	}
+
+	@Test
+	public void testSmile() throws Exception {
+		ObjectMapper smile = mapper.copyWith(new SmileFactory());
+		byte[] body = smile.writeValueAsBytes(sample());
+		List<DataMapDto<RecordDtoImpl>> batches = new ArrayList<>();
+		try (DataMapStreamReader reader = new DataMapStreamReader(smile, new ByteArrayInputStream(body), 5)) {
+			reader.forEachRemaining(batches::add);
+		}
+		assertEquals(3, batches.size());
+		assertEquals(12, count(batches));
+		assertEquals("prov-uuid", batches.get(2).getProvenance());
+	}
+
+	@Test
+	public void testEmpty() throws Exception {
+		List<DataMapDto<RecordDtoImpl>> batches = readAll("{\"provenance\":\"prov-uuid\",\"branch\":{}}", 10);
+		// One empty batch, so that the provenance still gets validated
+		assertEquals(1, batches.size());
+		assertTrue(batches.get(0).getBranch().isEmpty());
+		assertEquals("prov-uuid", batches.get(0).getProvenance());
+	}
+
+	@Test
+	public void testTruncated() {
+		assertThrows(JPAException.class, () -> readAll("{\"provenance\":\"prov-uuid\",\"branch\":{\"s1\":{\"branch\":{", 10));
+	}
+}
@@ -0,0 +1,79 @@
+// Copyright © 2025 NOI Techpark - Südtirol / Alto Adige (info@opendatahub.com)
+//
+// SPDX-License-Identifier: GPL-3.0-only
+
+package com.opendatahub.timeseries.bdp.writer.writer.ingest;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class IngestionLogTest {
+
+	@TempDir
+	Path dir;
+
+	private static byte[] body(int i) {
+		return ("{\"push\":" + i + "}").getBytes(StandardCharsets.UTF_8);
+	}
+
+	private long segments() throws Exception {
+		try (var files = Files.list(dir)) {
+			return files.count();
+		}
+	}
+
+	@Test
+	public void testRecover() throws Exception {
+		IngestionLog log = new IngestionLog(dir, 128, false);
+		assertTrue(log.recover().isEmpty());
+		UUID[] tickets = new UUID[5];
+		IngestionLog.Entry[] entries = new IngestionLog.Entry[5];
+		for (int i = 0; i < 5; i++) {
+			tickets[i] = UUID.randomUUID();
+			// small segments, at most two entries each
+			entries[i] = log.append(tickets[i], "Station", i % 2 == 0, body(i));
+		}
+		assertEquals(3, segments());
+		log.markDone(entries[0]);
+		log.markDone(entries[1]);
+		// first segment is done
+		assertEquals(2, segments());
+		log.markDone(entries[3]);
+		log.close();
+
+		IngestionLog reopened = new IngestionLog(dir, 128, false);
+		List<IngestionLog.Entry> pending = reopened.recover();
+		assertEquals(2, pending.size());
+		assertEquals(tickets[2], pending.get(0).getTicket());
+		assertEquals(tickets[4], pending.get(1).getTicket());
+		assertEquals("Station", pending.get(1).getStationType());
+		assertTrue(pending.get(1).isBackfill());
+		assertArrayEquals(body(4), pending.get(1).readBody());
+
+		// new entries go to a new segment
+		reopened.append(UUID.randomUUID(), "Station", false, body(5));
+		for (IngestionLog.Entry entry : pending) {
+			reopened.markDone(entry);
+		}
+		assertEquals(1, segments());
+	}
+
+	@Test
+	public void testTooLarge() throws Exception {
+		IngestionLog log = new IngestionLog(dir, 128, false);
+		assertThrows(IllegalArgumentException.class,
+			() -> log.append(UUID.randomUUID(), "Station", false, new byte[log.maxBodySize("Station") + 1]));
+		log.append(UUID.randomUUID(), "Station", false, new byte[log.maxBodySize("Station")]);
+	}
+}
@@ -0,0 +1,83 @@
+// Copyright © 2025 NOI Techpark - Südtirol / Alto Adige (info@opendatahub.com)
+//
+// SPDX-License-Identifier: GPL-3.0-only
+
+package com.opendatahub.timeseries.bdp.writer.writer.ingest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.opendatahub.timeseries.bdp.dto.dto.SimpleRecordDto;
+import com.opendatahub.timeseries.bdp.writer.dal.util.JPAException;
+
+public class NdjsonRecordReaderTest {
+
+	private final ObjectMapper mapper = new ObjectMapper();
+
+	private List<NdjsonRecordReader.Chunk> readAll(String ndjson, int chunkSize) throws Exception {
+		List<NdjsonRecordReader.Chunk> chunks = new ArrayList<>();
+		try (NdjsonRecordReader reader = new NdjsonRecordReader(mapper,
+				new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)), "prov-uuid", chunkSize, 0)) {
+			reader.forEachRemaining(chunks::add);
+		}
+		return chunks;
+	}
+
+	private static String line(String station, String type, long ts, String value) {
+		return String.format("{\"station\":\"%s\",\"type\":\"%s\",\"period\":600,\"timestamp\":%d,\"value\":%s}\n",
+			station, type, ts, value);
+	}
+
+	@Test
+	public void testChunks() throws Exception {
+		StringBuilder ndjson = new StringBuilder();
+		for (long ts = 1; ts <= 5; ts++) {
+			ndjson.append(line("s1", "t1", ts, String.valueOf(ts * 1.5)));
+			ndjson.append(line("s2", "t2", ts, "\"text\""));
+		}
+		// blank lines are ignored, but counted
+		ndjson.append("\n").append(line("s1", "t3", 1, "{\"a\":1}"));
+
+		List<NdjsonRecordReader.Chunk> chunks = readAll(ndjson.toString(), 4);
+		assertEquals(3, chunks.size());
+		assertEquals(1L, chunks.get(0).firstLine());
+		assertEquals(4L, chunks.get(0).lastLine());
+		assertEquals(5L, chunks.get(1).firstLine());
+		assertEquals(3, chunks.get(2).records());
+		assertEquals(12L, chunks.get(2).lastLine());
+		assertEquals("prov-uuid", chunks.get(2).dataMap().getProvenance());
+
+		var data = chunks.get(2).dataMap().getBranch();
+		SimpleRecordDto number = (SimpleRecordDto) data.get("s1").getBranch().get("t1").getData().get(0);
+		assertEquals(5L, number.getTimestamp());
+		assertEquals(7.5, number.getValue());
+		assertEquals(600, number.getPeriod());
+		assertTrue(data.get("s1").getBranch().get("t3").getData().get(0).getValue() instanceof Map);
+	}
+
+	@Test
+	public void testInvalid() throws Exception {
+		String missingValue = line("s1", "t1", 1, "1") + "{\"station\":\"s1\",\"type\":\"t1\",\"period\":600,\"timestamp\":2}\n";
+		JPAException e = assertThrows(JPAException.class, () -> readAll(missingValue, 10));
+		assertTrue(e.getMessage().contains("line 2"), e.getMessage());
+
+		String malformed = line("s1", "t1", 1, "1") + line("s1", "t1", 2, "2") + "{\"station\":\n";
+		List<NdjsonRecordReader.Chunk> chunks = new ArrayList<>();
+		try (NdjsonRecordReader reader = new NdjsonRecordReader(mapper,
+				new ByteArrayInputStream(malformed.getBytes(StandardCharsets.UTF_8)), "prov-uuid", 2, 0)) {
+			chunks.add(reader.next());
+			assertThrows(JPAException.class, reader::hasNext);
+		}
+		assertEquals(2, chunks.get(0).records());
+	}
+}
@@ -0,0 +1,98 @@
+// Copyright © 2025 NOI Techpark - Südtirol / Alto Adige (info@opendatahub.com)
+//
+// SPDX-License-Identifier: GPL-3.0-only
+
+package com.opendatahub.timeseries.bdp.writer.writer.ingest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.Test;
+
+import com.opendatahub.timeseries.bdp.dto.dto.DataMapDto;
+import com.opendatahub.timeseries.bdp.dto.dto.RecordDtoImpl;
+import com.opendatahub.timeseries.bdp.dto.dto.SimpleRecordDto;
+import com.opendatahub.timeseries.bdp.writer.dal.util.JPAException;
+
+public class PushCoalescerTest {
+
+	private final List<List<DataMapDto<RecordDtoImpl>>> writes = Collections.synchronizedList(new ArrayList<>());
+
+	private static DataMapDto<RecordDtoImpl> dataMap(String provenance, String station) {
+		DataMapDto<RecordDtoImpl> map = new DataMapDto<>();
+		map.setProvenance(provenance);
+		map.addRecord(station, "t1", new SimpleRecordDto(1L, 1.0, 600));
+		return map;
+	}
+
+	private List<Throwable> pushConcurrently(PushCoalescer coalescer, List<DataMapDto<RecordDtoImpl>> maps) {
+		// one thread each, pushes block until their group is written
+		ExecutorService executor = Executors.newFixedThreadPool(maps.size());
+		List<CompletableFuture<Throwable>> futures = maps.stream()
+			.map(m -> CompletableFuture.supplyAsync(() -> {
+				try {
+					coalescer.push("type", m, false);
+					return (Throwable) null;
+				} catch (Exception e) {
+					return e;
+				}
+			}, executor))
+			.toList();
+		try {
+			return futures.stream().map(CompletableFuture::join).toList();
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testCoalesce() {
+		PushCoalescer coalescer = new PushCoalescer(500, 3, (stationType, maps, backfill) -> writes.add(maps));
+		List<Throwable> results = pushConcurrently(coalescer,
+			List.of(dataMap("p1", "s1"), dataMap("p1", "s2"), dataMap("p2", "s1")));
+
+		results.forEach(r -> assertNull(r));
+		// max. records reached, all of them in one write, merged per provenance
+		assertEquals(1, writes.size());
+		assertEquals(2, writes.get(0).size());
+	}
+
+	@Test
+	public void testFailureIsolation() {
+		PushCoalescer coalescer = new PushCoalescer(500, 2, (stationType, maps, backfill) -> {
+			if (maps.stream().anyMatch(m -> "bad".equals(m.getProvenance()))) {
+				throw new JPAException("Provenance not found");
+			}
+			writes.add(maps);
+		});
+		List<Throwable> results = pushConcurrently(coalescer, List.of(dataMap("bad", "s1"), dataMap("p1", "s1")));
+
+		// the group failed, then each push got written on its own
+		assertEquals(1, writes.size());
+		assertEquals("p1", writes.get(0).get(0).getProvenance());
+		assertEquals(1, results.stream().filter(r -> r == null).count());
+		assertInstanceOf(JPAException.class, results.stream().filter(r -> r != null).findFirst().get());
+	}
+
+	@Test
+	public void testTransientFailure() {
+		List<Integer> attempts = Collections.synchronizedList(new ArrayList<>());
+		PushCoalescer coalescer = new PushCoalescer(500, 2, (stationType, maps, backfill) -> {
+			attempts.add(maps.size());
+			throw new JPAException("Timeout while waiting for concurrent pushes", 503);
+		});
+		List<Throwable> results = pushConcurrently(coalescer, List.of(dataMap("p1", "s1"), dataMap("p2", "s1")));
+
+		// not worth writing each push again, both get the failure of the group
+		assertEquals(1, attempts.size());
+		results.forEach(r -> assertInstanceOf(JPAException.class, r));
+	}
+}